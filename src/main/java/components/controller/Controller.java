@@ -1,32 +1,41 @@
 package main.java.components.controller;
 
-import java.io.StringReader;
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-
-import fr.sorbonne_u.components.ComponentI;
 import fr.sorbonne_u.components.annotations.OfferedInterfaces;
 import fr.sorbonne_u.components.annotations.RequiredInterfaces;
 import fr.sorbonne_u.components.connectors.AbstractConnector;
 import fr.sorbonne_u.components.cyphy.AbstractCyPhyComponent;
 import fr.sorbonne_u.components.exceptions.ComponentShutdownException;
 import fr.sorbonne_u.components.exceptions.ComponentStartException;
+import fr.sorbonne_u.components.ports.AbstractOutboundPort;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtMethod;
+import main.java.components.controller.connectors.MethodHandleConnector;
+import main.java.components.controller.connectors.MethodHandlePlanningEquipmentControlConnector;
+import main.java.components.controller.connectors.MethodHandleStandardEquipmentControlConnector;
+import main.java.components.controller.connectors.MethodHandleSuspensionEquipmentControlConnector;
 import main.java.components.controller.interfaces.ControllerCI;
 import main.java.components.controller.interfaces.ControllerImplementationI;
 import main.java.components.controller.interfaces.PlanningEquipmentControlCI;
@@ -36,9 +45,38 @@ import main.java.components.controller.ports.ControllerInboundPort;
 import main.java.components.controller.ports.PlanningEquipmentControlOutboundPort;
 import main.java.components.controller.ports.StandardEquipmentControlOutboundPort;
 import main.java.components.controller.ports.SuspensionEquipmentControlOutboundPort;
+import main.java.components.controller.strategies.ControlStrategy;
+import main.java.components.controller.strategies.DefaultControlStrategy;
+import main.java.components.controller.strategies.EquipmentInfo;
+import main.java.components.controller.strategies.EquipmentView;
+import main.java.components.controller.strategies.StrategyCommand;
+import main.java.components.controller.strategies.StrategyStage;
+import main.java.components.controller.utils.AdapterDescriptor;
+import main.java.components.controller.utils.AdaptivePeriod;
+import main.java.components.controller.utils.ConnectorBackend;
+import main.java.components.controller.utils.ControlPhase;
+import main.java.components.controller.utils.ControllerShard;
+import main.java.components.controller.utils.ControlAdapterParser;
+import main.java.components.controller.utils.CommandDispatch;
+import main.java.components.controller.utils.CommandOutcome;
+import main.java.components.controller.utils.DecisionJournal;
+import main.java.components.controller.utils.EquipmentCommand;
+import main.java.components.controller.utils.EquipmentRegistry;
+import main.java.components.controller.utils.EquipmentRole;
+import main.java.components.controller.utils.EquipmentState;
+import main.java.components.controller.utils.JournalRecord;
+import main.java.components.controller.utils.LatencyHistogram;
+import main.java.components.controller.utils.LatencyReport;
+import main.java.components.controller.utils.LatencySummary;
+import main.java.components.controller.utils.RegisteredEquipment;
+import main.java.components.controller.utils.RegistrationRequest;
 import main.java.components.electricMeter.connectors.ElectricMeterConnector;
 import main.java.components.electricMeter.interfaces.ElectricMeterCI;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationCI;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI;
+import main.java.components.electricMeter.ports.ElectricMeterNotificationInboundPort;
 import main.java.components.electricMeter.ports.ElectricMeterOutboundPort;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
 import main.java.deployment.RunSILSimulation;
 import main.java.utils.FileLogger;
 import main.java.utils.Log;
@@ -53,15 +91,21 @@ import main.java.utils.Log;
  * @author Bello Memmi
  *
  */
-@OfferedInterfaces(offered = { ControllerCI.class })
+@OfferedInterfaces(offered = { ControllerCI.class, ElectricMeterNotificationCI.class })
 @RequiredInterfaces(required = { StandardEquipmentControlCI.class, SuspensionEquipmentControlCI.class,
 		PlanningEquipmentControlCI.class, ElectricMeterCI.class })
-public class Controller extends AbstractCyPhyComponent implements ControllerImplementationI {
+public class Controller extends AbstractCyPhyComponent
+		implements ControllerImplementationI, ElectricMeterNotificationImplementationI {
+
+	/**
+	 * duration by which a planned program is postponed
+	 */
+	public static final Duration POSTPONE_STEP = Duration.ofMinutes(30);
 
 	/**
-	 * postpone duration step
+	 * tension of the house in volts, converting the balance in amperes into watts
 	 */
-	public static final int POSTPONE_DURATION = 2;
+	public static final double TENSION = 220;
 
 	/**
 	 * URI of the reflection inbound port of this component; works for singleton.
@@ -69,9 +113,52 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	public static final String REFLECTION_INBOUND_PORT_URI = "controller-ibp-uri";
 
 	/**
-	 * URI of the pool of threads for control
+	 * URI prefix of the pools of threads sending the commands to the equipments,
+	 * one pool by shard suffixed by the index of the shard
+	 */
+	public static final String CONTROL_EXECUTOR_URI = "control-";
+
+	/**
+	 * URI of the pool of threads running the stages of the shards concurrently,
+	 * only created when there are several shards
+	 */
+	public static final String SHARD_EXECUTOR_URI = "shards";
+
+	/**
+	 * default number of shards of the equipments
+	 */
+	public static final int DEFAULT_SHARDS = 1;
+
+	/**
+	 * default number of threads of the control pool, i.e. number of equipments
+	 * receiving a command at the same time
+	 */
+	public static final int DEFAULT_CONTROL_THREADS = 4;
+
+	/**
+	 * URI of the pool of threads running the control passes triggered by the
+	 * electric meter notifications
+	 */
+	public static final String NOTIFICATION_EXECUTOR_URI = "notification";
+
+	/**
+	 * maximal time in milliseconds a control pass waits for the equipments,
+	 * shared by all the reads and commands of the pass so that a pass stays
+	 * within the minimal period of the control passes
+	 */
+	public static final long COMMAND_DEADLINE_MILLIS = 50;
+
+	/**
+	 * system property giving the minimal period of the control passes in
+	 * milliseconds, half of the period of a simulated second by default
+	 */
+	public static final String MIN_CONTROL_PERIOD_PROPERTY = "controller.minPeriod";
+
+	/**
+	 * system property giving the maximal period of the control passes in
+	 * milliseconds, ten simulated seconds by default
 	 */
-	public static final String CONTROL_EXECUTOR_URI = "control";
+	public static final String MAX_CONTROL_PERIOD_PROPERTY = "controller.maxPeriod";
 
 	/**
 	 * URI of the pool of threads for registering
@@ -79,22 +166,75 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	public static final String REGISTER_EXECUTOR_URI = "register";
 
 	/**
-	 * ports used for registering
+	 * URI of the pool of threads registering the devices of a batch
+	 * concurrently
 	 */
-	private ControllerInboundPort cip;
+	public static final String REGISTER_WORKER_EXECUTOR_URI = "register-worker";
+
+	/**
+	 * number of registrations handled at the same time, by each of the register
+	 * pools
+	 */
+	public static final int DEFAULT_REGISTER_THREADS = 4;
+
+	/**
+	 * minimal variation of the energy balance (in amperes) for which the electric
+	 * meter notifies the controller
+	 */
+	public static final double BALANCE_NOTIFICATION_THRESHOLD = 0.5;
+
+	/**
+	 * number of maximal control periods without notification after which a pass
+	 * reads the balance from the electric meter, in case a notification was lost
+	 */
+	public static final int METER_HEARTBEAT_PERIODS = 10;
+
+	/**
+	 * system property selecting how the connectors to the equipments are built,
+	 * JAVASSIST or METHOD_HANDLE
+	 */
+	public static final String CONNECTOR_BACKEND_PROPERTY = "controller.connectorBackend";
+
+	/**
+	 * how the connectors to the equipments are built
+	 */
+	public static final ConnectorBackend CONNECTOR_BACKEND = ConnectorBackend
+			.valueOf(System.getProperty(CONNECTOR_BACKEND_PROPERTY, ConnectorBackend.JAVASSIST.name()));
 
 	/**
-	 * ports used for controlling standard devices
+	 * system property giving the canonical name of the control strategy used from
+	 * the start, DefaultControlStrategy if not given
 	 */
-	private Vector<StandardEquipmentControlOutboundPort> stecops;
+	public static final String CONTROL_STRATEGY_PROPERTY = "controller.strategy";
+
 	/**
-	 * ports used for controlling planning devices
+	 * system property giving the path of the decision journal, an empty path
+	 * disabling it
 	 */
-	private Vector<PlanningEquipmentControlOutboundPort> plecops;
+	public static final String JOURNAL_PROPERTY = "controller.journal";
+
+	/**
+	 * default path of the decision journal
+	 */
+	public static final String DEFAULT_JOURNAL = "simulationLogs/controller.journal";
+
 	/**
-	 * ports used for controlling suspensible devices
+	 * connector classes already generated, by connector key, shared by all the
+	 * equipments registering with the same adapter
 	 */
-	private Vector<SuspensionEquipmentControlOutboundPort> suecops;
+	private static final ConcurrentHashMap<String, Class<?>> generatedConnectors = new ConcurrentHashMap<>();
+
+	/**
+	 * ports used for registering
+	 */
+	private ControllerInboundPort cip;
+
+	/**
+	 * partitions of the registered equipments, each with its own registry and
+	 * pool of threads, an equipment belongs to the shard given by the hash of its
+	 * serial number
+	 */
+	private ControllerShard[] shards;
 
 	/**
 	 * outboundPort to use ElectricMeter services
@@ -106,8 +246,18 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	 */
 	private String eipURI;
 
+	/**
+	 * inbound port receiving the balance notifications of the electric meter
+	 */
+	private ElectricMeterNotificationInboundPort enip;
+
 	private FileLogger fileLogger;
 
+	/**
+	 * binary journal of the control passes, null if disabled
+	 */
+	private DecisionJournal journal;
+
 	/**
 	 * Constructor of the controller
 	 * 
@@ -116,16 +266,50 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	 * @throws Exception
 	 */
 	protected Controller(String cipURI, String eipURI) throws Exception {
+		this(cipURI, eipURI, DEFAULT_CONTROL_THREADS, DEFAULT_SHARDS);
+	}
+
+	/**
+	 * Constructor of the controller
+	 * 
+	 * @param cipURI            inbound port uri of controller for registering
+	 * @param eipURI            inbound port uri of the electric meter
+	 * @param nbControlThreads  number of equipments of a shard receiving a command
+	 *                          at the same time
+	 * @param nbShards          number of partitions of the equipments
+	 * @throws Exception
+	 */
+	protected Controller(String cipURI, String eipURI, int nbControlThreads, int nbShards) throws Exception {
 		super(REFLECTION_INBOUND_PORT_URI, 1, 0);
+		assert nbControlThreads > 0 && nbShards > 0;
 
-		this.createNewExecutorService(CONTROL_EXECUTOR_URI, 1, false);
-		this.createNewExecutorService(REGISTER_EXECUTOR_URI, 1, false);
+		this.shards = new ControllerShard[nbShards];
+		for (int i = 0; i < nbShards; i++) {
+			this.createNewExecutorService(CONTROL_EXECUTOR_URI + i, nbControlThreads, false);
+			this.shards[i] = new ControllerShard(i, CONTROL_EXECUTOR_URI + i);
+		}
+		if (nbShards > 1)
+			this.createNewExecutorService(SHARD_EXECUTOR_URI, nbShards, false);
+		this.createNewExecutorService(NOTIFICATION_EXECUTOR_URI, 1, false);
+		this.createNewExecutorService(REGISTER_EXECUTOR_URI, DEFAULT_REGISTER_THREADS, false);
+		this.createNewExecutorService(REGISTER_WORKER_EXECUTOR_URI, DEFAULT_REGISTER_THREADS, false);
 
 		this.eipURI = eipURI;
+		this.strategies = newStrategies(
+				System.getProperty(CONTROL_STRATEGY_PROPERTY, DefaultControlStrategy.class.getCanonicalName()));
 
 		initialise(cipURI);
 
 		fileLogger = new FileLogger("controller.log");
+		String journalFile = System.getProperty(JOURNAL_PROPERTY, DEFAULT_JOURNAL);
+		if (!journalFile.isEmpty()) {
+			try {
+				this.journal = new DecisionJournal(Paths.get(journalFile));
+			} catch (IOException e) {
+				// the controller works without its journal
+				Log.printAndLog(this, "decision journal " + journalFile + " not opened : " + e);
+			}
+		}
 		this.tracer.get().setTitle("Controller component");
 		this.tracer.get().setRelativePosition(2, 1);
 		this.toggleTracing();
@@ -146,12 +330,13 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 		this.cip = new ControllerInboundPort(cipURI, this.getExecutorServiceIndex(REGISTER_EXECUTOR_URI), this);
 		this.cip.publishPort();
 
-		// Initialize ports lists relative to controlling devices
-		this.stecops = new Vector<>();
-		this.plecops = new Vector<>();
-		this.suecops = new Vector<>();
+		for (ControlPhase phase : ControlPhase.values())
+			this.phaseLatencies.put(phase, new LatencyHistogram());
 		this.eop = new ElectricMeterOutboundPort(this);
 		this.eop.localPublishPort();
+		this.enip = new ElectricMeterNotificationInboundPort(this.getExecutorServiceIndex(NOTIFICATION_EXECUTOR_URI),
+				this);
+		this.enip.publishPort();
 	}
 
 	/**
@@ -172,12 +357,24 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	 */
 	@Override
 	public synchronized void finalise() throws Exception {
-		for (StandardEquipmentControlOutboundPort stecop : this.stecops)
-			stecop.doDisconnection();
-		for (PlanningEquipmentControlOutboundPort plecop : this.plecops)
-			plecop.doDisconnection();
-		for (SuspensionEquipmentControlOutboundPort suecop : this.suecops)
-			suecop.doDisconnection();
+		for (ControllerShard shard : this.shards) {
+			for (AbstractOutboundPort ecop : shard.getEquipments().getAllPorts())
+				ecop.doDisconnection();
+		}
+		Log.printAndLog(this, controlPasses + " control passes, " + skippedCommands.get()
+				+ " remote calls avoided thanks to the known states of the equipments, " + rejectedCommands.get()
+				+ " commands not sent to failing equipments");
+		Log.printAndLog(this, "control strategy " + strategies[0].getClass().getSimpleName() + " : "
+				+ strategyPasses.get() + " control passes, " + strategyCommands.get() + " commands");
+		Log.printAndLog(this, "control period " + controlPeriod.getPeriod() + " ms, balance volatility "
+				+ controlPeriod.getVolatility() + " A");
+		String report = getLatencyReport().toString();
+		Log.printAndLog(this, report);
+		fileLogger.logMessage("", report);
+		if (journal != null) {
+			journal.close();
+			Log.printAndLog(this, journal.getAppended() + " control passes written to the decision journal");
+		}
 		eop.doDisconnection();
 		super.finalise();
 	}
@@ -189,251 +386,375 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	public synchronized void shutdown() throws ComponentShutdownException {
 		try {
 			cip.unpublishPort();
-			for (StandardEquipmentControlOutboundPort stecop : this.stecops)
-				stecop.unpublishPort();
-			for (PlanningEquipmentControlOutboundPort plecop : this.plecops)
-				plecop.unpublishPort();
-			for (SuspensionEquipmentControlOutboundPort suecop : this.suecops)
-				suecop.unpublishPort();
+			for (ControllerShard shard : this.shards) {
+				for (AbstractOutboundPort ecop : shard.getEquipments().getAllPorts())
+					ecop.unpublishPort();
+			}
 			eop.unpublishPort();
+			enip.unpublishPort();
 		} catch (Exception e) {
 			throw new ComponentShutdownException(e);
 		}
 		super.shutdown();
 	}
 
-	double lastLoopEnergy = 0;
-	boolean isRunning = false;
+	/**
+	 * latencies of the phases of the control passes
+	 */
+	protected final EnumMap<ControlPhase, LatencyHistogram> phaseLatencies = new EnumMap<>(ControlPhase.class);
+
+	/**
+	 * number of control passes, the clock of the known states of the equipments
+	 */
+	protected long controlPasses = 0;
+
+	/**
+	 * number of commands not sent because the circuit breaker of their equipment
+	 * was open
+	 */
+	protected final AtomicLong rejectedCommands = new AtomicLong(0);
+
+	/**
+	 * number of remote calls avoided thanks to the known states of the equipments
+	 */
+	protected final AtomicLong skippedCommands = new AtomicLong(0);
+
+	/**
+	 * strategies deciding the commands of the control passes, one by shard so
+	 * that each keeps its own state between the passes, swapped at runtime by
+	 * setControlStrategy
+	 */
+	protected volatile ControlStrategy[] strategies;
+
+	/**
+	 * number of control passes decided by the actual strategy
+	 */
+	protected final AtomicLong strategyPasses = new AtomicLong(0);
+
+	/**
+	 * number of commands decided by the actual strategy
+	 */
+	protected final AtomicLong strategyCommands = new AtomicLong(0);
+
+	/**
+	 * period of the control passes, adapted to the volatility of the balance
+	 */
+	protected final AdaptivePeriod controlPeriod = new AdaptivePeriod(
+			Long.getLong(MIN_CONTROL_PERIOD_PROPERTY, (long) (500 / RunSILSimulation.ACC_FACTOR)),
+			Long.getLong(MAX_CONTROL_PERIOD_PROPERTY, (long) (10_000 / RunSILSimulation.ACC_FACTOR)),
+			AdaptivePeriod.DEFAULT_ALPHA);
+
+	/**
+	 * energy balance seen by the previous control pass
+	 */
+	protected double lastLoopEnergy = 0;
+
+	/**
+	 * true while a control pass is running, avoid overlapping passes between the
+	 * timer and the notifications of the electric meter
+	 */
+	protected final AtomicBoolean isRunning = new AtomicBoolean(false);
+
+	/**
+	 * true when a notification arrived since the start of the running pass,
+	 * which then runs again with the new balance
+	 */
+	protected final AtomicBoolean pendingNotification = new AtomicBoolean(false);
+
+	/**
+	 * last snapshot of the electric meter, pushed by a notification or read by a
+	 * pass, null until the first one
+	 */
+	protected final AtomicReference<ElectricMeterSnapshot> meterSnapshot = new AtomicReference<>();
+
+	/**
+	 * wall clock time of the last snapshot in nanoseconds, written before the
+	 * snapshot it dates
+	 */
+	protected volatile long meterSnapshotAt;
 
 	/**
 	 * Handle the management of the available energy in the house, the controller
-	 * look each second the consumption and production and make decisions
+	 * subscribes to the balance notifications of the electric meter and make
+	 * decisions each time the balance changes significantly and on each tick, the
+	 * period of the ticks following the volatility of the balance
 	 * 
 	 * @see fr.sorbonne_u.components.AbstractComponent#execute()
 	 */
 	@Override
 	public synchronized void execute() throws Exception {
 
-		ComponentI me = this;
+		// the electric meter pushes the balance when it changes of sign or moves
+		// more than the threshold, no need to poll it on each tick anymore
+		this.eop.subscribe(this.enip.getPortURI(), BALANCE_NOTIFICATION_THRESHOLD);
 
 		class RunControl extends TimerTask {
 
+			protected final Timer timer;
+
+			public RunControl(Timer timer) {
+				this.timer = timer;
+			}
+
 			@Override
 			public void run() {
-				try {
-					if (!isRunning) {
-						isRunning = true;
-
-						if (!isStarted()) {
-							cancel();
-							throw new Exception();
-						}
-
-						double prod = eop.getProduction();
-						double cons = eop.getIntensity();
-
-						double energy = prod - cons;
-
-						if (energy < 0) {
-							if (lastLoopEnergy >= 0) {
-								String message = "House energy being negative";
-								Log.printAndLog(me, message);
-								fileLogger.logMessage("", message);
-							}
-
-							// down mode all equipments, but dont ask to battery to produce energy
-							int totalDowned = 0;
-							for (StandardEquipmentControlOutboundPort stecop : stecops) {
-								boolean res = stecop.downMode();
-								if (res)
-									totalDowned++;
-							}
-							for (SuspensionEquipmentControlOutboundPort suecop : suecops) {
-								boolean res = suecop.downMode();
-								if (res)
-									totalDowned++;
-							}
-							for (PlanningEquipmentControlOutboundPort plecop : plecops) {
-								if (!plecop.getServerPortURI().equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI)) {
-									boolean res = plecop.downMode();
-									if (res)
-										totalDowned++;
-								}
-							}
-							if (totalDowned > 0) {
-								String message = "have execute downMode() with success on " + totalDowned
-										+ " equipments";
-								Log.printAndLog(me, message);
-								fileLogger.logMessage("", message);
-							}
-
-							// if no equipment was downed, we try to launch the battery
-							if (totalDowned == 0) {
-								boolean batteryProduce = false;
-								for (PlanningEquipmentControlOutboundPort plecop : plecops) {
-									if (plecop.getServerPortURI().equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI)) {
-										batteryProduce = plecop.setMode(0);
-									}
-								}
-								if (batteryProduce) {
-									String message = "battery wasn't producing energy, start to produce now";
-									Log.printAndLog(me, message);
-									fileLogger.logMessage("", message);
-								}
-
-								// if the battery can't product energy or was already producting energy, we try
-								// postpone equipments that arent battery
-								if (!batteryProduce) {
-									int nbPostponed = 0;
-									for (PlanningEquipmentControlOutboundPort plecop : plecops) {
-										if (!plecop.getServerPortURI()
-												.equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI)) {
-											boolean res = plecop.postpone(Duration.ofMinutes(30));
-											if (res)
-												nbPostponed++;
-										}
-									}
-									if (nbPostponed > 0) {
-										String message = "have execute postpone(30 minutes) with success on "
-												+ nbPostponed + " equipments";
-										Log.printAndLog(me, message);
-										fileLogger.logMessage("", message);
-									}
-
-									if (nbPostponed == 0) {
-										int nbSuspended = 0;
-										// if no equipment can be postponed, we stop the suspensibles
-										for (SuspensionEquipmentControlCI suecop : suecops) {
-											boolean res = suecop.suspend();
-											if (res)
-												nbSuspended++;
-										}
-										if (nbSuspended > 0) {
-											String message = "have execute suspend() with success on " + nbSuspended
-													+ " equipments";
-											Log.printAndLog(me, message);
-											fileLogger.logMessage("", message);
-										}
-									}
-								}
-							}
-
-						}
-						// positive house energy
-						else {
-							if (lastLoopEnergy < 0) {
-								String message = "House energy being positive";
-								Log.printAndLog(me, message);
-								fileLogger.logMessage("", message);
-							}
-
-							// if the battery is draining and we have enought energy to stop it, we stop it
-							boolean batteryStoppedDraining = false;
-							if (energy > 7) {
-								for (PlanningEquipmentControlOutboundPort plecop : plecops) {
-									if (plecop.getServerPortURI().equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI)) {
-										if (plecop.currentMode() == 0)
-											batteryStoppedDraining = plecop.setMode(1);
-									}
-								}
-								if (batteryStoppedDraining) {
-									String message = "force battery to go sleep";
-									Log.printAndLog(me, message);
-									fileLogger.logMessage("", message);
-								}
-							}
-
-							// if the battery wasn't draining, we unsuspend equipment
-							if (!batteryStoppedDraining) {
-
-								// we unsuspend equipment if we have enougth energy
-								int nbActivated = 0;
-								if (energy > 2) {
-									for (SuspensionEquipmentControlCI suecop : suecops) {
-										boolean res = suecop.resume();
-										if (res)
-											nbActivated++;
-									}
-									if (nbActivated > 0) {
-										String message = "have unsuspended " + nbActivated + " equipments";
-										Log.printAndLog(me, message);
-										fileLogger.logMessage("", message);
-									}
-								}
-
-								// if no equipment was unsuspended, we upmode equipments except battery
-								if (nbActivated == 0 && energy > 2) {
-									int totalUpped = 0;
-									for (StandardEquipmentControlOutboundPort stecop : stecops) {
-										boolean res = stecop.upMode();
-										if (res)
-											totalUpped++;
-									}
-									for (SuspensionEquipmentControlOutboundPort suecop : suecops) {
-										boolean res = suecop.upMode();
-										if (res)
-											totalUpped++;
-									}
-									for (PlanningEquipmentControlOutboundPort plecop : plecops) {
-										if (!plecop.getServerPortURI()
-												.equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI)) {
-											boolean res = plecop.upMode();
-											if (res)
-												totalUpped++;
-										}
-									}
-									if (totalUpped > 0) {
-										String message = "have execute upMode() with success on " + totalUpped
-												+ " equipments";
-										Log.printAndLog(me, message);
-										fileLogger.logMessage("", message);
-									}
-
-									// if no equipment was upped, we put battery in charging mode if we have enougth
-									// energy
-									if (totalUpped == 0 && energy > 7) {
-										boolean batteryIsCharging = false;
-										for (PlanningEquipmentControlOutboundPort plecop : plecops) {
-											if (plecop.getServerPortURI()
-													.equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI)) {
-												batteryIsCharging = plecop.setMode(2);
-											}
-										}
-										if (batteryIsCharging) {
-											String message = "battery is now recharging.";
-											Log.printAndLog(me, message);
-											fileLogger.logMessage("", message);
-										}
-									}
-								}
-							}
-
-						}
-
-						lastLoopEnergy = energy;
-						isRunning = false;
-					}
-				} catch (Exception e) {
+				if (!isStarted()) {
+					timer.cancel();
+					return;
 				}
+				control();
+				// each tick schedules the next one, after the period computed by the pass
+				timer.schedule(new RunControl(timer), controlPeriod.getPeriod());
 			}
 		}
-		this.runTask(CONTROL_EXECUTOR_URI, owner -> {
+		this.runTask(NOTIFICATION_EXECUTOR_URI, owner -> {
 			try {
 
-				// wait the start of simulation and run Decrease petrol each simulated second
+				// wait the start of simulation and run the first control pass
 				Thread.sleep(RunSILSimulation.DELAY_TO_START_SIMULATION);
 				Timer t = new Timer();
-				t.schedule(new RunControl(), 0, (long) (1000 / RunSILSimulation.ACC_FACTOR));
+				t.schedule(new RunControl(t), 0);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
 		});
 	}
 
+	/**
+	 * Make a control pass, unless one is already running : a notification
+	 * arriving meanwhile makes the running pass start again once it is over
+	 */
+	protected void control() {
+		// a pass is already running, it sees the pending notification
+		if (!isRunning.compareAndSet(false, true))
+			return;
+		do {
+			pendingNotification.set(false);
+			try {
+				pass();
+			} finally {
+				// never leave the controller stuck, whatever happened to the pass
+				isRunning.set(false);
+			}
+		} while (pendingNotification.get() && isRunning.compareAndSet(false, true));
+	}
+
+	/**
+	 * Run a control pass : look the consumption and production of the house, let
+	 * the strategy decide the commands and send them
+	 */
+	protected void pass() {
+		long passStart = System.nanoTime();
+		try {
+			ElectricMeterSnapshot snapshot = meterSnapshot.get();
+			// the meter pushes every move beyond the threshold from the last
+			// balance notified, the pushed balance is the actual one
+			long now = System.nanoTime();
+			if (snapshot == null || now - meterSnapshotAt > TimeUnit.MILLISECONDS
+					.toNanos(METER_HEARTBEAT_PERIODS * controlPeriod.getMaxPeriod())) {
+				// no snapshot yet or for long, ask the electric meter for a
+				// consistent view of production and consumption in a single call
+				ElectricMeterSnapshot read = eop.getSnapshot();
+				// a notification received meanwhile is more recent than the read
+				if (meterSnapshot.compareAndSet(snapshot, read))
+					meterSnapshotAt = now;
+				snapshot = meterSnapshot.get();
+			}
+			phaseLatencies.get(ControlPhase.METER_READ).record(System.nanoTime() - passStart);
+
+			double energy = snapshot.getBalance();
+			long tick = ++controlPasses;
+			controlPeriod.observe(energy);
+			if (energy < 0 && lastLoopEnergy >= 0) {
+				String message = "House energy being negative";
+				Log.printAndLog(this, message);
+				fileLogger.logMessage("", message);
+			} else if (energy >= 0 && lastLoopEnergy < 0) {
+				String message = "House energy being positive";
+				Log.printAndLog(this, message);
+				fileLogger.logMessage("", message);
+			}
+
+			// a single deadline bounds all the calls of the pass to the equipments
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COMMAND_DEADLINE_MILLIS);
+			// the strategies are read once, a swap takes effect on the next pass
+			ControlStrategy[] actual = this.strategies;
+			// share of the balance of the house each shard has to deal with
+			double[] shares = splitEnergy(energy);
+			ArrayList<List<StrategyStage>> stages = new ArrayList<>(shards.length);
+			for (int i = 0; i < shards.length; i++)
+				stages.add(actual[i].decide(snapshot, new PassView(tick, deadline, shards[i], shares[i])));
+			strategyPasses.incrementAndGet();
+			JournalRecord record = new JournalRecord(tick, snapshot.getSimulatedTime(), snapshot.getProduction(),
+					snapshot.getConsumption());
+			execute(stages, tick, deadline, record);
+			if (journal != null)
+				journal.append(record);
+
+			lastLoopEnergy = energy;
+		} catch (Exception e) {
+			Log.printAndLog(this, "control pass failed : " + e);
+		} finally {
+			phaseLatencies.get(ControlPhase.TICK).record(System.nanoTime() - passStart);
+		}
+	}
+
+	/**
+	 * Execute the stages decided by the strategies of the shards in order, the
+	 * shards running the same stage concurrently. A stage is built and sent only
+	 * if no command of the previous stages succeeded in any shard, and if the
+	 * deadline of the pass isn't over.
+	 * 
+	 * @param stages   stages decided by the strategy of each shard
+	 * @param tick     actual control pass
+	 * @param deadline deadline of the pass, in the time of System.nanoTime
+	 * @param record   record of the pass receiving the commands and their outcome
+	 * @return the number of commands executed with success
+	 * @throws Exception if a stage failed to build its commands or interrupted
+	 *                   while waiting for the equipments
+	 */
+	protected int execute(List<List<StrategyStage>> stages, long tick, long deadline, JournalRecord record)
+			throws Exception {
+		int succeeded = 0;
+		// the first stage is always tried, the next ones only within the deadline
+		for (int n = 0; succeeded == 0 && (n == 0 || System.nanoTime() - deadline < 0); n++) {
+			ArrayList<List<ControlCommand>> decided = new ArrayList<>();
+			ArrayList<Callable<Integer>> runs = new ArrayList<>();
+			for (List<StrategyStage> shardStages : stages) {
+				if (n < shardStages.size()) {
+					StrategyStage stage = shardStages.get(n);
+					ArrayList<ControlCommand> commands = new ArrayList<>();
+					decided.add(commands);
+					runs.add(() -> executeStage(stage, tick, deadline, commands));
+				}
+			}
+			if (runs.isEmpty())
+				break;
+			succeeded = fanOut(runs);
+			// the record is only filled by the pass, once the shards are done
+			for (List<ControlCommand> commands : decided) {
+				for (ControlCommand command : commands)
+					record.addCommand(JournalRecord.equipmentId(command.equipment.getSerialNumber()),
+							command.decided.getCommand(), command.decided.getMode(), command.outcome);
+			}
+		}
+		return succeeded;
+	}
+
+	/**
+	 * Build the commands of a stage and send them all at once, their results
+	 * being gathered by command until the deadline of the pass. A command known
+	 * to be a no-op or whose equipment has its circuit breaker open isn't sent,
+	 * the circuit breakers being asked only for the commands sent by the stage.
+	 * 
+	 * @param stage    the stage
+	 * @param tick     actual control pass
+	 * @param deadline deadline of the pass, in the time of System.nanoTime
+	 * @param decided  receives the commands of the stage and their outcome
+	 * @return the number of commands executed with success
+	 * @throws Exception if the stage failed to build its commands or interrupted
+	 *                   while waiting for the equipments
+	 */
+	private int executeStage(StrategyStage stage, long tick, long deadline, List<ControlCommand> decided)
+			throws Exception {
+		long buildStart = System.nanoTime();
+		List<StrategyCommand> commands = stage.commands();
+		phaseLatencies.get(ControlPhase.DECIDE).record(System.nanoTime() - buildStart);
+		strategyCommands.addAndGet(commands.size());
+
+		EnumMap<EquipmentCommand, List<ControlCommand>> groups = new EnumMap<>(EquipmentCommand.class);
+		for (StrategyCommand command : commands) {
+			ControlCommand controlCommand = controlCommand(command, tick);
+			decided.add(controlCommand);
+			if (controlCommand.outcome == CommandOutcome.NOT_SENT)
+				groups.computeIfAbsent(command.getCommand(), c -> new ArrayList<>()).add(controlCommand);
+		}
+
+		// the groups run concurrently, none of them waiting for the previous ones
+		long start = System.nanoTime();
+		EnumMap<EquipmentCommand, List<Future<Boolean>>> results = new EnumMap<>(EquipmentCommand.class);
+		for (Map.Entry<EquipmentCommand, List<ControlCommand>> group : groups.entrySet())
+			results.put(group.getKey(), submitAll(group.getValue()));
+		int succeeded = 0;
+		for (Map.Entry<EquipmentCommand, List<ControlCommand>> group : groups.entrySet()) {
+			int done = collect(phaseOf(group.getKey()), group.getValue(), results.get(group.getKey()), start,
+					deadline);
+			if (done > 0) {
+				String message = "have execute " + group.getKey() + " with success on " + done + " equipments";
+				Log.printAndLog(this, message);
+				fileLogger.logMessage("", message);
+			}
+			succeeded += done;
+		}
+		return succeeded;
+	}
+
+	/**
+	 * Return the phase of the control pass measuring a command
+	 * 
+	 * @param command the command
+	 * @return the phase measuring the command
+	 */
+	private static ControlPhase phaseOf(EquipmentCommand command) {
+		switch (command) {
+		case DOWN_MODE:
+			return ControlPhase.DOWN_MODE;
+		case UP_MODE:
+			return ControlPhase.UP_MODE;
+		case SET_MODE:
+			return ControlPhase.BATTERY;
+		case SUSPEND:
+			return ControlPhase.SUSPEND;
+		case RESUME:
+			return ControlPhase.RESUME;
+		default:
+			return ControlPhase.POSTPONE;
+		}
+	}
+
+	/**
+	 * Create a control strategy from the canonical name of its class
+	 * 
+	 * @param className canonical name of the class of the strategy
+	 * @return the new strategy
+	 * @throws Exception if the class isn't a control strategy or can't be
+	 *                   instantiated
+	 */
+	protected static ControlStrategy newStrategy(String className) throws Exception {
+		return Class.forName(className).asSubclass(ControlStrategy.class).getDeclaredConstructor().newInstance();
+	}
+
+	/**
+	 * Create a control strategy for each shard
+	 * 
+	 * @param className canonical name of the class of the strategy
+	 * @return the new strategies, by shard index
+	 * @throws Exception if the class isn't a control strategy or can't be
+	 *                   instantiated
+	 */
+	protected ControlStrategy[] newStrategies(String className) throws Exception {
+		ControlStrategy[] strategies = new ControlStrategy[shards.length];
+		for (int i = 0; i < shards.length; i++)
+			strategies[i] = newStrategy(className);
+		return strategies;
+	}
+
 	// ------------------------ -------------------------------------------------
 	// Component services implementation
 	// -------------------------------------------------------------------------
 
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI#balanceChanged(ElectricMeterSnapshot)
+	 */
+	@Override
+	public void balanceChanged(ElectricMeterSnapshot snapshot) throws Exception {
+		this.meterSnapshotAt = System.nanoTime();
+		this.meterSnapshot.set(snapshot);
+		this.pendingNotification.set(true);
+		// react immediately instead of waiting for the next tick
+		this.control();
+	}
+
 	/**
 	 * @see main.java.components.controller.interfaces.ControllerImplementationI#register(String,String,
 	 *      String)
@@ -441,9 +762,18 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 	@Override
 	public boolean register(String serial_number, String inboundPortURI, String XMLFile) throws Exception {
 		Log.printAndLog(this, "try to register equipment : " + serial_number);
+		ControllerShard shard = shards[ControllerShard.shardIndex(serial_number, shards.length)];
+		EquipmentRegistry equipments = shard.getEquipments();
+		if (equipments.contains(serial_number)) {
+			Log.printAndLog(this, "Equipment : " + serial_number + " is already registered.");
+			return false;
+		}
+		// the adapter is parsed once, its descriptor serves the whole registration
+		AdapterDescriptor adapter;
 		Class<?> generatedConnector;
 		try {
-			generatedConnector = generateConnector(serial_number, XMLFile);
+			adapter = ControlAdapterParser.parse(XMLFile);
+			generatedConnector = generateConnector(serial_number, inboundPortURI, adapter);
 		} catch (Exception e) {
 			Log.printAndLog(this, e.getMessage());
 			return false;
@@ -453,144 +783,351 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 		}
 		// connector is generated, we can register the component
 
-		// get the equipment type dans create is port in the associated list
-		String equipmentType = getEquipmentType(XMLFile);
-		if (equipmentType == null)
-			return false;
-		switch (equipmentType) {
+		// create the port of the equipment according to its type and register it
+		AbstractOutboundPort port;
+		boolean added;
+		switch (adapter.getType()) {
 		case "suspension":
 			SuspensionEquipmentControlOutboundPort suecop = new SuspensionEquipmentControlOutboundPort(this);
 			suecop.localPublishPort();
-			suecops.add(suecop);
 			this.doPortConnection(suecop.getPortURI(), inboundPortURI, generatedConnector.getCanonicalName());
+			port = suecop;
+			added = equipments.addSuspendable(serial_number, suecop, adapter);
 			break;
 		case "planning":
 			PlanningEquipmentControlOutboundPort plecop = new PlanningEquipmentControlOutboundPort(this);
 			plecop.localPublishPort();
-			plecops.add(plecop);
 			this.doPortConnection(plecop.getPortURI(), inboundPortURI, generatedConnector.getCanonicalName());
+			port = plecop;
+			// the role of the battery is decided once here instead of on each control pass
+			added = equipments.addPlanning(serial_number, plecop, adapter,
+					inboundPortURI.equals(RunSILSimulation.BATTERY_INBOUND_PORT_URI));
 			break;
 		default:
 			StandardEquipmentControlOutboundPort stecop = new StandardEquipmentControlOutboundPort(this);
 			stecop.localPublishPort();
-			stecops.add(stecop);
 			this.doPortConnection(stecop.getPortURI(), inboundPortURI, generatedConnector.getCanonicalName());
+			port = stecop;
+			added = equipments.addStandard(serial_number, stecop, adapter);
 			break;
 		}
-		Log.printAndLog(this, "Equipment : " + serial_number + " is registered.");
+		if (!added) {
+			// registrations run concurrently, the same serial number registered meanwhile
+			port.doDisconnection();
+			port.unpublishPort();
+			Log.printAndLog(this, "Equipment : " + serial_number + " is already registered.");
+			return false;
+		}
+		shard.addNominalConsumption(adapter.getNominalConsumption());
+		Log.printAndLog(this, "Equipment : " + serial_number + " is registered in shard " + shard.getIndex() + " ("
+				+ shard.getNominalConsumption() + " W nominal).");
 		return true;
 	}
 
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#registerAll(RegistrationRequest[])
+	 */
+	@Override
+	public boolean[] registerAll(RegistrationRequest[] requests) throws Exception {
+		// parsing, connector generation and port connection of each device run
+		// concurrently on the worker pool, not on the register pool running this call
+		ExecutorService executor = this
+				.getExecutorService(this.getExecutorServiceIndex(REGISTER_WORKER_EXECUTOR_URI));
+		ArrayList<Future<Boolean>> results = new ArrayList<>(requests.length);
+		for (RegistrationRequest request : requests)
+			results.add(executor.submit(() -> register(request.getSerialNumber(), request.getInboundPortURI(),
+					request.getXmlFile())));
+		boolean[] registered = new boolean[requests.length];
+		for (int i = 0; i < requests.length; i++) {
+			try {
+				registered[i] = results.get(i).get();
+			} catch (ExecutionException e) {
+				Log.printAndLog(this, "registration of " + requests[i].getSerialNumber() + " failed : " + e.getCause());
+			}
+		}
+		return registered;
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#getLatencyReport()
+	 */
+	@Override
+	public LatencyReport getLatencyReport() throws Exception {
+		EnumMap<ControlPhase, LatencySummary> phases = new EnumMap<>(ControlPhase.class);
+		for (ControlPhase phase : ControlPhase.values())
+			phases.put(phase, phaseLatencies.get(phase).summarize(phase.name()));
+		HashMap<String, LatencySummary> devices = new HashMap<>();
+		for (RegisteredEquipment<?> equipment : allEquipments())
+			devices.put(equipment.getSerialNumber(), equipment.getLatencies().summarize(equipment.getSerialNumber()));
+		return new LatencyReport(phases, devices);
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#setControlStrategy(String)
+	 */
+	@Override
+	public void setControlStrategy(String className) throws Exception {
+		ControlStrategy[] next = newStrategies(className);
+		ControlStrategy[] previous = this.strategies;
+		this.strategies = next;
+		String message = "control strategy " + previous[0].getClass().getSimpleName() + " replaced by "
+				+ next[0].getClass().getSimpleName() + " after " + strategyPasses.getAndSet(0) + " control passes and "
+				+ strategyCommands.getAndSet(0) + " commands";
+		Log.printAndLog(this, message);
+		fileLogger.logMessage("", message);
+	}
+
 	// -------------------------------------------------------------------------
 	// Component private methods
 	// -------------------------------------------------------------------------
 
 	/**
-	 * Return the equipment type (String) from is xml adapter
+	 * Split the balance of the house between the shards proportionally to the
+	 * nominal consumption of their equipments, or equally if no consumption is
+	 * known
 	 * 
-	 * @param xml adapter
-	 * @return equipment type
+	 * @param energy balance of the house
+	 * @return the share of each shard
 	 */
-	private String getEquipmentType(String xml) {
-		DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-		DocumentBuilder dBuilder;
-		try {
-			dBuilder = dbFactory.newDocumentBuilder();
-			Document doc = dBuilder.parse(new InputSource(new StringReader(xml)));
-			return doc.getElementsByTagName("control-adapter").item(0).getAttributes().getNamedItem("type")
-					.getTextContent();
-		} catch (Exception e) {
-			e.printStackTrace();
-			return null;
+	protected double[] splitEnergy(double energy) {
+		double[] shares = new double[shards.length];
+		double total = 0;
+		for (int i = 0; i < shards.length; i++) {
+			shares[i] = shards[i].getNominalConsumption();
+			total += shares[i];
+		}
+		for (int i = 0; i < shards.length; i++)
+			shares[i] = total > 0 ? energy * shares[i] / total : energy / shards.length;
+		return shares;
+	}
+
+	/**
+	 * Run a stage on several shards concurrently and return the total number of
+	 * commands executed with success, each shard sending its commands on its own
+	 * pool of threads
+	 * 
+	 * @param runs the stage of each shard
+	 * @return the number of commands executed with success
+	 * @throws Exception if the stage failed when run on a single shard
+	 */
+	private int fanOut(List<Callable<Integer>> runs) throws Exception {
+		if (runs.size() == 1)
+			return runs.get(0).call();
+		ExecutorService executor = this.getExecutorService(this.getExecutorServiceIndex(SHARD_EXECUTOR_URI));
+		ArrayList<Future<Integer>> results = new ArrayList<>(runs.size());
+		for (Callable<Integer> run : runs)
+			results.add(executor.submit(run));
+		int total = 0;
+		for (Future<Integer> result : results) {
+			try {
+				total += result.get();
+			} catch (ExecutionException e) {
+				Log.printAndLog(this, "shard stage failed : " + e.getCause());
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Return the registered equipments of all the shards
+	 * 
+	 * @return the registered equipments
+	 */
+	private List<RegisteredEquipment<?>> allEquipments() {
+		ArrayList<RegisteredEquipment<?>> all = new ArrayList<>();
+		for (ControllerShard shard : shards)
+			all.addAll(shard.getEquipments().getAll());
+		return all;
+	}
+
+	/**
+	 * Return the command to send for a command decided by the strategy, unless
+	 * the known state of the equipment tells it is a no-op or its circuit breaker
+	 * is open. The result of the command updates the known state of the
+	 * equipment.
+	 * 
+	 * @param command command decided by the strategy
+	 * @param tick    actual control pass
+	 * @return the command, its outcome being NOT_SENT if it is to send
+	 */
+	private ControlCommand controlCommand(StrategyCommand command, long tick) {
+		ControlCommand controlCommand = new ControlCommand(command,
+				(RegisteredEquipment<?>) command.getEquipment(), CommandDispatch.call(command, tick));
+		controlCommand.outcome = CommandDispatch.screen(command, tick);
+		if (controlCommand.outcome == CommandOutcome.SKIPPED)
+			skippedCommands.incrementAndGet();
+		else if (controlCommand.outcome == CommandOutcome.REJECTED)
+			rejectedCommands.incrementAndGet();
+		return controlCommand;
+	}
+
+	/**
+	 * Submit a call to an equipment on the control pool of threads
+	 * 
+	 * @param <T>       type of the result of the call
+	 * @param equipment equipment receiving the call
+	 * @param call      remote call to the equipment
+	 * @return the future result of the call
+	 */
+	protected <T> Future<T> submit(RegisteredEquipment<?> equipment, Callable<T> call) {
+		ControllerShard shard = shards[ControllerShard.shardIndex(equipment.getSerialNumber(), shards.length)];
+		ExecutorService executor = this.getExecutorService(this.getExecutorServiceIndex(shard.getExecutorURI()));
+		return executor.submit(() -> {
+			long start = System.nanoTime();
+			try {
+				return call.call();
+			} finally {
+				equipment.getLatencies().record(System.nanoTime() - start);
+			}
+		});
+	}
+
+	/**
+	 * Send the given commands concurrently on the control pool of threads and
+	 * return the number of commands that succeeded, see
+	 * {@link #collect(ControlPhase, List, List, long, long)}
+	 * 
+	 * @param phase    phase of the control pass sending the commands
+	 * @param commands commands to send to the equipments
+	 * @param deadline deadline of the pass, in the time of System.nanoTime
+	 * @return the number of commands that returned true
+	 * @throws InterruptedException if interrupted while waiting for the results
+	 */
+	private int executeConcurrently(ControlPhase phase, List<ControlCommand> commands, long deadline)
+			throws InterruptedException {
+		if (commands.isEmpty())
+			return 0;
+		long start = System.nanoTime();
+		return collect(phase, commands, submitAll(commands), start, deadline);
+	}
+
+	/**
+	 * Submit the given commands on the control pool of threads
+	 * 
+	 * @param commands commands to send to the equipments
+	 * @return the future result of each command
+	 */
+	private List<Future<Boolean>> submitAll(List<ControlCommand> commands) {
+		ArrayList<Future<Boolean>> results = new ArrayList<>(commands.size());
+		for (ControlCommand command : commands)
+			results.add(submit(command.equipment, command.call));
+		return results;
+	}
+
+	/**
+	 * Wait for the results of the given commands and return the number of
+	 * commands that succeeded. The commands still running or waiting for a thread
+	 * at the deadline of the pass are cancelled. A command timing out or throwing
+	 * an exception counts as failed and is recorded by the circuit breaker of its
+	 * equipment.
+	 * 
+	 * @param phase    phase of the control pass sending the commands
+	 * @param commands commands sent to the equipments
+	 * @param results  future result of each command
+	 * @param start    time the commands were submitted, in the time of
+	 *                 System.nanoTime
+	 * @param deadline deadline of the pass, in the time of System.nanoTime
+	 * @return the number of commands that returned true
+	 * @throws InterruptedException if interrupted while waiting for the results
+	 */
+	private int collect(ControlPhase phase, List<ControlCommand> commands, List<Future<Boolean>> results, long start,
+			long deadline) throws InterruptedException {
+		int succeeded = 0;
+		for (int i = 0; i < commands.size(); i++) {
+			ControlCommand command = commands.get(i);
+			RegisteredEquipment<?> equipment = command.equipment;
+			Future<Boolean> result = results.get(i);
+			command.outcome = CommandOutcome.FAILED;
+			try {
+				if (result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+					succeeded++;
+					command.outcome = CommandOutcome.SUCCEEDED;
+				} else {
+					command.outcome = CommandOutcome.REFUSED;
+				}
+				equipment.getBreaker().recordSuccess();
+			} catch (TimeoutException e) {
+				result.cancel(true);
+				equipment.getBreaker().recordFailure();
+				Log.printAndLog(this, "equipment " + equipment.getSerialNumber() + " didn't answer in time");
+			} catch (ExecutionException e) {
+				equipment.getBreaker().recordFailure();
+				Log.printAndLog(this, "command to " + equipment.getSerialNumber() + " failed : " + e.getCause());
+			}
 		}
+		phaseLatencies.get(phase).record(System.nanoTime() - start);
+		return succeeded;
 	}
 
 	/**
-	 * Create a connector to connect to the equipment
+	 * Create a connector to connect to the equipment, or reuse the one generated
+	 * for an equipment with the same adapter
 	 * 
-	 * @param serialNumber serial number of the equipment
-	 * @param xmlFile      adapter
+	 * @param serialNumber   serial number of the equipment
+	 * @param inboundPortURI inbound port uri of the equipment
+	 * @param adapter        descriptor of the adapter of the equipment
 	 * @return the generated connector
 	 * @throws Exception
 	 */
-	private Class<?> generateConnector(String serialNumber, String xmlFile) throws Exception {
-		String generatedClassName = serialNumber + "_connector";
-		Class<?> superClass = AbstractConnector.class;
-		Class<?> offeredInterface;
-		Class<?> connectorImplementedInterface;
-		HashMap<String, String> implementedMethodNames = new HashMap<>();
-		HashMap<String, String> notImplementedMethodBody = new HashMap<>();
-
-		// on determine l'interface implémentée par le connecteur généré
-		String equipmentType = getEquipmentType(xmlFile);
-		switch (equipmentType) {
+	private Class<?> generateConnector(String serialNumber, String inboundPortURI, AdapterDescriptor adapter)
+			throws Exception {
+		if (CONNECTOR_BACKEND == ConnectorBackend.METHOD_HANDLE && MethodHandleConnector.supports(adapter)) {
+			// no class to generate, the connector binds the adapter of the port when connected
+			MethodHandleConnector.declare(inboundPortURI, adapter);
+			switch (adapter.getType()) {
+			case "suspension":
+				return MethodHandleSuspensionEquipmentControlConnector.class;
+			case "planning":
+				return MethodHandlePlanningEquipmentControlConnector.class;
+			default:
+				return MethodHandleStandardEquipmentControlConnector.class;
+			}
+		}
+
+		// equipments sharing the same adapter share the same connector class
+		String key = adapter.getConnectorKey();
+		Class<?> connector = generatedConnectors.get(key);
+		if (connector == null) {
+			synchronized (generatedConnectors) {
+				connector = generatedConnectors.get(key);
+				if (connector == null) {
+					Class<?> superClass = AbstractConnector.class;
+					Class<?> offeredInterface = Class.forName(adapter.getOffered());
+					String generatedClassName = offeredInterface.getSimpleName() + "_connector"
+							+ generatedConnectors.size();
+					connector = makeConnectorClassJavassist(generatedClassName, superClass,
+							connectorImplementedInterface(adapter), offeredInterface,
+							adapter.getImplementedMethodNames(), adapter.getNotImplementedMethodBodies());
+					generatedConnectors.put(key, connector);
+				}
+			}
+		} else {
+			Log.printAndLog(this, "reuse connector " + connector.getName() + " for equipment : " + serialNumber);
+		}
+		return connector;
+	}
+
+	/**
+	 * Return the interface the connector of the equipment implements, according
+	 * to the equipment type
+	 * 
+	 * @param adapter descriptor of the adapter of the equipment
+	 * @return the interface implemented by the connector
+	 */
+	private static Class<?> connectorImplementedInterface(AdapterDescriptor adapter) {
+		switch (adapter.getType()) {
 		case "suspension":
-			connectorImplementedInterface = SuspensionEquipmentControlCI.class;
-			break;
+			return SuspensionEquipmentControlCI.class;
 		case "planning":
-			connectorImplementedInterface = PlanningEquipmentControlCI.class;
-			break;
+			return PlanningEquipmentControlCI.class;
 		default:
-			connectorImplementedInterface = StandardEquipmentControlCI.class;
-		}
-
-		// on détermine l'interface offerte par le connecteur généré
-		DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-		DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-		Document doc = dBuilder.parse(new InputSource(new StringReader(xmlFile)));
-
-		String offeredInterfaceName = doc.getElementsByTagName("control-adapter").item(0).getAttributes()
-				.getNamedItem("offered").getTextContent();
-		offeredInterface = Class.forName(offeredInterfaceName);
-
-		// on détermine la "traduction" du nom des méthodes entre ce qui est requis et
-		// ce qui est offert et le stocke dans methodNames
-		NodeList nodeList = doc.getElementsByTagName("control-adapter").item(0).getChildNodes();
-		for (int i = 2; i < nodeList.getLength(); i++) {
-			// method
-			Node node = nodeList.item(i);
-			if (node.getNodeType() == Node.ELEMENT_NODE) {
-				Element eElement = (Element) node;
-				if (eElement.getTagName().equals("mode-control")) {// methods in mode control balise
-					NodeList nd = node.getChildNodes();
-					for (int j = 0; j < nd.getLength(); j++) {
-						if (nd.item(j).getNodeType() == Node.ELEMENT_NODE) {
-							eElement = (Element) nd.item(j);
-							String requiredMethodName = eElement.getTagName();
-							String body = eElement.getElementsByTagName("body").item(0).getTextContent();
-							int index = body.indexOf('.');
-							// body is calling a method
-							if (index != -1) {
-								int endIndex = body.indexOf('(');
-								String offeredMethodName = body.substring(index + 1, endIndex);
-								implementedMethodNames.put(requiredMethodName, offeredMethodName);
-							} else {
-								notImplementedMethodBody.put(requiredMethodName, body);
-							}
-						}
-					}
-				} else {
-					String requiredMethodName = eElement.getTagName();
-					String body = eElement.getElementsByTagName("body").item(0).getTextContent();
-					int index = body.indexOf('.');
-					// body is calling a method
-					if (index != -1) {
-						int endIndex = body.indexOf('(');
-						String offeredMethodName = body.substring(index + 1, endIndex);
-						implementedMethodNames.put(requiredMethodName, offeredMethodName);
-					} else {
-						notImplementedMethodBody.put(requiredMethodName, body);
-					}
-				}
-			}
+			return StandardEquipmentControlCI.class;
 		}
-		return makeConnectorClassJavassist(generatedClassName, superClass, connectorImplementedInterface,
-				offeredInterface, implementedMethodNames, notImplementedMethodBody);
 	}
 
-	public Class<?> makeConnectorClassJavassist(String connectorCanonicalClassName, Class<?> connectorSuperclass,
-			Class<?> connectorImplementedInterface, Class<?> offeredInterface, HashMap<String, String> methodNamesMap,
-			HashMap<String, String> notImplementedMethodBody) throws Exception {
+	public static Class<?> makeConnectorClassJavassist(String connectorCanonicalClassName, Class<?> connectorSuperclass,
+			Class<?> connectorImplementedInterface, Class<?> offeredInterface, Map<String, String> methodNamesMap,
+			Map<String, String> notImplementedMethodBody) throws Exception {
 		ClassPool pool = ClassPool.getDefault();
 		CtClass cs = pool.get(connectorSuperclass.getCanonicalName());
 		CtClass cii = pool.get(connectorImplementedInterface.getCanonicalName());
@@ -651,4 +1188,128 @@ public class Controller extends AbstractCyPhyComponent implements ControllerImpl
 		connectorCtClass.detach();
 		return ret;
 	}
+
+	/**
+	 * A command to send to an equipment : the command decided by the strategy,
+	 * null for a read, the equipment, the remote call and what became of it
+	 */
+	private static class ControlCommand {
+
+		protected final StrategyCommand decided;
+
+		protected final RegisteredEquipment<?> equipment;
+
+		protected final Callable<Boolean> call;
+
+		protected CommandOutcome outcome = CommandOutcome.NOT_SENT;
+
+		public ControlCommand(RegisteredEquipment<?> equipment, Callable<Boolean> call) {
+			this(null, equipment, call);
+		}
+
+		public ControlCommand(StrategyCommand decided, RegisteredEquipment<?> equipment, Callable<Boolean> call) {
+			this.decided = decided;
+			this.equipment = equipment;
+			this.call = call;
+		}
+	}
+
+	/**
+	 * The view of the equipments of a shard given to its strategy during a
+	 * control pass, the reads being sent concurrently on the control pool of the
+	 * shard
+	 */
+	private class PassView implements EquipmentView {
+
+		protected final long tick;
+
+		/**
+		 * deadline of the pass, no read being sent once it is over
+		 */
+		protected final long deadline;
+
+		protected final ControllerShard shard;
+
+		protected final double share;
+
+		public PassView(long tick, long deadline, ControllerShard shard, double share) {
+			this.tick = tick;
+			this.deadline = deadline;
+			this.shard = shard;
+			this.share = share;
+		}
+
+		@Override
+		public long getTick() {
+			return tick;
+		}
+
+		@Override
+		public double getShare() {
+			return share;
+		}
+
+		@Override
+		public List<EquipmentInfo> getEquipments(EquipmentRole role) {
+			return new ArrayList<>(shard.getEquipments().getByRole(role));
+		}
+
+		@Override
+		public void readModes(List<EquipmentInfo> equipments) throws Exception {
+			if (System.nanoTime() - deadline >= 0)
+				return;
+			ArrayList<ControlCommand> reads = new ArrayList<>();
+			for (EquipmentInfo info : equipments) {
+				RegisteredEquipment<?> e = (RegisteredEquipment<?>) info;
+				if (e.getState().getMode(tick) != EquipmentState.UNKNOWN_MODE)
+					skippedCommands.incrementAndGet();
+				else if (e.getBreaker().allowRequest())
+					reads.add(new ControlCommand(e, () -> {
+						e.getState().modeRead(e.getPort().currentMode(), tick);
+						return true;
+					}));
+			}
+			executeConcurrently(ControlPhase.STATE_READ, reads, deadline);
+		}
+
+		@Override
+		public void readPlans(List<EquipmentInfo> equipments) throws Exception {
+			if (System.nanoTime() - deadline >= 0)
+				return;
+			ArrayList<ControlCommand> reads = new ArrayList<>();
+			for (EquipmentInfo info : equipments) {
+				RegisteredEquipment<?> e = (RegisteredEquipment<?>) info;
+				EquipmentState state = e.getState();
+				if (state.hasPlan(tick) != null)
+					skippedCommands.incrementAndGet();
+				else if (e.getBreaker().allowRequest())
+					reads.add(new ControlCommand(e, () -> {
+						PlanningEquipmentControlCI port = (PlanningEquipmentControlCI) e.getPort();
+						boolean hasPlan = port.hasPlan();
+						if (hasPlan)
+							state.planRead(true, port.startTime(), port.duration(), port.deadline(), tick);
+						else
+							state.planRead(false, null, null, null, tick);
+						return hasPlan;
+					}));
+			}
+			executeConcurrently(ControlPhase.STATE_READ, reads, deadline);
+		}
+
+		@Override
+		public void readEmergencies(List<EquipmentInfo> equipments) throws Exception {
+			if (System.nanoTime() - deadline >= 0)
+				return;
+			ArrayList<ControlCommand> reads = new ArrayList<>();
+			for (EquipmentInfo info : equipments) {
+				RegisteredEquipment<?> e = (RegisteredEquipment<?>) info;
+				if (e.getBreaker().allowRequest())
+					reads.add(new ControlCommand(e, () -> {
+						e.getState().emergencyRead(((SuspensionEquipmentControlCI) e.getPort()).emergency(), tick);
+						return true;
+					}));
+			}
+			executeConcurrently(ControlPhase.STATE_READ, reads, deadline);
+		}
+	}
 }
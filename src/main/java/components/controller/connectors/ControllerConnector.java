@@ -2,6 +2,8 @@ package main.java.components.controller.connectors;
 
 import fr.sorbonne_u.components.connectors.AbstractConnector;
 import main.java.components.controller.interfaces.ControllerCI;
+import main.java.components.controller.utils.LatencyReport;
+import main.java.components.controller.utils.RegistrationRequest;
 
 /**
  * The class <code>ControllerConnector</code> implements a connector for the
@@ -20,4 +22,28 @@ public class ControllerConnector extends AbstractConnector implements Controller
 		return ((ControllerCI) this.offering).register(serial_number, inboundPortURI, XMLFile);
 	}
 
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#registerAll(RegistrationRequest[])
+	 */
+	@Override
+	public boolean[] registerAll(RegistrationRequest[] requests) throws Exception {
+		return ((ControllerCI) this.offering).registerAll(requests);
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#getLatencyReport()
+	 */
+	@Override
+	public LatencyReport getLatencyReport() throws Exception {
+		return ((ControllerCI) this.offering).getLatencyReport();
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#setControlStrategy(String)
+	 */
+	@Override
+	public void setControlStrategy(String className) throws Exception {
+		((ControllerCI) this.offering).setControlStrategy(className);
+	}
+
 }
@@ -0,0 +1,176 @@
+package main.java.components.controller.connectors;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import fr.sorbonne_u.components.connectors.AbstractConnector;
+import fr.sorbonne_u.components.interfaces.OfferedCI;
+import fr.sorbonne_u.components.interfaces.RequiredCI;
+import fr.sorbonne_u.components.ports.PortI;
+import main.java.components.controller.utils.AdapterDescriptor;
+
+/**
+ * The class <code>MethodHandleConnector</code> is the base of the connectors
+ * translating the control interfaces of the controller into the interface
+ * offered by an equipment with method handles, instead of compiling a new
+ * connector class for each adapter.
+ * 
+ * The adapter of an equipment is declared under the URI of its inbound port
+ * before the connection. When connected, the connector takes the adapter of
+ * the inbound port it is connected to out of the declared ones and binds each
+ * required method either to the offered method it calls or to the constant its
+ * body returns.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public abstract class MethodHandleConnector extends AbstractConnector {
+
+	/**
+	 * adapters of the equipments waiting for their connection, by inbound port
+	 * URI
+	 */
+	protected static final ConcurrentHashMap<String, AdapterDescriptor> ADAPTERS = new ConcurrentHashMap<>();
+
+	/**
+	 * constant bodies supported without compilation
+	 */
+	protected static final Pattern CONSTANT_BODY = Pattern.compile("return\\s+(true|false|null|-?[0-9]+(\\.[0-9]*)?)\\s*;");
+
+	/**
+	 * lookup used to resolve the offered methods
+	 */
+	protected static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	/**
+	 * Declare the adapter of the equipment owning the given inbound port, must be
+	 * called before connecting to it
+	 * 
+	 * @param inboundPortURI URI of the inbound port of the equipment
+	 * @param adapter        descriptor of the adapter of the equipment
+	 */
+	public static void declare(String inboundPortURI, AdapterDescriptor adapter) {
+		ADAPTERS.put(inboundPortURI, adapter);
+	}
+
+	/**
+	 * Return true if every method of the adapter either calls an offered method
+	 * or returns a constant, i.e. if a method handle connector can implement it
+	 * 
+	 * @param adapter descriptor of the adapter
+	 * @return true if the adapter is supported
+	 */
+	public static boolean supports(AdapterDescriptor adapter) {
+		for (String body : adapter.getNotImplementedMethodBodies().values()) {
+			if (!CONSTANT_BODY.matcher(body).matches())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @see fr.sorbonne_u.components.connectors.AbstractConnector#connect(fr.sorbonne_u.components.interfaces.OfferedCI,
+	 *      fr.sorbonne_u.components.interfaces.RequiredCI)
+	 */
+	@Override
+	public void connect(OfferedCI offering, RequiredCI requiring) throws Exception {
+		super.connect(offering, requiring);
+		String inboundPortURI = ((PortI) offering).getPortURI();
+		// the connector keeps its bindings, the declaration is no longer needed
+		AdapterDescriptor adapter = ADAPTERS.remove(inboundPortURI);
+		if (adapter == null)
+			throw new Exception("no adapter declared for the inbound port : " + inboundPortURI);
+		bind(adapter, offering);
+	}
+
+	/**
+	 * Bind the required methods of this connector on the given offering
+	 * according to the adapter
+	 * 
+	 * @param adapter  descriptor of the adapter of the equipment
+	 * @param offering object offering the interface of the adapter
+	 * @throws Exception if a required method can't be bound
+	 */
+	public abstract void bind(AdapterDescriptor adapter, Object offering) throws Exception;
+
+	/**
+	 * Return a handle implementing the required method on the offering, typed
+	 * exactly as the required method without the receiver
+	 * 
+	 * @param adapter      descriptor of the adapter of the equipment
+	 * @param offering     object offering the interface of the adapter
+	 * @param requiredName name of the required method
+	 * @param returnType   return type of the required method
+	 * @param paramTypes   parameter types of the required method
+	 * @return the bound handle
+	 * @throws Exception if the method isn't described by the adapter or can't be
+	 *                   resolved
+	 */
+	protected static MethodHandle handle(AdapterDescriptor adapter, Object offering, String requiredName,
+			Class<?> returnType, Class<?>... paramTypes) throws Exception {
+		MethodType type = MethodType.methodType(returnType, paramTypes);
+		String offeredName = adapter.getImplementedMethodNames().get(requiredName);
+		if (offeredName != null) {
+			Class<?> offeredInterface = Class.forName(adapter.getOffered());
+			for (Method m : offeredInterface.getMethods()) {
+				if (m.getName().equals(offeredName) && m.getParameterCount() == paramTypes.length)
+					return LOOKUP.unreflect(m).bindTo(offering).asType(type);
+			}
+			throw new Exception("the offered interface " + adapter.getOffered() + " has no method " + offeredName);
+		}
+		String body = adapter.getNotImplementedMethodBodies().get(requiredName);
+		if (body == null)
+			throw new Exception("The xml file for the connector of " + adapter.getOffered()
+					+ " need to implements all the methods (" + requiredName + " is missing).");
+		Matcher matcher = CONSTANT_BODY.matcher(body);
+		if (!matcher.matches())
+			throw new Exception("the body of " + requiredName + " isn't a constant : " + body);
+		MethodHandle constant = MethodHandles.constant(returnType, constant(matcher.group(1), returnType));
+		return MethodHandles.dropArguments(constant, 0, paramTypes);
+	}
+
+	/**
+	 * Convert the literal of a constant body to the given type
+	 * 
+	 * @param literal literal returned by the body
+	 * @param type    return type of the required method
+	 * @return the value of the literal
+	 */
+	protected static Object constant(String literal, Class<?> type) {
+		switch (literal) {
+		case "true":
+			return Boolean.TRUE;
+		case "false":
+			return Boolean.FALSE;
+		case "null":
+			return null;
+		default:
+			double value = Double.parseDouble(literal);
+			if (type == int.class)
+				return (int) value;
+			if (type == long.class)
+				return (long) value;
+			return value;
+		}
+	}
+
+	/**
+	 * Return the throwable raised by a handle as an exception of the control
+	 * interfaces, errors are thrown as is
+	 * 
+	 * @param t throwable raised by a handle
+	 * @return the exception to throw
+	 */
+	protected static Exception rethrow(Throwable t) {
+		if (t instanceof Error)
+			throw (Error) t;
+		if (t instanceof Exception)
+			return (Exception) t;
+		return new Exception(t);
+	}
+}
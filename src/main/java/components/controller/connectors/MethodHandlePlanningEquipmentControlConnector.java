@@ -0,0 +1,114 @@
+package main.java.components.controller.connectors;
+
+import java.lang.invoke.MethodHandle;
+import java.time.Duration;
+import java.time.LocalTime;
+
+import main.java.components.controller.interfaces.PlanningEquipmentControlCI;
+import main.java.components.controller.utils.AdapterDescriptor;
+
+/**
+ * The class <code>MethodHandlePlanningEquipmentControlConnector</code>
+ * implements the component interface <code>PlanningEquipmentControlCI</code>
+ * with method handles bound from the adapter of the equipment.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class MethodHandlePlanningEquipmentControlConnector extends MethodHandleStandardEquipmentControlConnector
+		implements PlanningEquipmentControlCI {
+
+	protected MethodHandle hasPlan;
+	protected MethodHandle startTime;
+	protected MethodHandle duration;
+	protected MethodHandle deadline;
+	protected MethodHandle postpone;
+	protected MethodHandle cancel;
+
+	/**
+	 * @see main.java.components.controller.connectors.MethodHandleStandardEquipmentControlConnector#bind(main.java.components.controller.utils.AdapterDescriptor,
+	 *      java.lang.Object)
+	 */
+	@Override
+	public void bind(AdapterDescriptor adapter, Object offering) throws Exception {
+		super.bind(adapter, offering);
+		hasPlan = handle(adapter, offering, "hasPlan", boolean.class);
+		startTime = handle(adapter, offering, "startTime", LocalTime.class);
+		duration = handle(adapter, offering, "duration", Duration.class);
+		deadline = handle(adapter, offering, "deadline", LocalTime.class);
+		postpone = handle(adapter, offering, "postpone", boolean.class, Duration.class);
+		cancel = handle(adapter, offering, "cancel", boolean.class);
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.PlanningEquipmentControlCI#hasPlan()
+	 */
+	@Override
+	public boolean hasPlan() throws Exception {
+		try {
+			return (boolean) hasPlan.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.PlanningEquipmentControlCI#startTime()
+	 */
+	@Override
+	public LocalTime startTime() throws Exception {
+		try {
+			return (LocalTime) startTime.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.PlanningEquipmentControlCI#duration()
+	 */
+	@Override
+	public Duration duration() throws Exception {
+		try {
+			return (Duration) duration.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.PlanningEquipmentControlCI#deadline()
+	 */
+	@Override
+	public LocalTime deadline() throws Exception {
+		try {
+			return (LocalTime) deadline.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.PlanningEquipmentControlCI#postpone(java.time.Duration)
+	 */
+	@Override
+	public boolean postpone(Duration d) throws Exception {
+		try {
+			return (boolean) postpone.invokeExact(d);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.PlanningEquipmentControlCI#cancel()
+	 */
+	@Override
+	public boolean cancel() throws Exception {
+		try {
+			return (boolean) cancel.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package main.java.components.controller.connectors;
+
+import java.lang.invoke.MethodHandle;
+
+import main.java.components.controller.interfaces.StandardEquipmentControlCI;
+import main.java.components.controller.utils.AdapterDescriptor;
+
+/**
+ * The class <code>MethodHandleStandardEquipmentControlConnector</code>
+ * implements the component interface <code>StandardEquipmentControlCI</code>
+ * with method handles bound from the adapter of the equipment.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class MethodHandleStandardEquipmentControlConnector extends MethodHandleConnector
+		implements StandardEquipmentControlCI {
+
+	protected MethodHandle on;
+	protected MethodHandle off;
+	protected MethodHandle upMode;
+	protected MethodHandle downMode;
+	protected MethodHandle setMode;
+	protected MethodHandle currentMode;
+
+	/**
+	 * @see main.java.components.controller.connectors.MethodHandleConnector#bind(main.java.components.controller.utils.AdapterDescriptor,
+	 *      java.lang.Object)
+	 */
+	@Override
+	public void bind(AdapterDescriptor adapter, Object offering) throws Exception {
+		on = handle(adapter, offering, "on", boolean.class);
+		off = handle(adapter, offering, "off", boolean.class);
+		upMode = handle(adapter, offering, "upMode", boolean.class);
+		downMode = handle(adapter, offering, "downMode", boolean.class);
+		setMode = handle(adapter, offering, "setMode", boolean.class, int.class);
+		currentMode = handle(adapter, offering, "currentMode", int.class);
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.StandardEquipmentControlCI#on()
+	 */
+	@Override
+	public boolean on() throws Exception {
+		try {
+			return (boolean) on.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.StandardEquipmentControlCI#off()
+	 */
+	@Override
+	public boolean off() throws Exception {
+		try {
+			return (boolean) off.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.StandardEquipmentControlCI#upMode()
+	 */
+	@Override
+	public boolean upMode() throws Exception {
+		try {
+			return (boolean) upMode.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.StandardEquipmentControlCI#downMode()
+	 */
+	@Override
+	public boolean downMode() throws Exception {
+		try {
+			return (boolean) downMode.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.StandardEquipmentControlCI#setMode(int)
+	 */
+	@Override
+	public boolean setMode(int modeIndex) throws Exception {
+		try {
+			return (boolean) setMode.invokeExact(modeIndex);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.StandardEquipmentControlCI#currentMode()
+	 */
+	@Override
+	public int currentMode() throws Exception {
+		try {
+			return (int) currentMode.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+}
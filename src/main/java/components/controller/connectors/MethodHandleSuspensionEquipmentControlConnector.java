@@ -0,0 +1,84 @@
+package main.java.components.controller.connectors;
+
+import java.lang.invoke.MethodHandle;
+
+import main.java.components.controller.interfaces.SuspensionEquipmentControlCI;
+import main.java.components.controller.utils.AdapterDescriptor;
+
+/**
+ * The class <code>MethodHandleSuspensionEquipmentControlConnector</code>
+ * implements the component interface <code>SuspensionEquipmentControlCI</code>
+ * with method handles bound from the adapter of the equipment.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class MethodHandleSuspensionEquipmentControlConnector extends MethodHandleStandardEquipmentControlConnector
+		implements SuspensionEquipmentControlCI {
+
+	protected MethodHandle suspended;
+	protected MethodHandle suspend;
+	protected MethodHandle resume;
+	protected MethodHandle emergency;
+
+	/**
+	 * @see main.java.components.controller.connectors.MethodHandleStandardEquipmentControlConnector#bind(main.java.components.controller.utils.AdapterDescriptor,
+	 *      java.lang.Object)
+	 */
+	@Override
+	public void bind(AdapterDescriptor adapter, Object offering) throws Exception {
+		super.bind(adapter, offering);
+		suspended = handle(adapter, offering, "suspended", boolean.class);
+		suspend = handle(adapter, offering, "suspend", boolean.class);
+		resume = handle(adapter, offering, "resume", boolean.class);
+		emergency = handle(adapter, offering, "emergency", double.class);
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.SuspensionEquipmentControlCI#suspended()
+	 */
+	@Override
+	public boolean suspended() throws Exception {
+		try {
+			return (boolean) suspended.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.SuspensionEquipmentControlCI#suspend()
+	 */
+	@Override
+	public boolean suspend() throws Exception {
+		try {
+			return (boolean) suspend.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.SuspensionEquipmentControlCI#resume()
+	 */
+	@Override
+	public boolean resume() throws Exception {
+		try {
+			return (boolean) resume.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.SuspensionEquipmentControlCI#emergency()
+	 */
+	@Override
+	public double emergency() throws Exception {
+		try {
+			return (double) emergency.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+}
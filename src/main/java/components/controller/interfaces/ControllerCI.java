@@ -3,6 +3,8 @@ package main.java.components.controller.interfaces;
 import fr.sorbonne_u.components.interfaces.OfferedCI;
 import fr.sorbonne_u.components.interfaces.RequiredCI;
 import main.java.components.controller.Controller;
+import main.java.components.controller.utils.LatencyReport;
+import main.java.components.controller.utils.RegistrationRequest;
 
 /**
  * 
@@ -21,4 +23,22 @@ public interface ControllerCI extends ControllerImplementationI, OfferedCI, Requ
 	@Override
 	boolean register(String serial_number, String InboundPortURI, String XMLFile) throws Exception;
 
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#registerAll(RegistrationRequest[])
+	 */
+	@Override
+	boolean[] registerAll(RegistrationRequest[] requests) throws Exception;
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#getLatencyReport()
+	 */
+	@Override
+	LatencyReport getLatencyReport() throws Exception;
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#setControlStrategy(String)
+	 */
+	@Override
+	void setControlStrategy(String className) throws Exception;
+
 }
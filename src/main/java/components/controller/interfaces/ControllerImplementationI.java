@@ -1,6 +1,8 @@
 package main.java.components.controller.interfaces;
 
 import main.java.components.controller.Controller;
+import main.java.components.controller.utils.LatencyReport;
+import main.java.components.controller.utils.RegistrationRequest;
 
 /**
  * 
@@ -23,4 +25,32 @@ public interface ControllerImplementationI {
 	 */
 	public boolean register(String serial_number, String inboundPortURI, String XMLFile) throws Exception;
 
+	/**
+	 * Register many devices at once, their registrations being done concurrently
+	 * 
+	 * @param requests serial number, inbound port uri and adapter of each device
+	 * @return for each request, true if the device has been registrated
+	 * @throws Exception
+	 */
+	public boolean[] registerAll(RegistrationRequest[] requests) throws Exception;
+
+	/**
+	 * Return the latencies of the control passes, by phase, and of the calls to
+	 * each registered equipment
+	 * 
+	 * @return the latency report of the controller
+	 * @throws Exception
+	 */
+	public LatencyReport getLatencyReport() throws Exception;
+
+	/**
+	 * Replace the strategy deciding the commands of the control passes, the new
+	 * strategy deciding from the next pass
+	 * 
+	 * @param className canonical name of the class of the strategy, implementing
+	 *                  ControlStrategy with a public constructor without parameter
+	 * @throws Exception if the class can't be loaded or instantiated
+	 */
+	public void setControlStrategy(String className) throws Exception;
+
 }
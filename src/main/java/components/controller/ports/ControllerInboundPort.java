@@ -4,6 +4,8 @@ import fr.sorbonne_u.components.ComponentI;
 import fr.sorbonne_u.components.ports.AbstractInboundPort;
 import main.java.components.controller.Controller;
 import main.java.components.controller.interfaces.ControllerCI;
+import main.java.components.controller.utils.LatencyReport;
+import main.java.components.controller.utils.RegistrationRequest;
 
 /**
  * 
@@ -45,4 +47,31 @@ public class ControllerInboundPort extends AbstractInboundPort implements Contro
 				owner -> ((Controller) owner).register(serial_number, inboundPortURI, XMLFile));
 	}
 
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#registerAll(RegistrationRequest[])
+	 */
+	@Override
+	public boolean[] registerAll(RegistrationRequest[] requests) throws Exception {
+		return this.getOwner().handleRequestSync(executorIndex, owner -> ((Controller) owner).registerAll(requests));
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#getLatencyReport()
+	 */
+	@Override
+	public LatencyReport getLatencyReport() throws Exception {
+		return this.getOwner().handleRequestSync(executorIndex, owner -> ((Controller) owner).getLatencyReport());
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#setControlStrategy(String)
+	 */
+	@Override
+	public void setControlStrategy(String className) throws Exception {
+		this.getOwner().handleRequestSync(executorIndex, owner -> {
+			((Controller) owner).setControlStrategy(className);
+			return null;
+		});
+	}
+
 }
@@ -3,6 +3,8 @@ package main.java.components.controller.ports;
 import fr.sorbonne_u.components.ComponentI;
 import fr.sorbonne_u.components.ports.AbstractOutboundPort;
 import main.java.components.controller.interfaces.ControllerCI;
+import main.java.components.controller.utils.LatencyReport;
+import main.java.components.controller.utils.RegistrationRequest;
 
 /**
  * The class <code>ControllerInboundPort</code> implements an inbound port for
@@ -45,4 +47,28 @@ public class ControllerOutboundPort extends AbstractOutboundPort implements Cont
 		return ((ControllerCI) this.getConnector()).register(serial_number, inboundPortURI, XMLFile);
 	}
 
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#registerAll(RegistrationRequest[])
+	 */
+	@Override
+	public boolean[] registerAll(RegistrationRequest[] requests) throws Exception {
+		return ((ControllerCI) this.getConnector()).registerAll(requests);
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#getLatencyReport()
+	 */
+	@Override
+	public LatencyReport getLatencyReport() throws Exception {
+		return ((ControllerCI) this.getConnector()).getLatencyReport();
+	}
+
+	/**
+	 * @see main.java.components.controller.interfaces.ControllerImplementationI#setControlStrategy(String)
+	 */
+	@Override
+	public void setControlStrategy(String className) throws Exception {
+		((ControllerCI) this.getConnector()).setControlStrategy(className);
+	}
+
 }
@@ -0,0 +1,37 @@
+package main.java.components.controller.strategies;
+
+import java.util.List;
+
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * The interface <code>ControlStrategy</code> decides, on each control pass of
+ * the controller, the commands to send to the equipments from the balance of
+ * the house and the known states of the equipments.
+ * 
+ * The commands are executed by stage, in order : the commands of a stage are
+ * sent all at once, and the next stage is built and executed only if no command
+ * of the stage succeeded. The reads of the states of the equipments a stage
+ * needs belong to the stage, so they aren't sent when an earlier stage
+ * succeeds. A strategy sending everything at once uses a single stage.
+ * 
+ * An implementation needs a public constructor without parameter to be chosen
+ * at runtime, and is only called by one control pass at a time. The controller
+ * creates an instance for each shard of the equipments, the view of a shard
+ * giving its share of the balance of the house.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public interface ControlStrategy {
+
+	/**
+	 * Decide the stages of the commands of the control pass
+	 * 
+	 * @param snapshot production and consumption of the house in amperes
+	 * @param view     registered equipments
+	 * @return the stages to execute, in order
+	 * @throws Exception if the decision failed
+	 */
+	public List<StrategyStage> decide(ElectricMeterSnapshot snapshot, EquipmentView view) throws Exception;
+}
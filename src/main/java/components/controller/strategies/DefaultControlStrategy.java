@@ -0,0 +1,307 @@
+package main.java.components.controller.strategies;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import main.java.components.controller.Controller;
+import main.java.components.controller.utils.EquipmentCommand;
+import main.java.components.controller.utils.EquipmentRole;
+import main.java.components.controller.utils.PlannedJob;
+import main.java.components.controller.utils.SheddingCandidate;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * The class <code>DefaultControlStrategy</code> is the cascade of rules of the
+ * controller, each rule being a stage built and tried only if the previous ones
+ * changed nothing. The thresholds apply to the balance of the house, while the
+ * power to cover or to use is the share of the balance given by the view.
+ *
+ * When the house lacks energy :
+ * <ol>
+ * <li>down mode the fewest equipments covering the deficit, battery
+ * excluded</li>
+ * <li>make the battery produce</li>
+ * <li>postpone the programs with the most slack, until the deficit is
+ * covered</li>
+ * <li>suspend the least urgent equipments, until the deficit is covered</li>
+ * </ol>
+ * When the house has energy to spare :
+ * <ol>
+ * <li>stop the battery draining if the surplus is large</li>
+ * <li>resume the most urgent equipments within the surplus</li>
+ * <li>up mode the equipments, battery excluded</li>
+ * <li>charge the battery if the surplus is large</li>
+ * </ol>
+ *
+ * @author Bello Memmi
+ *
+ */
+public class DefaultControlStrategy implements ControlStrategy {
+
+	/**
+	 * maximal time in milliseconds spent gathering the equipments to shed, beyond
+	 * it they are shed in their order of registration instead of by gain
+	 */
+	public static final long SHEDDING_BUDGET_MILLIS = 5;
+
+	/**
+	 * surplus in amperes above which the battery stops draining or charges
+	 */
+	public static final double BATTERY_THRESHOLD = 7;
+
+	/**
+	 * surplus in amperes above which the equipments are resumed or up moded
+	 */
+	public static final double RESUME_THRESHOLD = 2;
+
+	/**
+	 * @see main.java.components.controller.strategies.ControlStrategy#decide(ElectricMeterSnapshot,
+	 *      EquipmentView)
+	 */
+	@Override
+	public List<StrategyStage> decide(ElectricMeterSnapshot snapshot, EquipmentView view) throws Exception {
+		double energy = snapshot.getBalance();
+		ArrayList<StrategyStage> stages = new ArrayList<>();
+
+		if (energy < 0) {
+			double deficit = -view.getShare() * Controller.TENSION;
+			stages.add(() -> shed(view, deficit));
+			stages.add(() -> setStorageModes(view, 0));
+			stages.add(() -> postpone(view, deficit));
+			stages.add(() -> suspend(view, deficit));
+		} else {
+			if (energy > BATTERY_THRESHOLD)
+				stages.add(() -> stopDraining(view));
+			if (energy > RESUME_THRESHOLD) {
+				double surplus = view.getShare() * Controller.TENSION;
+				stages.add(() -> resume(view, surplus));
+				stages.add(() -> upMode(view));
+			}
+			if (energy > BATTERY_THRESHOLD)
+				stages.add(() -> setStorageModes(view, 2));
+		}
+		return stages;
+	}
+
+	/**
+	 * Down mode the fewest equipments covering the deficit, battery excluded : the
+	 * equipments freeing the most power are degraded first (greedy cover, O(n log
+	 * n)), all of them being degraded only if needed. The modes of the candidates
+	 * are read first, so that the gains come from the per-mode consumptions. The
+	 * deficit is always covered, the budget only deciding whether the candidates
+	 * are sorted.
+	 *
+	 * @param view    registered equipments
+	 * @param deficit missing power in watts
+	 * @return the commands of the stage
+	 * @throws Exception if interrupted while reading the modes
+	 */
+	protected List<StrategyCommand> shed(EquipmentView view, double deficit) throws Exception {
+		long tick = view.getTick();
+		List<EquipmentInfo> equipments = modeCandidates(view, EquipmentCommand.DOWN_MODE);
+		long budget = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHEDDING_BUDGET_MILLIS);
+		ArrayList<SheddingCandidate> candidates = new ArrayList<>(equipments.size());
+		for (EquipmentInfo e : equipments)
+			candidates.add(new SheddingCandidate(e, e.getDownModeGain(e.getState().getMode(tick))));
+		if (System.nanoTime() - budget < 0)
+			candidates.sort(SheddingCandidate.BIGGEST_GAIN_FIRST);
+
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		double covered = 0;
+		for (int i = 0; i < candidates.size() && covered < deficit; i++) {
+			commands.add(new StrategyCommand(candidates.get(i).getEquipment(), EquipmentCommand.DOWN_MODE));
+			covered += candidates.get(i).getGain();
+		}
+		return commands;
+	}
+
+	/**
+	 * Set the mode of the batteries which aren't known to be in it
+	 *
+	 * @param view registered equipments
+	 * @param mode new mode of the batteries, 0 to produce and 2 to charge
+	 * @return the commands of the stage
+	 */
+	protected List<StrategyCommand> setStorageModes(EquipmentView view, int mode) {
+		long tick = view.getTick();
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		for (EquipmentInfo e : view.getEquipments(EquipmentRole.STORAGE)) {
+			if (e.getState().getMode(tick) != mode)
+				commands.add(new StrategyCommand(e, EquipmentCommand.SET_MODE, mode));
+		}
+		return commands;
+	}
+
+	/**
+	 * Stop the batteries draining, their mode being read if unknown
+	 *
+	 * @param view registered equipments
+	 * @return the commands of the stage
+	 * @throws Exception if interrupted while reading the modes
+	 */
+	protected List<StrategyCommand> stopDraining(EquipmentView view) throws Exception {
+		long tick = view.getTick();
+		List<EquipmentInfo> storages = view.getEquipments(EquipmentRole.STORAGE);
+		view.readModes(storages);
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		for (EquipmentInfo e : storages) {
+			if (e.getState().getMode(tick) == 0)
+				commands.add(new StrategyCommand(e, EquipmentCommand.SET_MODE, 1));
+		}
+		return commands;
+	}
+
+	/**
+	 * Postpone the programs with the most slack, until the deficit is covered
+	 *
+	 * @param view    registered equipments
+	 * @param deficit missing power in watts
+	 * @return the commands of the stage
+	 * @throws Exception if interrupted while reading the programs
+	 */
+	protected List<StrategyCommand> postpone(EquipmentView view, double deficit) throws Exception {
+		long tick = view.getTick();
+		List<EquipmentInfo> deferrables = view.getEquipments(EquipmentRole.DEFERRABLE);
+		view.readPlans(deferrables);
+
+		PriorityQueue<PlannedJob> jobs = new PriorityQueue<>(PlannedJob.MOST_SLACK_FIRST);
+		for (EquipmentInfo e : deferrables) {
+			Duration slack = e.getState().getSlack(tick);
+			if (slack != null && slack.compareTo(Controller.POSTPONE_STEP) >= 0
+					&& !e.getState().isNoOp(EquipmentCommand.POSTPONE, tick))
+				jobs.add(new PlannedJob(e, slack));
+		}
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		double covered = 0;
+		while (!jobs.isEmpty() && covered < deficit) {
+			PlannedJob job = jobs.poll();
+			commands.add(new StrategyCommand(job.getEquipment(), EquipmentCommand.POSTPONE));
+			covered += job.getNominalConsumption();
+		}
+		return commands;
+	}
+
+	/**
+	 * Suspend the least urgent equipments, until the deficit is covered
+	 *
+	 * @param view    registered equipments
+	 * @param deficit missing power in watts
+	 * @return the commands of the stage
+	 * @throws Exception if interrupted while reading the emergencies
+	 */
+	protected List<StrategyCommand> suspend(EquipmentView view, double deficit) throws Exception {
+		List<EquipmentInfo> candidates = rankByEmergency(view, EquipmentCommand.SUSPEND);
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		double covered = 0;
+		for (int i = 0; i < candidates.size() && covered < deficit; i++) {
+			commands.add(new StrategyCommand(candidates.get(i), EquipmentCommand.SUSPEND));
+			covered += candidates.get(i).getNominalConsumption();
+		}
+		return commands;
+	}
+
+	/**
+	 * Resume the most urgent equipments first, as long as the surplus allows it,
+	 * an equipment in full emergency being resumed anyway
+	 *
+	 * @param view    registered equipments
+	 * @param surplus power to spare in watts
+	 * @return the commands of the stage
+	 * @throws Exception if interrupted while reading the emergencies
+	 */
+	protected List<StrategyCommand> resume(EquipmentView view, double surplus) throws Exception {
+		long tick = view.getTick();
+		List<EquipmentInfo> candidates = rankByEmergency(view, EquipmentCommand.RESUME);
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		double used = 0;
+		for (int i = candidates.size() - 1; i >= 0; i--) {
+			EquipmentInfo e = candidates.get(i);
+			double nominal = e.getNominalConsumption();
+			if (used + nominal > surplus && e.getState().getEmergency(tick) < 1)
+				continue;
+			commands.add(new StrategyCommand(e, EquipmentCommand.RESUME));
+			used += nominal;
+		}
+		return commands;
+	}
+
+	/**
+	 * Up mode the equipments, battery excluded, those already in their highest
+	 * mode being left out once their modes are read
+	 *
+	 * @param view registered equipments
+	 * @return the commands of the stage
+	 * @throws Exception if interrupted while reading the modes
+	 */
+	protected List<StrategyCommand> upMode(EquipmentView view) throws Exception {
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		for (EquipmentInfo e : modeCandidates(view, EquipmentCommand.UP_MODE))
+			commands.add(new StrategyCommand(e, EquipmentCommand.UP_MODE));
+		return commands;
+	}
+
+	/**
+	 * Read the mode of the controllable equipments for which the command isn't
+	 * known to be a no-op, all at once, and return those for which it still isn't
+	 * once their mode is known. An equipment which didn't give its mode in time
+	 * stays a candidate, its mode being unknown.
+	 *
+	 * @param view    registered equipments
+	 * @param command DOWN_MODE or UP_MODE
+	 * @return the candidates to the command
+	 * @throws Exception if interrupted while reading the modes
+	 */
+	protected List<EquipmentInfo> modeCandidates(EquipmentView view, EquipmentCommand command) throws Exception {
+		long tick = view.getTick();
+		ArrayList<EquipmentInfo> candidates = new ArrayList<>();
+		for (EquipmentInfo e : controllable(view)) {
+			if (!e.getState().isNoOp(command, tick) && !e.getBreaker().isOpen())
+				candidates.add(e);
+		}
+		view.readModes(candidates);
+		candidates.removeIf(e -> e.getState().isNoOp(command, tick));
+		return candidates;
+	}
+
+	/**
+	 * Read the emergency of the suspendable equipments for which the command
+	 * isn't known to be a no-op, all at once, and return them from the least to
+	 * the most urgent. An equipment which didn't give its emergency in time is
+	 * left out.
+	 *
+	 * @param view    registered equipments
+	 * @param command command considered for the equipments
+	 * @return the candidates to the command, the least urgent first
+	 * @throws Exception if interrupted while reading the emergencies
+	 */
+	protected List<EquipmentInfo> rankByEmergency(EquipmentView view, EquipmentCommand command) throws Exception {
+		long tick = view.getTick();
+		ArrayList<EquipmentInfo> candidates = new ArrayList<>();
+		for (EquipmentInfo e : view.getEquipments(EquipmentRole.SUSPENDABLE)) {
+			if (!e.getState().isNoOp(command, tick) && !e.getBreaker().isOpen())
+				candidates.add(e);
+		}
+		view.readEmergencies(candidates);
+		candidates.removeIf(e -> Double.isNaN(e.getState().getEmergency(tick)));
+		candidates.sort(Comparator.comparingDouble(e -> e.getState().getEmergency(tick)));
+		return candidates;
+	}
+
+	/**
+	 * Return the equipments whose mode is controlled by the rules, battery
+	 * excluded
+	 *
+	 * @param view registered equipments
+	 * @return the standard, suspendable and deferrable equipments
+	 */
+	protected List<EquipmentInfo> controllable(EquipmentView view) {
+		ArrayList<EquipmentInfo> equipments = new ArrayList<>(view.getEquipments(EquipmentRole.STANDARD));
+		equipments.addAll(view.getEquipments(EquipmentRole.SUSPENDABLE));
+		equipments.addAll(view.getEquipments(EquipmentRole.DEFERRABLE));
+		return equipments;
+	}
+}
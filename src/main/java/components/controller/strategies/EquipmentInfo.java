@@ -0,0 +1,79 @@
+package main.java.components.controller.strategies;
+
+import main.java.components.controller.utils.AdapterDescriptor;
+import main.java.components.controller.utils.CircuitBreaker;
+import main.java.components.controller.utils.EquipmentRole;
+import main.java.components.controller.utils.EquipmentState;
+
+/**
+ * The interface <code>EquipmentInfo</code> is what a {@link ControlStrategy}
+ * knows of a registered equipment : its adapter, its known state and the
+ * health of its connection, without access to its port.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public interface EquipmentInfo {
+
+	/**
+	 * Return the serial number of the equipment
+	 * 
+	 * @return the serial number of the equipment
+	 */
+	public String getSerialNumber();
+
+	/**
+	 * Return the role of the equipment in the control of the house
+	 * 
+	 * @return the role of the equipment
+	 */
+	public EquipmentRole getRole();
+
+	/**
+	 * Return the descriptor of the adapter of the equipment
+	 * 
+	 * @return the descriptor of the adapter of the equipment
+	 */
+	public AdapterDescriptor getAdapter();
+
+	/**
+	 * Return the nominal consumption of the equipment declared by its adapter
+	 * 
+	 * @return the nominal consumption in watts, 0 if not declared
+	 */
+	public double getNominalConsumption();
+
+	/**
+	 * Return an estimation of the power freed by lowering the mode of the
+	 * equipment
+	 * 
+	 * @param mode actual mode of the equipment, EquipmentState.UNKNOWN_MODE if
+	 *             unknown
+	 * @return the power freed in watts
+	 */
+	public double getDownModeGain(int mode);
+
+	/**
+	 * Return an estimation of the power used by raising the mode of the
+	 * equipment
+	 * 
+	 * @param mode actual mode of the equipment, EquipmentState.UNKNOWN_MODE if
+	 *             unknown
+	 * @return the power used in watts
+	 */
+	public double getUpModeCost(int mode);
+
+	/**
+	 * Return the state of the equipment known by the controller
+	 * 
+	 * @return the state of the equipment
+	 */
+	public EquipmentState getState();
+
+	/**
+	 * Return the circuit breaker of the calls to the equipment
+	 * 
+	 * @return the circuit breaker of the equipment
+	 */
+	public CircuitBreaker getBreaker();
+}
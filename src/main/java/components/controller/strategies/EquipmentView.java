@@ -0,0 +1,66 @@
+package main.java.components.controller.strategies;
+
+import java.util.List;
+
+import main.java.components.controller.utils.EquipmentRole;
+
+/**
+ * The interface <code>EquipmentView</code> gives a {@link ControlStrategy} the
+ * registered equipments during a control pass, possibly only a shard of them
+ * with its share of the balance of the house. The known states of the
+ * equipments may be refreshed on demand, each read being sent to all the given
+ * equipments at once.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public interface EquipmentView {
+
+	/**
+	 * Return the actual control pass, the clock of the known states
+	 * 
+	 * @return the actual control pass
+	 */
+	public long getTick();
+
+	/**
+	 * Return the share of the balance of the house the equipments of the view
+	 * deal with, the whole balance if they aren't split
+	 * 
+	 * @return the share of the balance in amperes, of the sign of the balance
+	 */
+	public double getShare();
+
+	/**
+	 * Return the registered equipments having a role
+	 * 
+	 * @param role the role
+	 * @return the equipments having the role
+	 */
+	public List<EquipmentInfo> getEquipments(EquipmentRole role);
+
+	/**
+	 * Read the mode of the equipments whose mode isn't known
+	 * 
+	 * @param equipments the equipments
+	 * @throws Exception if interrupted while waiting for the equipments
+	 */
+	public void readModes(List<EquipmentInfo> equipments) throws Exception;
+
+	/**
+	 * Read the program of the deferrable equipments whose program isn't known
+	 * 
+	 * @param equipments the deferrable equipments
+	 * @throws Exception if interrupted while waiting for the equipments
+	 */
+	public void readPlans(List<EquipmentInfo> equipments) throws Exception;
+
+	/**
+	 * Read the emergency of the suspendable equipments, the emergency being known
+	 * only during the pass it was read
+	 * 
+	 * @param equipments the suspendable equipments
+	 * @throws Exception if interrupted while waiting for the equipments
+	 */
+	public void readEmergencies(List<EquipmentInfo> equipments) throws Exception;
+}
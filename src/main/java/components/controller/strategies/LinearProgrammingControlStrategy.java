@@ -0,0 +1,203 @@
+package main.java.components.controller.strategies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import main.java.components.controller.Controller;
+import main.java.components.controller.utils.AdapterDescriptor;
+import main.java.components.controller.utils.DispatchVariable;
+import main.java.components.controller.utils.EquipmentCommand;
+import main.java.components.controller.utils.EquipmentRole;
+import main.java.components.controller.utils.EquipmentState;
+import main.java.components.controller.utils.LinearDispatcher;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * The class <code>LinearProgrammingControlStrategy</code> decides the commands
+ * with a linear program over the equipments of the view and its share of the
+ * balance, solved by a {@link LinearDispatcher}, every command being sent in a
+ * single stage.
+ *
+ * On a deficit the variables are the down modes, the postponements, the
+ * suspensions and the draining of the battery, on a surplus the up modes, the
+ * resumptions, and stopping the draining or charging the battery.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class LinearProgrammingControlStrategy implements ControlStrategy {
+
+	/**
+	 * system property giving the number of passes between two solves
+	 */
+	public static final String DISPATCH_PERIOD_PROPERTY = "controller.dispatchPeriod";
+
+	/**
+	 * cost per equipment of lowering its mode, a cost per equipment rather than
+	 * per watt so the fewest equipments cover a deficit
+	 */
+	public static final double DOWN_MODE_COST = 1;
+
+	/**
+	 * cost of draining the battery
+	 */
+	public static final double DRAIN_COST = 2;
+
+	/**
+	 * cost of postponing the program of a deferrable equipment
+	 */
+	public static final double POSTPONE_COST = 3;
+
+	/**
+	 * cost of suspending an equipment
+	 */
+	public static final double SUSPEND_COST = 4;
+
+	/**
+	 * cost per kilowatt used of stopping to drain the battery, the most negative
+	 * commands being used first to use a surplus
+	 */
+	public static final double STOP_DRAINING_COST = -5;
+
+	/**
+	 * cost per kilowatt used of resuming an equipment
+	 */
+	public static final double RESUME_COST = -4;
+
+	/**
+	 * cost per kilowatt used of raising the mode of an equipment
+	 */
+	public static final double UP_MODE_COST = -1;
+
+	/**
+	 * cost per kilowatt used of charging the battery
+	 */
+	public static final double CHARGE_COST = -0.5;
+
+	/**
+	 * solver of the program, remembering the last solution
+	 */
+	protected final LinearDispatcher dispatcher = new LinearDispatcher(
+			Integer.getInteger(DISPATCH_PERIOD_PROPERTY, 1));
+
+	/**
+	 * @see main.java.components.controller.strategies.ControlStrategy#decide(ElectricMeterSnapshot,
+	 *      EquipmentView)
+	 */
+	@Override
+	public List<StrategyStage> decide(ElectricMeterSnapshot snapshot, EquipmentView view) throws Exception {
+		return Collections.singletonList(() -> dispatch(view));
+	}
+
+	/**
+	 * Solve the program over the equipments of the view, their modes being read
+	 * all at once if unknown so that the gains and costs of the mode variables
+	 * come from the per-mode consumptions
+	 *
+	 * @param view registered equipments
+	 * @return the commands of the solution, none when no solve is due
+	 * @throws Exception if interrupted while reading the modes
+	 */
+	protected List<StrategyCommand> dispatch(EquipmentView view) throws Exception {
+		double balance = view.getShare() * Controller.TENSION;
+		long tick = view.getTick();
+		List<EquipmentInfo> standards = view.getEquipments(EquipmentRole.STANDARD);
+		List<EquipmentInfo> suspendables = view.getEquipments(EquipmentRole.SUSPENDABLE);
+		List<EquipmentInfo> deferrables = view.getEquipments(EquipmentRole.DEFERRABLE);
+		List<EquipmentInfo> storages = view.getEquipments(EquipmentRole.STORAGE);
+		ArrayList<EquipmentInfo> equipments = new ArrayList<>(standards);
+		equipments.addAll(suspendables);
+		equipments.addAll(deferrables);
+		equipments.addAll(storages);
+		view.readModes(equipments);
+
+		ArrayList<DispatchVariable> variables = new ArrayList<>();
+		for (EquipmentInfo e : standards)
+			addModeVariable(variables, e, balance, tick);
+		for (EquipmentInfo e : suspendables) {
+			addModeVariable(variables, e, balance, tick);
+			if (balance < 0 && !e.getState().isNoOp(EquipmentCommand.SUSPEND, tick))
+				variables.add(new DispatchVariable(e, EquipmentCommand.SUSPEND, 0, e.getNominalConsumption(),
+						SUSPEND_COST));
+			else if (balance >= 0 && !e.getState().isNoOp(EquipmentCommand.RESUME, tick))
+				variables.add(new DispatchVariable(e, EquipmentCommand.RESUME, 0, -e.getNominalConsumption(),
+						RESUME_COST * e.getNominalConsumption() / 1000));
+		}
+		for (EquipmentInfo e : deferrables) {
+			addModeVariable(variables, e, balance, tick);
+			if (balance < 0 && !e.getState().isNoOp(EquipmentCommand.POSTPONE, tick))
+				variables.add(new DispatchVariable(e, EquipmentCommand.POSTPONE, 0, e.getNominalConsumption(),
+						POSTPONE_COST));
+		}
+		for (EquipmentInfo e : storages)
+			addStorageVariable(variables, e, balance, tick);
+
+		ArrayList<StrategyCommand> commands = new ArrayList<>();
+		List<DispatchVariable> decision = dispatcher.dispatch(balance, variables, tick);
+		// null when no solve is due on this pass, the previous decision stands
+		if (decision != null) {
+			for (DispatchVariable v : decision)
+				commands.add(new StrategyCommand(v.getEquipment(), v.getCommand(), v.getMode()));
+		}
+		return commands;
+	}
+
+	/**
+	 * Add the variable lowering (deficit) or raising (surplus) the mode of the
+	 * equipment, unless the command is known to be a no-op
+	 *
+	 * @param variables variables of the program
+	 * @param equipment the equipment
+	 * @param balance   balance of the house in watts
+	 * @param tick      actual control pass
+	 */
+	protected void addModeVariable(List<DispatchVariable> variables, EquipmentInfo equipment, double balance,
+			long tick) {
+		EquipmentState state = equipment.getState();
+		if (balance < 0) {
+			double gain = equipment.getDownModeGain(state.getMode(tick));
+			if (gain > 0 && !state.isNoOp(EquipmentCommand.DOWN_MODE, tick))
+				variables.add(new DispatchVariable(equipment, EquipmentCommand.DOWN_MODE, 0, gain, DOWN_MODE_COST));
+		} else {
+			double cost = equipment.getUpModeCost(state.getMode(tick));
+			if (cost > 0 && !state.isNoOp(EquipmentCommand.UP_MODE, tick))
+				variables.add(
+						new DispatchVariable(equipment, EquipmentCommand.UP_MODE, 0, -cost, UP_MODE_COST * cost / 1000));
+		}
+	}
+
+	/**
+	 * Add the variable of the storage : draining (mode 0) on a deficit, stopping
+	 * to drain (mode 1) or charging (mode 2) on a surplus
+	 *
+	 * @param variables variables of the program
+	 * @param storage   the storage
+	 * @param balance   balance of the house in watts
+	 * @param tick      actual control pass
+	 */
+	protected void addStorageVariable(List<DispatchVariable> variables, EquipmentInfo storage, double balance,
+			long tick) {
+		int mode = storage.getState().getMode(tick);
+		if (mode == EquipmentState.UNKNOWN_MODE)
+			mode = 1;
+		AdapterDescriptor adapter = storage.getAdapter();
+		double nominal = storage.getNominalConsumption();
+		if (balance < 0) {
+			if (mode != 0) {
+				double power = adapter.getModeConsumption(mode) - adapter.getModeConsumption(0);
+				variables.add(new DispatchVariable(storage, EquipmentCommand.SET_MODE, 0,
+						Double.isNaN(power) ? nominal * mode : power, DRAIN_COST));
+			}
+		} else {
+			int target = mode == 0 ? 1 : 2;
+			if (mode != target) {
+				double power = adapter.getModeConsumption(target) - adapter.getModeConsumption(mode);
+				if (Double.isNaN(power))
+					power = nominal;
+				variables.add(new DispatchVariable(storage, EquipmentCommand.SET_MODE, target, -power,
+						(mode == 0 ? STOP_DRAINING_COST : CHARGE_COST) * power / 1000));
+			}
+		}
+	}
+}
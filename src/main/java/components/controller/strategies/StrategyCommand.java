@@ -0,0 +1,90 @@
+package main.java.components.controller.strategies;
+
+import main.java.components.controller.utils.EquipmentCommand;
+
+/**
+ * The class <code>StrategyCommand</code> is a command decided by a
+ * {@link ControlStrategy} : the equipment, the command and the new mode for a
+ * SET_MODE.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class StrategyCommand {
+
+	/**
+	 * equipment receiving the command
+	 */
+	protected final EquipmentInfo equipment;
+
+	/**
+	 * the command
+	 */
+	protected final EquipmentCommand command;
+
+	/**
+	 * new mode of the equipment for a SET_MODE command
+	 */
+	protected final int mode;
+
+	/**
+	 * Constructor of a command other than SET_MODE
+	 * 
+	 * @param equipment equipment receiving the command
+	 * @param command   the command
+	 */
+	public StrategyCommand(EquipmentInfo equipment, EquipmentCommand command) {
+		this(equipment, command, -1);
+	}
+
+	/**
+	 * Constructor of the command
+	 * 
+	 * @param equipment equipment receiving the command
+	 * @param command   the command
+	 * @param mode      new mode for a SET_MODE command, ignored otherwise
+	 */
+	public StrategyCommand(EquipmentInfo equipment, EquipmentCommand command, int mode) {
+		assert equipment != null && command != null;
+		assert command != EquipmentCommand.SET_MODE || mode >= 0;
+		this.equipment = equipment;
+		this.command = command;
+		this.mode = mode;
+	}
+
+	/**
+	 * Return the equipment receiving the command
+	 * 
+	 * @return the equipment receiving the command
+	 */
+	public EquipmentInfo getEquipment() {
+		return equipment;
+	}
+
+	/**
+	 * Return the command
+	 * 
+	 * @return the command
+	 */
+	public EquipmentCommand getCommand() {
+		return command;
+	}
+
+	/**
+	 * Return the new mode of the equipment for a SET_MODE command
+	 * 
+	 * @return the new mode
+	 */
+	public int getMode() {
+		return mode;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StrategyCommand[" + equipment.getSerialNumber() + ", " + command
+				+ (command == EquipmentCommand.SET_MODE ? "(" + mode + ")" : "") + "]";
+	}
+}
@@ -0,0 +1,25 @@
+package main.java.components.controller.strategies;
+
+import java.util.List;
+
+/**
+ * The interface <code>StrategyStage</code> is a stage of the commands decided
+ * by a {@link ControlStrategy} : its commands are only built when the stage is
+ * reached, so the states of the equipments it needs are read only then.
+ *
+ * @author Bello Memmi
+ *
+ */
+@FunctionalInterface
+public interface StrategyStage {
+
+	/**
+	 * Build the commands of the stage, from the states of the equipments left by
+	 * the previous stages
+	 *
+	 * @return the commands to send
+	 * @throws Exception if interrupted while reading the states of the
+	 *                   equipments
+	 */
+	public List<StrategyCommand> commands() throws Exception;
+}
@@ -0,0 +1,151 @@
+package main.java.components.controller.tests;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import fr.sorbonne_u.components.connectors.AbstractConnector;
+import main.java.components.controller.Controller;
+import main.java.components.controller.connectors.MethodHandleSuspensionEquipmentControlConnector;
+import main.java.components.controller.interfaces.SuspensionEquipmentControlCI;
+import main.java.components.controller.utils.AdapterDescriptor;
+import main.java.components.controller.utils.ControlAdapterParser;
+import main.java.components.fridge.interfaces.FridgeCI;
+
+/**
+ * The class <code>ConnectorBackendBenchmark</code> compares the connector
+ * backends of the controller on the fridge adapter : the time to build a
+ * connector at registration and the overhead of a call through the connector.
+ * 
+ * The connectors are bound to a plain fridge object, without components nor
+ * ports, so only the cost of the connector itself is measured.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ConnectorBackendBenchmark {
+
+	/**
+	 * number of connectors built per backend
+	 */
+	public static final int NB_REGISTRATIONS = 200;
+
+	/**
+	 * number of calls per measure
+	 */
+	public static final int NB_CALLS = 10_000_000;
+
+	/**
+	 * fridge doing nothing, the target of the connectors
+	 */
+	public static class IdleFridge implements FridgeCI {
+		protected int mode = 0;
+
+		@Override
+		public boolean upMode() throws Exception {
+			return mode < 1 && ++mode > 0;
+		}
+
+		@Override
+		public boolean downMode() throws Exception {
+			return mode > 0 && --mode >= 0;
+		}
+
+		@Override
+		public boolean setMode(int modeIndex) throws Exception {
+			mode = modeIndex;
+			return true;
+		}
+
+		@Override
+		public int currentMode() throws Exception {
+			return mode;
+		}
+
+		@Override
+		public boolean suspended() throws Exception {
+			return false;
+		}
+
+		@Override
+		public boolean suspend() throws Exception {
+			return true;
+		}
+
+		@Override
+		public boolean resume() throws Exception {
+			return true;
+		}
+
+		@Override
+		public double emergency() throws Exception {
+			return 0.5;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		AdapterDescriptor adapter = ControlAdapterParser
+				.parse(new String(Files.readAllBytes(Paths.get("src/main/java/adapter/fridge-control.xml"))));
+		IdleFridge fridge = new IdleFridge();
+		Field offering = AbstractConnector.class.getDeclaredField("offering");
+		offering.setAccessible(true);
+
+		// registration : one connector class per registration for javassist, as
+		// before the cache, against one binding per registration for method handles
+		SuspensionEquipmentControlCI javassist = null;
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_REGISTRATIONS; i++) {
+			Class<?> c = Controller.makeConnectorClassJavassist("BenchmarkFridge_connector" + i,
+					AbstractConnector.class, SuspensionEquipmentControlCI.class, FridgeCI.class,
+					adapter.getImplementedMethodNames(), adapter.getNotImplementedMethodBodies());
+			javassist = (SuspensionEquipmentControlCI) c.newInstance();
+			offering.set(javassist, fridge);
+		}
+		report("javassist registration", System.nanoTime() - start, NB_REGISTRATIONS);
+
+		MethodHandleSuspensionEquipmentControlConnector methodHandle = null;
+		start = System.nanoTime();
+		for (int i = 0; i < NB_REGISTRATIONS; i++) {
+			methodHandle = new MethodHandleSuspensionEquipmentControlConnector();
+			methodHandle.bind(adapter, fridge);
+		}
+		report("method handle registration", System.nanoTime() - start, NB_REGISTRATIONS);
+
+		// calls, measured twice to let the JIT compile both paths
+		for (int round = 0; round < 2; round++) {
+			report("javassist call", calls(javassist), NB_CALLS);
+			report("method handle call", calls(methodHandle), NB_CALLS);
+		}
+	}
+
+	/**
+	 * Call the connector and return the elapsed time
+	 * 
+	 * @param connector connector to call
+	 * @return elapsed time in nanoseconds
+	 * @throws Exception
+	 */
+	protected static long calls(SuspensionEquipmentControlCI connector) throws Exception {
+		long start = System.nanoTime();
+		int ok = 0;
+		for (int i = 0; i < NB_CALLS; i++) {
+			if (connector.upMode() || connector.downMode() || connector.on())
+				ok++;
+		}
+		long elapsed = System.nanoTime() - start;
+		if (ok < 0)
+			System.out.println(ok);
+		return elapsed;
+	}
+
+	/**
+	 * Print the mean time of an operation
+	 * 
+	 * @param what    measured operation
+	 * @param elapsed total elapsed time in nanoseconds
+	 * @param count   number of operations
+	 */
+	protected static void report(String what, long elapsed, int count) {
+		System.out.println(String.format("%-28s %10.1f ns/op (%d ops)", what, (double) elapsed / count, count));
+	}
+}
@@ -0,0 +1,60 @@
+package main.java.components.controller.tests;
+
+import java.util.Random;
+
+import main.java.components.controller.strategies.LinearProgrammingControlStrategy;
+import main.java.components.controller.utils.LinearDispatcher;
+
+/**
+ * The class <code>LinearDispatchBenchmark</code> measures the time taken by
+ * the linear dispatch to solve its program against the number of equipments,
+ * from a house to a neighbourhood.
+ * 
+ * Each equipment gives a down mode, and one out of two a suspension or a
+ * postponement, like the controller does on a deficit. The deficit asks for
+ * about a third of the power the equipments can free.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class LinearDispatchBenchmark {
+
+	/**
+	 * numbers of equipments measured
+	 */
+	public static final int[] NB_EQUIPMENTS = { 10, 50, 100, 250, 500, 1000 };
+
+	/**
+	 * number of solves per measure
+	 */
+	public static final int NB_SOLVES = 5;
+
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		// measured twice to let the JIT compile the solver
+		for (int round = 0; round < 2; round++) {
+			for (int nbEquipments : NB_EQUIPMENTS) {
+				int nbVariables = nbEquipments + nbEquipments / 2;
+				double[] powers = new double[nbVariables];
+				double[] costs = new double[nbVariables];
+				double freeable = 0;
+				for (int i = 0; i < nbVariables; i++) {
+					powers[i] = 50 + random.nextInt(2000);
+					costs[i] = i < nbEquipments ? LinearProgrammingControlStrategy.DOWN_MODE_COST
+							: (i % 2 == 0 ? LinearProgrammingControlStrategy.SUSPEND_COST
+									: LinearProgrammingControlStrategy.POSTPONE_COST);
+					freeable += powers[i];
+				}
+				double balance = -freeable / 3;
+
+				long start = System.nanoTime();
+				for (int i = 0; i < NB_SOLVES; i++)
+					LinearDispatcher.solve(balance, powers, costs);
+				long elapsed = (System.nanoTime() - start) / NB_SOLVES;
+				if (round == 1)
+					System.out.println(String.format("%5d equipments (%5d variables) : %10.3f ms per solve",
+							nbEquipments, nbVariables, elapsed / 1e6));
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package main.java.components.controller.tests;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.sorbonne_u.components.connectors.AbstractConnector;
+import main.java.components.controller.Controller;
+import main.java.components.controller.connectors.MethodHandleSuspensionEquipmentControlConnector;
+import main.java.components.controller.interfaces.SuspensionEquipmentControlCI;
+import main.java.components.controller.tests.ConnectorBackendBenchmark.IdleFridge;
+import main.java.components.controller.utils.AdapterDescriptor;
+import main.java.components.controller.utils.ConnectorBackend;
+import main.java.components.controller.utils.ControlAdapterParser;
+
+/**
+ * The class <code>RegistrationBenchmark</code> measures the throughput of the
+ * work done by the controller for each registration before connecting the
+ * port, for both connector backends, sequentially and on a pool of threads :
+ * <ul>
+ * <li>JAVASSIST, the default : parse the adapter, look the connector class up
+ * in the cache, compiling it on a miss, and instantiate it on the fridge. The
+ * single compilation of the class is reported apart.</li>
+ * <li>METHOD_HANDLE : parse the adapter and bind the connector.</li>
+ * </ul>
+ * 
+ * Not measured : <code>registerAll</code> itself, its pool of threads being
+ * only mimicked here, and the creation, publication and connection of the
+ * outbound port as well as the insertion in the registry of the shard. They
+ * need a running controller component.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class RegistrationBenchmark {
+
+	/**
+	 * number of registrations per measure
+	 */
+	public static final int NB_REGISTRATIONS = 20_000;
+
+	/**
+	 * number of threads of the pool
+	 */
+	public static final int NB_THREADS = 4;
+
+	/**
+	 * connector classes compiled by the JAVASSIST backend, by connector key, as
+	 * cached by the controller
+	 */
+	protected static final ConcurrentHashMap<String, Class<?>> CONNECTORS = new ConcurrentHashMap<>();
+
+	/**
+	 * field of the connectors referencing the offering object
+	 */
+	protected static Field offering;
+
+	public static void main(String[] args) throws Exception {
+		String xml = new String(Files.readAllBytes(Paths.get("src/main/java/adapter/fridge-control.xml")));
+		IdleFridge fridge = new IdleFridge();
+		offering = AbstractConnector.class.getDeclaredField("offering");
+		offering.setAccessible(true);
+		ExecutorService executor = Executors.newFixedThreadPool(NB_THREADS);
+
+		long start = System.nanoTime();
+		registration(ConnectorBackend.JAVASSIST, xml, fridge);
+		System.out.println(
+				String.format("%-26s %10.1f ms", "JAVASSIST compilation", (System.nanoTime() - start) / 1e6));
+
+		// measured twice to let the JIT compile the registration path
+		for (int round = 0; round < 2; round++) {
+			for (ConnectorBackend backend : ConnectorBackend.values()) {
+				start = System.nanoTime();
+				for (int i = 0; i < NB_REGISTRATIONS; i++)
+					registration(backend, xml, fridge);
+				report(backend + " sequential", System.nanoTime() - start);
+
+				start = System.nanoTime();
+				ArrayList<Future<?>> results = new ArrayList<>(NB_REGISTRATIONS);
+				for (int i = 0; i < NB_REGISTRATIONS; i++)
+					results.add(executor.submit(() -> registration(backend, xml, fridge)));
+				for (Future<?> result : results)
+					result.get();
+				report(backend + " " + NB_THREADS + " threads", System.nanoTime() - start);
+			}
+		}
+		executor.shutdown();
+	}
+
+	/**
+	 * Do the work of a registration before the port connection : parse the
+	 * adapter and build the connector with the given backend
+	 * 
+	 * @param backend  the connector backend
+	 * @param xml      the adapter
+	 * @param offering object offering the interface of the adapter
+	 * @return the connector
+	 * @throws Exception
+	 */
+	protected static Object registration(ConnectorBackend backend, String xml, Object offering) throws Exception {
+		AdapterDescriptor adapter = ControlAdapterParser.parse(xml);
+		if (backend == ConnectorBackend.METHOD_HANDLE) {
+			MethodHandleSuspensionEquipmentControlConnector connector = new MethodHandleSuspensionEquipmentControlConnector();
+			connector.bind(adapter, offering);
+			return connector;
+		}
+		String key = adapter.getConnectorKey();
+		Class<?> c = CONNECTORS.get(key);
+		if (c == null) {
+			synchronized (CONNECTORS) {
+				c = CONNECTORS.get(key);
+				if (c == null) {
+					c = Controller.makeConnectorClassJavassist("RegistrationFridge_connector" + CONNECTORS.size(),
+							AbstractConnector.class, SuspensionEquipmentControlCI.class,
+							Class.forName(adapter.getOffered()), adapter.getImplementedMethodNames(),
+							adapter.getNotImplementedMethodBodies());
+					CONNECTORS.put(key, c);
+				}
+			}
+		}
+		Object connector = c.newInstance();
+		RegistrationBenchmark.offering.set(connector, offering);
+		return connector;
+	}
+
+	/**
+	 * Print the throughput of the registrations
+	 * 
+	 * @param what    measured configuration
+	 * @param elapsed total elapsed time in nanoseconds
+	 */
+	protected static void report(String what, long elapsed) {
+		System.out.println(String.format("%-26s %10.0f registrations/s (%.1f us/registration)", what,
+				NB_REGISTRATIONS / (elapsed / 1e9), elapsed / 1e3 / NB_REGISTRATIONS));
+	}
+}
@@ -0,0 +1,577 @@
+package main.java.components.controller.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+
+import main.java.components.controller.Controller;
+import main.java.components.controller.interfaces.PlanningEquipmentControlCI;
+import main.java.components.controller.interfaces.SuspensionEquipmentControlCI;
+import main.java.components.controller.strategies.ControlStrategy;
+import main.java.components.controller.strategies.DefaultControlStrategy;
+import main.java.components.controller.strategies.EquipmentInfo;
+import main.java.components.controller.strategies.EquipmentView;
+import main.java.components.controller.strategies.StrategyCommand;
+import main.java.components.controller.strategies.StrategyStage;
+import main.java.components.controller.utils.AdapterDescriptor;
+import main.java.components.controller.utils.CommandDispatch;
+import main.java.components.controller.utils.CommandOutcome;
+import main.java.components.controller.utils.ControlAdapterParser;
+import main.java.components.controller.utils.DecisionJournal;
+import main.java.components.controller.utils.EquipmentRole;
+import main.java.components.controller.utils.EquipmentState;
+import main.java.components.controller.utils.JournalRecord;
+import main.java.components.controller.utils.RegisteredEquipment;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * The class <code>ReplayHarness</code> evaluates a control strategy offline, as
+ * fast as the processor allows : a meter trace is fed straight into the
+ * strategy, and its commands are sent to simulated equipments (see
+ * {@link SimulatedEquipments}) whose consumption closes the loop, without
+ * components nor real-time scheduler.
+ *
+ * The trace is either synthetic (solar production and household consumption
+ * over the given number of days, one pass per step) or read from a decision
+ * journal written by the controller. The consumption of a journal already
+ * holds the consumption of the equipments during the recorded run, only the
+ * change of consumption caused by the replayed decisions is added to it.
+ *
+ * The harness is configured by system properties :
+ * <ul>
+ * <li>controller.strategy : canonical name of the strategy, the
+ * DefaultControlStrategy if not given</li>
+ * <li>replay.journal : path of the journal to replay, a synthetic trace if not
+ * given</li>
+ * <li>replay.days : simulated days of the synthetic trace, 365 by default</li>
+ * <li>replay.step : simulated seconds between two passes of the synthetic
+ * trace, 60 by default</li>
+ * <li>replay.houses : number of houses, each having a fridge, a washer and a
+ * battery, 1 by default</li>
+ * <li>replay.failureRate : probability that a call to an equipment fails, 0 by
+ * default</li>
+ * </ul>
+ *
+ * @author Bello Memmi
+ *
+ */
+public class ReplayHarness {
+
+	/**
+	 * system property giving the path of the journal to replay
+	 */
+	public static final String JOURNAL_PROPERTY = "replay.journal";
+
+	/**
+	 * system property giving the simulated days of the synthetic trace
+	 */
+	public static final String DAYS_PROPERTY = "replay.days";
+
+	/**
+	 * system property giving the simulated seconds between two passes
+	 */
+	public static final String STEP_PROPERTY = "replay.step";
+
+	/**
+	 * system property giving the number of houses
+	 */
+	public static final String HOUSES_PROPERTY = "replay.houses";
+
+	/**
+	 * system property giving the probability that a call to an equipment
+	 * fails
+	 */
+	public static final String FAILURE_RATE_PROPERTY = "replay.failureRate";
+
+	/**
+	 * simulated days of the synthetic trace if not given
+	 */
+	public static final int DEFAULT_DAYS = 365;
+
+	/**
+	 * simulated seconds between two passes if not given
+	 */
+	public static final int DEFAULT_STEP_SECONDS = 60;
+
+	/**
+	 * seconds in a simulated day
+	 */
+	public static final int DAY_SECONDS = 24 * 3600;
+
+	/**
+	 * A source of meter readings, production and consumption of the house
+	 * without the simulated equipments
+	 */
+	public interface MeterTrace {
+
+		/**
+		 * Move to the next reading
+		 *
+		 * @return false at the end of the trace
+		 * @throws Exception if the trace can't be read
+		 */
+		public boolean next() throws Exception;
+
+		/**
+		 * @return the simulated time of the reading in seconds
+		 */
+		public double time();
+
+		/**
+		 * @return the production in amperes
+		 */
+		public double production();
+
+		/**
+		 * @return the consumption in amperes, without the simulated equipments
+		 */
+		public double consumption();
+	}
+
+	/**
+	 * A synthetic trace : solar production following the day and the season
+	 * under slowly moving clouds, and a household consumption peaking in the
+	 * morning and the evening
+	 */
+	public static class SyntheticTrace implements MeterTrace {
+
+		/**
+		 * number of readings of the trace
+		 */
+		protected final long steps;
+
+		/**
+		 * simulated seconds between two readings
+		 */
+		protected final int stepSeconds;
+
+		/**
+		 * number of houses, scaling the production and the consumption
+		 */
+		protected final int houses;
+
+		/**
+		 * source of the clouds and of the noise of the consumption
+		 */
+		protected final Random random;
+
+		/**
+		 * index of the actual reading, -1 before the first one
+		 */
+		protected long step = -1;
+
+		/**
+		 * share of the sunlight getting through the clouds
+		 */
+		protected double clearness = 0.8;
+
+		/**
+		 * production of the actual reading in amperes
+		 */
+		protected double production;
+
+		/**
+		 * consumption of the actual reading in amperes
+		 */
+		protected double consumption;
+
+		/**
+		 * Constructor of the trace
+		 *
+		 * @param days        simulated days of the trace
+		 * @param stepSeconds simulated seconds between two readings
+		 * @param houses      number of houses
+		 * @param seed        seed of the clouds and of the noise
+		 */
+		public SyntheticTrace(int days, int stepSeconds, int houses, long seed) {
+			this.steps = (long) days * DAY_SECONDS / stepSeconds;
+			this.stepSeconds = stepSeconds;
+			this.houses = houses;
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public boolean next() {
+			if (++step >= steps)
+				return false;
+			double day = time() / DAY_SECONDS;
+			double hour = (time() % DAY_SECONDS) / 3600;
+			// 1 at the summer solstice, 0 at the winter one
+			double season = 0.5 + 0.5 * Math.cos(2 * Math.PI * (day - 172) / 365);
+			double halfDaylight = 4 + 3 * season;
+			double sun = Math.abs(hour - 13) < halfDaylight
+					? Math.sin(Math.PI * (hour - 13 + halfDaylight) / (2 * halfDaylight))
+					: 0;
+			clearness = Math.max(0.1, Math.min(1, clearness + 0.05 * (0.8 - clearness) + 0.03 * random.nextGaussian()));
+			production = houses * (8 + 12 * season) * sun * clearness;
+
+			double load = 1.5 + 3 * Math.exp(-(hour - 19.5) * (hour - 19.5) / 2)
+					+ 2 * Math.exp(-(hour - 7.5) * (hour - 7.5) / 0.5) + 0.3 * random.nextGaussian();
+			consumption = houses * Math.max(0.5, load);
+			return true;
+		}
+
+		@Override
+		public double time() {
+			return (double) step * stepSeconds;
+		}
+
+		@Override
+		public double production() {
+			return production;
+		}
+
+		@Override
+		public double consumption() {
+			return consumption;
+		}
+	}
+
+	/**
+	 * A trace read from a decision journal, a record without simulated time being
+	 * placed one step after the previous one
+	 */
+	public static class JournalTrace implements MeterTrace {
+
+		protected final DecisionJournal.Reader reader;
+
+		protected final int stepSeconds;
+
+		protected JournalRecord record;
+
+		protected double time = -1;
+
+		public JournalTrace(DecisionJournal.Reader reader, int stepSeconds) {
+			this.reader = reader;
+			this.stepSeconds = stepSeconds;
+		}
+
+		@Override
+		public boolean next() throws Exception {
+			record = reader.next();
+			if (record == null)
+				return false;
+			double recorded = record.getSimulatedTime();
+			time = Double.isNaN(recorded) || recorded <= time ? time + stepSeconds : recorded;
+			return true;
+		}
+
+		@Override
+		public double time() {
+			return time;
+		}
+
+		@Override
+		public double production() {
+			return record.getProduction();
+		}
+
+		@Override
+		public double consumption() {
+			return record.getConsumption();
+		}
+	}
+
+	/**
+	 * The registered equipments, each simulated equipment behind the port of its
+	 * registration
+	 */
+	protected final EnumMap<EquipmentRole, List<EquipmentInfo>> equipments = new EnumMap<>(EquipmentRole.class);
+
+	protected final ArrayList<SimulatedEquipments.SimulatedEquipment> simulated = new ArrayList<>();
+
+	protected final ControlStrategy strategy;
+
+	protected long tick = 0;
+
+	protected long commandsDecided = 0;
+
+	protected long commandsSent = 0;
+
+	protected long commandsSucceeded = 0;
+
+	protected long commandsFailed = 0;
+
+	protected long deficitPasses = 0;
+
+	/**
+	 * energy missing in the house in watt hours
+	 */
+	protected double deficitEnergy = 0;
+
+	/**
+	 * energy to spare in the house in watt hours
+	 */
+	protected double surplusEnergy = 0;
+
+	/**
+	 * Constructor of the harness, registering the equipments of the houses
+	 *
+	 * @param strategy    the strategy evaluated
+	 * @param houses      number of houses
+	 * @param failureRate probability that a call to an equipment fails
+	 * @param seed        seed of the equipments
+	 * @throws Exception if the adapters can't be read
+	 */
+	public ReplayHarness(ControlStrategy strategy, int houses, double failureRate, long seed) throws Exception {
+		this.strategy = strategy;
+		for (EquipmentRole role : EquipmentRole.values())
+			equipments.put(role, new ArrayList<>());
+		AdapterDescriptor fridge = adapter("fridge-control.xml");
+		AdapterDescriptor washer = adapter("washer-control.xml");
+		AdapterDescriptor battery = adapter("battery-control.xml");
+		Random random = new Random(seed);
+		for (int h = 0; h < houses; h++) {
+			register("fridge-" + h, EquipmentRole.SUSPENDABLE, fridge,
+					new SimulatedEquipments.Fridge(fridge, random, failureRate));
+			register("washer-" + h, EquipmentRole.DEFERRABLE, washer,
+					new SimulatedEquipments.Washer(washer, random, failureRate));
+			register("battery-" + h, EquipmentRole.STORAGE, battery,
+					new SimulatedEquipments.Battery(battery, random, failureRate));
+		}
+	}
+
+	protected static AdapterDescriptor adapter(String file) throws Exception {
+		return ControlAdapterParser
+				.parse(new String(Files.readAllBytes(Paths.get("src/main/java/adapter/" + file))));
+	}
+
+	protected void register(String serialNumber, EquipmentRole role, AdapterDescriptor adapter,
+			SimulatedEquipments.SimulatedEquipment equipment) {
+		equipments.get(role).add(new RegisteredEquipment<>(serialNumber, role, equipment, adapter));
+		simulated.add(equipment);
+	}
+
+	/**
+	 * Return the consumption of the simulated equipments
+	 *
+	 * @param time time of the day
+	 * @return the consumption in watts
+	 */
+	protected double equipmentsPower(LocalTime time) {
+		double power = 0;
+		for (SimulatedEquipments.SimulatedEquipment e : simulated)
+			power += e.power(time);
+		return power;
+	}
+
+	/**
+	 * Replay the trace, one control pass per reading
+	 *
+	 * @param trace       the trace
+	 * @param withJournal true if the consumption of the trace already holds the
+	 *                    consumption of the equipments
+	 * @return the simulated time replayed in seconds
+	 * @throws Exception if the trace can't be read or the strategy fails
+	 */
+	public double replay(MeterTrace trace, boolean withJournal) throws Exception {
+		double initialPower = equipmentsPower(LocalTime.MIDNIGHT);
+		double lastTime = Double.NaN;
+		double start = Double.NaN;
+		while (trace.next()) {
+			double time = trace.time();
+			LocalTime timeOfDay = LocalTime.ofSecondOfDay((long) time % DAY_SECONDS);
+			double seconds = Double.isNaN(lastTime) ? 0 : time - lastTime;
+			if (Double.isNaN(start))
+				start = time;
+			lastTime = time;
+			for (SimulatedEquipments.SimulatedEquipment e : simulated)
+				e.advance(seconds, timeOfDay);
+
+			double power = equipmentsPower(timeOfDay) - (withJournal ? initialPower : 0);
+			double production = trace.production();
+			double consumption = trace.consumption() + power / Controller.TENSION;
+			double balance = production - consumption;
+			if (balance < 0) {
+				deficitPasses++;
+				deficitEnergy -= balance * Controller.TENSION * seconds / 3600;
+			} else {
+				surplusEnergy += balance * Controller.TENSION * seconds / 3600;
+			}
+
+			ElectricMeterSnapshot snapshot = new ElectricMeterSnapshot(time, production, consumption,
+					Collections.emptyMap(), Collections.emptyMap());
+			tick++;
+			execute(strategy.decide(snapshot, new ReplayView(tick, balance)));
+		}
+		return Double.isNaN(start) ? 0 : lastTime - start;
+	}
+
+	/**
+	 * Execute the stages like the controller, a stage being built and sent only
+	 * if no command of the previous stages succeeded
+	 *
+	 * @param stages stages decided by the strategy
+	 * @throws Exception if a stage failed to build its commands
+	 */
+	protected void execute(List<StrategyStage> stages) throws Exception {
+		for (StrategyStage stage : stages) {
+			List<StrategyCommand> commands = stage.commands();
+			commandsDecided += commands.size();
+			int succeeded = 0;
+			for (StrategyCommand command : commands) {
+				if (send(command))
+					succeeded++;
+			}
+			if (succeeded > 0)
+				return;
+		}
+	}
+
+	/**
+	 * Send a command to its equipment like the controller (see
+	 * {@link CommandDispatch}), unless the known state of the equipment tells it
+	 * is a no-op or its circuit breaker is open
+	 *
+	 * @param command the command
+	 * @return true if the command was sent and succeeded
+	 */
+	protected boolean send(StrategyCommand command) {
+		if (CommandDispatch.screen(command, tick) != CommandOutcome.NOT_SENT)
+			return false;
+		RegisteredEquipment<?> e = (RegisteredEquipment<?>) command.getEquipment();
+		commandsSent++;
+		try {
+			boolean result = CommandDispatch.call(command, tick).call();
+			e.getBreaker().recordSuccess();
+			if (result)
+				commandsSucceeded++;
+			return result;
+		} catch (Exception ex) {
+			e.getBreaker().recordFailure();
+			commandsFailed++;
+			return false;
+		}
+	}
+
+	/**
+	 * The view of the simulated equipments given to the strategy, the reads
+	 * going straight to the equipments
+	 */
+	protected class ReplayView implements EquipmentView {
+
+		protected final long tick;
+
+		protected final double share;
+
+		public ReplayView(long tick, double share) {
+			this.tick = tick;
+			this.share = share;
+		}
+
+		@Override
+		public long getTick() {
+			return tick;
+		}
+
+		@Override
+		public double getShare() {
+			return share;
+		}
+
+		@Override
+		public List<EquipmentInfo> getEquipments(EquipmentRole role) {
+			return equipments.get(role);
+		}
+
+		@Override
+		public void readModes(List<EquipmentInfo> infos) {
+			for (EquipmentInfo info : infos) {
+				RegisteredEquipment<?> e = (RegisteredEquipment<?>) info;
+				if (e.getState().getMode(tick) == EquipmentState.UNKNOWN_MODE)
+					read(e, () -> e.getState().modeRead(e.getPort().currentMode(), tick));
+			}
+		}
+
+		@Override
+		public void readPlans(List<EquipmentInfo> infos) {
+			for (EquipmentInfo info : infos) {
+				RegisteredEquipment<?> e = (RegisteredEquipment<?>) info;
+				EquipmentState state = e.getState();
+				if (state.hasPlan(tick) == null) {
+					read(e, () -> {
+						PlanningEquipmentControlCI port = (PlanningEquipmentControlCI) e.getPort();
+						if (port.hasPlan())
+							state.planRead(true, port.startTime(), port.duration(), port.deadline(), tick);
+						else
+							state.planRead(false, null, null, null, tick);
+					});
+				}
+			}
+		}
+
+		@Override
+		public void readEmergencies(List<EquipmentInfo> infos) {
+			for (EquipmentInfo info : infos) {
+				RegisteredEquipment<?> e = (RegisteredEquipment<?>) info;
+				read(e, () -> e.getState()
+						.emergencyRead(((SuspensionEquipmentControlCI) e.getPort()).emergency(), tick));
+			}
+		}
+
+		/**
+		 * Read the state of an equipment through its circuit breaker
+		 *
+		 * @param e    the equipment
+		 * @param read the read
+		 */
+		protected void read(RegisteredEquipment<?> e, StateRead read) {
+			if (!e.getBreaker().allowRequest())
+				return;
+			try {
+				read.run();
+				e.getBreaker().recordSuccess();
+			} catch (Exception ex) {
+				e.getBreaker().recordFailure();
+			}
+		}
+	}
+
+	/**
+	 * A read of the state of an equipment
+	 */
+	@FunctionalInterface
+	protected interface StateRead {
+		public void run() throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String strategyName = System.getProperty(Controller.CONTROL_STRATEGY_PROPERTY,
+				DefaultControlStrategy.class.getCanonicalName());
+		ControlStrategy strategy = Class.forName(strategyName).asSubclass(ControlStrategy.class)
+				.getDeclaredConstructor().newInstance();
+		int houses = Integer.getInteger(HOUSES_PROPERTY, 1);
+		int step = Integer.getInteger(STEP_PROPERTY, DEFAULT_STEP_SECONDS);
+		double failureRate = Double.parseDouble(System.getProperty(FAILURE_RATE_PROPERTY, "0"));
+		String journal = System.getProperty(JOURNAL_PROPERTY);
+
+		ReplayHarness harness = new ReplayHarness(strategy, houses, failureRate, 42);
+		long start = System.nanoTime();
+		double simulated;
+		if (journal != null) {
+			try (DecisionJournal.Reader reader = new DecisionJournal.Reader(Paths.get(journal))) {
+				simulated = harness.replay(new JournalTrace(reader, step), true);
+			}
+		} else {
+			simulated = harness.replay(
+					new SyntheticTrace(Integer.getInteger(DAYS_PROPERTY, DEFAULT_DAYS), step, houses, 42), false);
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("%s, %d houses, %s trace : %.1f simulated days replayed in %.2f s",
+				strategy.getClass().getSimpleName(), houses, journal != null ? journal : "synthetic",
+				simulated / DAY_SECONDS, elapsed));
+		System.out.println(String.format("%d decisions, %.0f decisions/s, %.0f times faster than real time",
+				harness.tick, harness.tick / elapsed, simulated / elapsed));
+		System.out.println(String.format("%d commands decided, %d sent, %d succeeded, %d failed",
+				harness.commandsDecided, harness.commandsSent, harness.commandsSucceeded, harness.commandsFailed));
+		System.out.println(String.format("%.1f %% of the passes in deficit, %.1f kWh missing, %.1f kWh to spare",
+				harness.tick == 0 ? 0 : 100.0 * harness.deficitPasses / harness.tick, harness.deficitEnergy / 1000,
+				harness.surplusEnergy / 1000));
+	}
+}
@@ -0,0 +1,377 @@
+package main.java.components.controller.tests;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Random;
+
+import main.java.components.controller.interfaces.PlanningEquipmentControlCI;
+import main.java.components.controller.interfaces.StandardEquipmentControlCI;
+import main.java.components.controller.interfaces.SuspensionEquipmentControlCI;
+import main.java.components.controller.utils.AdapterDescriptor;
+
+/**
+ * The class <code>SimulatedEquipments</code> gathers the equipments simulated
+ * by the {@link ReplayHarness} : plain objects answering the control interfaces
+ * like the fridge, the washer and the battery do, without components nor
+ * ports, their consumption following their state.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class SimulatedEquipments {
+
+	/**
+	 * An equipment with modes, its consumption in each mode given by its adapter,
+	 * failing with the given probability on each call
+	 */
+	public static abstract class SimulatedEquipment implements StandardEquipmentControlCI {
+
+		protected final AdapterDescriptor adapter;
+
+		protected final Random random;
+
+		/**
+		 * probability that a call throws an exception
+		 */
+		protected final double failureRate;
+
+		protected int mode;
+
+		/**
+		 * Constructor of the equipment
+		 *
+		 * @param adapter     adapter of the equipment
+		 * @param mode        initial mode
+		 * @param random      source of the failures
+		 * @param failureRate probability that a call throws an exception
+		 */
+		public SimulatedEquipment(AdapterDescriptor adapter, int mode, Random random, double failureRate) {
+			this.adapter = adapter;
+			this.mode = mode;
+			this.random = random;
+			this.failureRate = failureRate;
+		}
+
+		/**
+		 * Simulate the failure of a call
+		 *
+		 * @throws Exception with the probability failureRate
+		 */
+		protected void call() throws Exception {
+			if (failureRate > 0 && random.nextDouble() < failureRate)
+				throw new Exception("simulated failure");
+		}
+
+		/**
+		 * Return the consumption of the actual mode
+		 *
+		 * @return the consumption in watts
+		 */
+		protected double modePower() {
+			double power = adapter.getModeConsumption(mode);
+			return Double.isNaN(power) ? adapter.getNominalConsumption() : power;
+		}
+
+		/**
+		 * Return the consumption of the equipment
+		 *
+		 * @param time time of the day
+		 * @return the consumption in watts, negative when producing
+		 */
+		public abstract double power(LocalTime time);
+
+		/**
+		 * Let the simulated time go by
+		 *
+		 * @param seconds elapsed simulated time in seconds
+		 * @param time    time of the day reached
+		 */
+		public abstract void advance(double seconds, LocalTime time);
+
+		@Override
+		public boolean on() throws Exception {
+			call();
+			return true;
+		}
+
+		@Override
+		public boolean off() throws Exception {
+			call();
+			return true;
+		}
+
+		@Override
+		public boolean upMode() throws Exception {
+			call();
+			if (mode >= adapter.getNumberOfModes() - 1)
+				return false;
+			mode++;
+			return true;
+		}
+
+		@Override
+		public boolean downMode() throws Exception {
+			call();
+			if (mode <= 0)
+				return false;
+			mode--;
+			return true;
+		}
+
+		@Override
+		public boolean setMode(int modeIndex) throws Exception {
+			call();
+			if (modeIndex < 0 || modeIndex >= adapter.getNumberOfModes())
+				return false;
+			mode = modeIndex;
+			return true;
+		}
+
+		@Override
+		public int currentMode() throws Exception {
+			call();
+			return mode;
+		}
+	}
+
+	/**
+	 * A fridge, its emergency rising while suspended and falling while running
+	 */
+	public static class Fridge extends SimulatedEquipment implements SuspensionEquipmentControlCI {
+
+		/**
+		 * simulated seconds of suspension leading from no emergency to full
+		 * emergency
+		 */
+		public static final double WARMING_SECONDS = 7200;
+
+		/**
+		 * simulated seconds of running leading from full emergency to no emergency
+		 */
+		public static final double COOLING_SECONDS = 3600;
+
+		protected boolean suspended = false;
+
+		protected double emergency = 0;
+
+		public Fridge(AdapterDescriptor adapter, Random random, double failureRate) {
+			super(adapter, adapter.getNumberOfModes() - 1, random, failureRate);
+		}
+
+		@Override
+		public double power(LocalTime time) {
+			return suspended ? 0 : modePower();
+		}
+
+		@Override
+		public void advance(double seconds, LocalTime time) {
+			if (suspended)
+				emergency = Math.min(1, emergency + seconds / WARMING_SECONDS);
+			else
+				emergency = Math.max(0, emergency - seconds / COOLING_SECONDS);
+		}
+
+		@Override
+		public boolean suspended() throws Exception {
+			call();
+			return suspended;
+		}
+
+		@Override
+		public boolean suspend() throws Exception {
+			call();
+			if (suspended)
+				return false;
+			suspended = true;
+			return true;
+		}
+
+		@Override
+		public boolean resume() throws Exception {
+			call();
+			if (!suspended)
+				return false;
+			suspended = false;
+			return true;
+		}
+
+		@Override
+		public double emergency() throws Exception {
+			call();
+			return emergency;
+		}
+	}
+
+	/**
+	 * A washer running one program a day, planned in the morning, consuming only
+	 * while its program runs
+	 */
+	public static class Washer extends SimulatedEquipment implements PlanningEquipmentControlCI {
+
+		/**
+		 * duration of a program
+		 */
+		public static final Duration PROGRAM_DURATION = Duration.ofHours(2);
+
+		/**
+		 * time between the start of a program and its deadline
+		 */
+		public static final Duration PROGRAM_WINDOW = Duration.ofHours(6);
+
+		protected boolean hasPlan = false;
+
+		protected LocalTime start;
+
+		protected LocalTime deadline;
+
+		/**
+		 * time of the day of the last advance, a smaller time meaning a new day
+		 */
+		protected LocalTime lastTime = LocalTime.MIDNIGHT;
+
+		public Washer(AdapterDescriptor adapter, Random random, double failureRate) {
+			super(adapter, adapter.getNumberOfModes() / 2, random, failureRate);
+		}
+
+		/**
+		 * Return true if the program runs at the given time
+		 *
+		 * @param time time of the day
+		 * @return true if the program started and isn't over
+		 */
+		protected boolean running(LocalTime time) {
+			return hasPlan && !time.isBefore(start) && time.isBefore(start.plus(PROGRAM_DURATION));
+		}
+
+		@Override
+		public double power(LocalTime time) {
+			return running(time) ? modePower() : 0;
+		}
+
+		@Override
+		public void advance(double seconds, LocalTime time) {
+			if (time.isBefore(lastTime)) {
+				// a new day, the program starts between 8h and 12h
+				hasPlan = true;
+				start = LocalTime.of(8, 0).plusMinutes(random.nextInt(240));
+				deadline = start.plus(PROGRAM_WINDOW);
+			} else if (hasPlan && !time.isBefore(start.plus(PROGRAM_DURATION))) {
+				hasPlan = false;
+			}
+			lastTime = time;
+		}
+
+		@Override
+		public boolean hasPlan() throws Exception {
+			call();
+			return hasPlan;
+		}
+
+		@Override
+		public LocalTime startTime() throws Exception {
+			call();
+			return start;
+		}
+
+		@Override
+		public Duration duration() throws Exception {
+			call();
+			return PROGRAM_DURATION;
+		}
+
+		@Override
+		public LocalTime deadline() throws Exception {
+			call();
+			return deadline;
+		}
+
+		@Override
+		public boolean postpone(Duration d) throws Exception {
+			call();
+			// a running program can't move, nor a program ending after its deadline
+			if (!hasPlan || !start.isAfter(lastTime) || start.plus(d).plus(PROGRAM_DURATION).isAfter(deadline))
+				return false;
+			start = start.plus(d);
+			return true;
+		}
+
+		@Override
+		public boolean cancel() throws Exception {
+			call();
+			if (!hasPlan)
+				return false;
+			hasPlan = false;
+			return true;
+		}
+	}
+
+	/**
+	 * A battery, draining in mode 0 and charging in mode 2 within its capacity,
+	 * without program
+	 */
+	public static class Battery extends SimulatedEquipment implements PlanningEquipmentControlCI {
+
+		/**
+		 * capacity of the battery in watt hours
+		 */
+		public static final double CAPACITY = 10_000;
+
+		/**
+		 * charge of the battery in watt hours
+		 */
+		protected double charge = CAPACITY / 2;
+
+		public Battery(AdapterDescriptor adapter, Random random, double failureRate) {
+			super(adapter, 1, random, failureRate);
+		}
+
+		@Override
+		public double power(LocalTime time) {
+			double power = modePower();
+			if ((power < 0 && charge <= 0) || (power > 0 && charge >= CAPACITY))
+				return 0;
+			return power;
+		}
+
+		@Override
+		public void advance(double seconds, LocalTime time) {
+			charge = Math.max(0, Math.min(CAPACITY, charge + power(time) * seconds / 3600));
+		}
+
+		@Override
+		public boolean hasPlan() throws Exception {
+			call();
+			return false;
+		}
+
+		@Override
+		public LocalTime startTime() throws Exception {
+			call();
+			return null;
+		}
+
+		@Override
+		public Duration duration() throws Exception {
+			call();
+			return null;
+		}
+
+		@Override
+		public LocalTime deadline() throws Exception {
+			call();
+			return null;
+		}
+
+		@Override
+		public boolean postpone(Duration d) throws Exception {
+			call();
+			return false;
+		}
+
+		@Override
+		public boolean cancel() throws Exception {
+			call();
+			return false;
+		}
+	}
+}
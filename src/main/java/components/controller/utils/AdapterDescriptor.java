@@ -0,0 +1,211 @@
+package main.java.components.controller.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The class <code>AdapterDescriptor</code> is the immutable result of the
+ * parsing of a <code>control-adapter</code> document : everything the
+ * controller needs to register an equipment and to generate its connector.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class AdapterDescriptor {
+
+	/**
+	 * type of the equipment : suspension, planning or standard
+	 */
+	protected final String type;
+
+	/**
+	 * uid of the adapter
+	 */
+	protected final String uid;
+
+	/**
+	 * canonical name of the interface offered by the equipment
+	 */
+	protected final String offered;
+
+	/**
+	 * nominal consumption of the equipment in watts, NaN if not given
+	 */
+	protected final double nominalConsumption;
+
+	/**
+	 * minimal consumption of the equipment in watts, NaN if not given
+	 */
+	protected final double minConsumption;
+
+	/**
+	 * maximal consumption of the equipment in watts, NaN if not given
+	 */
+	protected final double maxConsumption;
+
+	/**
+	 * number of modes of the equipment, 0 if it has no mode control
+	 */
+	protected final int numberOfModes;
+
+	/**
+	 * consumption in watts of each mode of the equipment, NaN for the modes not
+	 * given
+	 */
+	protected final double[] modeConsumptions;
+
+	/**
+	 * required method names to the offered method names they call
+	 */
+	protected final Map<String, String> implementedMethodNames;
+
+	/**
+	 * required method names to the body replacing them when they call no offered
+	 * method
+	 */
+	protected final Map<String, String> notImplementedMethodBodies;
+
+	/**
+	 * Constructor of the descriptor
+	 * 
+	 * @param type                       type of the equipment
+	 * @param uid                        uid of the adapter
+	 * @param offered                    interface offered by the equipment
+	 * @param nominalConsumption         nominal consumption in watts
+	 * @param minConsumption             minimal consumption in watts
+	 * @param maxConsumption             maximal consumption in watts
+	 * @param numberOfModes              number of modes of the equipment
+	 * @param modeConsumptions           consumption in watts of each mode, NaN
+	 *                                   for the modes not given
+	 * @param implementedMethodNames     required to offered method names
+	 * @param notImplementedMethodBodies required method names to their body
+	 */
+	public AdapterDescriptor(String type, String uid, String offered, double nominalConsumption,
+			double minConsumption, double maxConsumption, int numberOfModes, double[] modeConsumptions,
+			Map<String, String> implementedMethodNames, Map<String, String> notImplementedMethodBodies) {
+		assert offered != null;
+		this.type = type == null ? "standard" : type;
+		this.uid = uid;
+		this.offered = offered;
+		this.nominalConsumption = nominalConsumption;
+		this.minConsumption = minConsumption;
+		this.maxConsumption = maxConsumption;
+		this.numberOfModes = numberOfModes;
+		this.modeConsumptions = modeConsumptions.clone();
+		// sorted copies, so two identical adapters give equal maps and keys
+		this.implementedMethodNames = Collections.unmodifiableMap(new TreeMap<>(implementedMethodNames));
+		this.notImplementedMethodBodies = Collections.unmodifiableMap(new TreeMap<>(notImplementedMethodBodies));
+	}
+
+	/**
+	 * Return the type of the equipment : suspension, planning or standard
+	 * 
+	 * @return the type of the equipment
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Return the uid of the adapter
+	 * 
+	 * @return the uid of the adapter
+	 */
+	public String getUid() {
+		return uid;
+	}
+
+	/**
+	 * Return the canonical name of the interface offered by the equipment
+	 * 
+	 * @return the canonical name of the offered interface
+	 */
+	public String getOffered() {
+		return offered;
+	}
+
+	/**
+	 * Return the nominal consumption of the equipment in watts
+	 * 
+	 * @return the nominal consumption in watts, NaN if not given
+	 */
+	public double getNominalConsumption() {
+		return nominalConsumption;
+	}
+
+	/**
+	 * Return the minimal consumption of the equipment in watts
+	 * 
+	 * @return the minimal consumption in watts, NaN if not given
+	 */
+	public double getMinConsumption() {
+		return minConsumption;
+	}
+
+	/**
+	 * Return the maximal consumption of the equipment in watts
+	 * 
+	 * @return the maximal consumption in watts, NaN if not given
+	 */
+	public double getMaxConsumption() {
+		return maxConsumption;
+	}
+
+	/**
+	 * Return the number of modes of the equipment
+	 * 
+	 * @return the number of modes, 0 if the equipment has no mode control
+	 */
+	public int getNumberOfModes() {
+		return numberOfModes;
+	}
+
+	/**
+	 * Return the consumption of a mode of the equipment
+	 * 
+	 * @param mode index of the mode
+	 * @return the consumption of the mode in watts, NaN if not given
+	 */
+	public double getModeConsumption(int mode) {
+		return mode >= 0 && mode < modeConsumptions.length ? modeConsumptions[mode] : Double.NaN;
+	}
+
+	/**
+	 * Return the required method names mapped to the offered method names they
+	 * call
+	 * 
+	 * @return unmodifiable map of the implemented methods
+	 */
+	public Map<String, String> getImplementedMethodNames() {
+		return implementedMethodNames;
+	}
+
+	/**
+	 * Return the required method names mapped to the body replacing them
+	 * 
+	 * @return unmodifiable map of the not implemented methods
+	 */
+	public Map<String, String> getNotImplementedMethodBodies() {
+		return notImplementedMethodBodies;
+	}
+
+	/**
+	 * Return the key identifying the connector generated for this adapter : two
+	 * adapters with the same key can share the same connector class
+	 * 
+	 * @return the key of the connector
+	 */
+	public String getConnectorKey() {
+		return type + "|" + offered + "|" + implementedMethodNames + "|" + notImplementedMethodBodies;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "AdapterDescriptor[" + type + ", " + offered + ", nominal=" + nominalConsumption + ", modes="
+				+ numberOfModes + "]";
+	}
+}
@@ -0,0 +1,122 @@
+package main.java.components.controller.utils;
+
+/**
+ * The class <code>AdaptivePeriod</code> computes the period of the control
+ * passes from the energy balances they observe. It keeps an exponentially
+ * weighted estimate of the variance of the change of the balance between two
+ * observations, i.e. of the volatility of the balance.
+ *
+ * The period is the time the balance needs, moving by one standard deviation
+ * per minimal period, to cross half of its distance to zero : the passes come
+ * faster when the balance is near zero or moves a lot, and slow down while it
+ * stays far from zero and stable. The period stays within its bounds.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class AdaptivePeriod {
+
+	/**
+	 * default weight of a new observation in the estimate
+	 */
+	public static final double DEFAULT_ALPHA = 0.3;
+
+	/**
+	 * volatility in amperes under which the balance is considered still, avoid
+	 * an infinite period on a perfectly stable balance
+	 */
+	public static final double MIN_VOLATILITY = 0.05;
+
+	/**
+	 * minimal period in milliseconds
+	 */
+	protected final long minPeriod;
+
+	/**
+	 * maximal period in milliseconds
+	 */
+	protected final long maxPeriod;
+
+	/**
+	 * weight of a new observation in the estimate
+	 */
+	protected final double alpha;
+
+	/**
+	 * last balance observed, NaN before the first observation
+	 */
+	protected double lastBalance;
+
+	/**
+	 * exponentially weighted variance of the change of the balance
+	 */
+	protected double variance;
+
+	/**
+	 * period computed from the last observation
+	 */
+	protected long period;
+
+	/**
+	 * Constructor of the period, starting at its minimum
+	 *
+	 * @param minPeriod minimal period in milliseconds
+	 * @param maxPeriod maximal period in milliseconds
+	 * @param alpha     weight of a new observation in the estimate, between 0
+	 *                  and 1
+	 */
+	public AdaptivePeriod(long minPeriod, long maxPeriod, double alpha) {
+		assert minPeriod > 0 && maxPeriod >= minPeriod && alpha > 0 && alpha <= 1;
+		this.minPeriod = minPeriod;
+		this.maxPeriod = maxPeriod;
+		this.alpha = alpha;
+		this.lastBalance = Double.NaN;
+		this.variance = 0;
+		this.period = minPeriod;
+	}
+
+	/**
+	 * Observe a new balance and compute the next period
+	 *
+	 * @param balance production minus consumption of the house in amperes
+	 * @return the next period in milliseconds
+	 */
+	public synchronized long observe(double balance) {
+		if (!Double.isNaN(lastBalance)) {
+			double change = balance - lastBalance;
+			variance = (1 - alpha) * variance + alpha * change * change;
+		}
+		lastBalance = balance;
+		double volatility = Math.max(Math.sqrt(variance), MIN_VOLATILITY);
+		double passes = Math.abs(balance) / (2 * volatility);
+		period = (long) Math.min(maxPeriod, Math.max(minPeriod, minPeriod * passes));
+		return period;
+	}
+
+	/**
+	 * Return the period computed from the last observation
+	 *
+	 * @return the period in milliseconds
+	 */
+	public synchronized long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Return the maximal period
+	 *
+	 * @return the maximal period in milliseconds
+	 */
+	public long getMaxPeriod() {
+		return maxPeriod;
+	}
+
+	/**
+	 * Return the estimated volatility of the balance
+	 *
+	 * @return the standard deviation of the change of the balance in amperes
+	 */
+	public synchronized double getVolatility() {
+		return Math.sqrt(variance);
+	}
+}
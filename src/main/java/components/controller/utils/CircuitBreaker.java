@@ -0,0 +1,131 @@
+package main.java.components.controller.utils;
+
+/**
+ * The class <code>CircuitBreaker</code> stops the controller from sending
+ * commands to an equipment which repeatedly times out or fails.
+ * 
+ * After <code>failureThreshold</code> consecutive failures the breaker opens :
+ * no command is sent to the equipment during the cool-down. Then a single
+ * command is let through (half open) : a success closes the breaker, a failure
+ * opens it for another cool-down.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class CircuitBreaker {
+
+	/**
+	 * default number of consecutive failures opening the breaker
+	 */
+	public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+	/**
+	 * default cool-down in milliseconds
+	 */
+	public static final long DEFAULT_COOL_DOWN_MILLIS = 2000;
+
+	/**
+	 * number of consecutive failures opening the breaker
+	 */
+	protected final int failureThreshold;
+
+	/**
+	 * time during which no command is sent once open, in nanoseconds
+	 */
+	protected final long coolDownNanos;
+
+	/**
+	 * number of consecutive failures
+	 */
+	protected int failures;
+
+	/**
+	 * time at which the breaker has been opened, valid when open
+	 */
+	protected long openedAt;
+
+	/**
+	 * true when the breaker is open or half open
+	 */
+	protected boolean open;
+
+	/**
+	 * true while the trial command of a half open breaker is running
+	 */
+	protected boolean trialRunning;
+
+	/**
+	 * Constructor of a closed breaker
+	 * 
+	 * @param failureThreshold number of consecutive failures opening the breaker
+	 * @param coolDownMillis   time during which no command is sent once open
+	 */
+	public CircuitBreaker(int failureThreshold, long coolDownMillis) {
+		assert failureThreshold > 0 && coolDownMillis >= 0;
+		this.failureThreshold = failureThreshold;
+		this.coolDownNanos = coolDownMillis * 1_000_000L;
+		this.failures = 0;
+		this.open = false;
+		this.trialRunning = false;
+	}
+
+	/**
+	 * Constructor of a closed breaker with the default parameters
+	 */
+	public CircuitBreaker() {
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_COOL_DOWN_MILLIS);
+	}
+
+	/**
+	 * Return true if a command may be sent to the equipment, after the cool-down
+	 * only one command is let through until its result is recorded
+	 * 
+	 * @return true if the command may be sent
+	 */
+	public synchronized boolean allowRequest() {
+		if (!open)
+			return true;
+		if (trialRunning || System.nanoTime() - openedAt < coolDownNanos)
+			return false;
+		trialRunning = true;
+		return true;
+	}
+
+	/**
+	 * Record a command which completed in time
+	 */
+	public synchronized void recordSuccess() {
+		failures = 0;
+		open = false;
+		trialRunning = false;
+	}
+
+	/**
+	 * Record a command which timed out or failed
+	 */
+	public synchronized void recordFailure() {
+		failures++;
+		trialRunning = false;
+		if (open || failures >= failureThreshold) {
+			open = true;
+			openedAt = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Return true if the breaker is open or half open
+	 * 
+	 * @return true if the breaker is open
+	 */
+	public synchronized boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "CircuitBreaker[" + (open ? "open" : "closed") + ", failures=" + failures + "]";
+	}
+}
@@ -0,0 +1,88 @@
+package main.java.components.controller.utils;
+
+import java.util.concurrent.Callable;
+
+import main.java.components.controller.Controller;
+import main.java.components.controller.interfaces.PlanningEquipmentControlCI;
+import main.java.components.controller.interfaces.StandardEquipmentControlCI;
+import main.java.components.controller.interfaces.SuspensionEquipmentControlCI;
+import main.java.components.controller.strategies.StrategyCommand;
+
+/**
+ * The class <code>CommandDispatch</code> turns a command decided by a control
+ * strategy into the call to the port of its equipment, shared by the
+ * {@link Controller} and the offline replay of the strategies so that both
+ * send the same commands.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class CommandDispatch {
+
+	private CommandDispatch() {
+	}
+
+	/**
+	 * Return whether a command is to send : SKIPPED if the known state of the
+	 * equipment tells it is a no-op, REJECTED if the circuit breaker of the
+	 * equipment refuses it, NOT_SENT if it is to send. The circuit breaker is
+	 * asked only for the commands which aren't no-ops.
+	 *
+	 * @param command command decided by the strategy
+	 * @param tick    actual control pass
+	 * @return SKIPPED, REJECTED or NOT_SENT
+	 */
+	public static CommandOutcome screen(StrategyCommand command, long tick) {
+		RegisteredEquipment<?> equipment = (RegisteredEquipment<?>) command.getEquipment();
+		EquipmentState state = equipment.getState();
+		EquipmentCommand type = command.getCommand();
+		if (type == EquipmentCommand.SET_MODE ? state.getMode(tick) == command.getMode() : state.isNoOp(type, tick))
+			return CommandOutcome.SKIPPED;
+		if (!equipment.getBreaker().allowRequest())
+			return CommandOutcome.REJECTED;
+		return CommandOutcome.NOT_SENT;
+	}
+
+	/**
+	 * Return the call sending a command to the port of its equipment, its result
+	 * updating the known state of the equipment
+	 *
+	 * @param command command decided by the strategy
+	 * @param tick    actual control pass
+	 * @return the call, returning the result of the command
+	 */
+	public static Callable<Boolean> call(StrategyCommand command, long tick) {
+		RegisteredEquipment<?> equipment = (RegisteredEquipment<?>) command.getEquipment();
+		StandardEquipmentControlCI port = equipment.getPort();
+		EquipmentCommand type = command.getCommand();
+		int mode = command.getMode();
+		Callable<Boolean> call;
+		switch (type) {
+		case DOWN_MODE:
+			call = port::downMode;
+			break;
+		case UP_MODE:
+			call = port::upMode;
+			break;
+		case SET_MODE:
+			call = () -> port.setMode(mode);
+			break;
+		case SUSPEND:
+			call = ((SuspensionEquipmentControlCI) port)::suspend;
+			break;
+		case RESUME:
+			call = ((SuspensionEquipmentControlCI) port)::resume;
+			break;
+		default:
+			call = () -> ((PlanningEquipmentControlCI) port).postpone(Controller.POSTPONE_STEP);
+			break;
+		}
+		EquipmentState state = equipment.getState();
+		int newMode = type == EquipmentCommand.SET_MODE ? mode : EquipmentState.UNKNOWN_MODE;
+		return () -> {
+			boolean result = call.call();
+			state.commandDone(type, result, newMode, tick);
+			return result;
+		};
+	}
+}
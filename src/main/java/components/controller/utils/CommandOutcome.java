@@ -0,0 +1,36 @@
+package main.java.components.controller.utils;
+
+/**
+ *
+ * Represents what became of a command decided by the control strategy, as
+ * recorded in the {@link DecisionJournal}
+ *
+ * @author Bello Memmi
+ *
+ */
+public enum CommandOutcome {
+	/**
+	 * not sent, the pass being interrupted before the command was sent
+	 */
+	NOT_SENT,
+	/**
+	 * not sent, the known state of the equipment telling it is a no-op
+	 */
+	SKIPPED,
+	/**
+	 * not sent, the circuit breaker of the equipment being open
+	 */
+	REJECTED,
+	/**
+	 * sent and returned true
+	 */
+	SUCCEEDED,
+	/**
+	 * sent and returned false
+	 */
+	REFUSED,
+	/**
+	 * sent but timed out or threw an exception
+	 */
+	FAILED
+}
@@ -0,0 +1,23 @@
+package main.java.components.controller.utils;
+
+import main.java.components.controller.Controller;
+
+/**
+ * 
+ * Represents the way the {@link Controller} builds the connectors to the
+ * registered equipments
+ * 
+ * <ul>
+ * <li>JAVASSIST : a connector class is compiled from the bodies of the
+ * adapter</li>
+ * <li>METHOD_HANDLE : a predefined connector binds method handles on the
+ * methods of the adapter, adapters whose bodies aren't calls or constants fall
+ * back on JAVASSIST</li>
+ * </ul>
+ * 
+ * @author Bello Memmi
+ *
+ */
+public enum ConnectorBackend {
+	JAVASSIST, METHOD_HANDLE
+}
@@ -0,0 +1,175 @@
+package main.java.components.controller.utils;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The class <code>ControlAdapterParser</code> turns a
+ * <code>control-adapter</code> document into an {@link AdapterDescriptor} in a
+ * single streaming pass.
+ * 
+ * Each element under <code>control-adapter</code> or <code>mode-control</code>
+ * holding a <code>body</code> is a required method. When the body calls a
+ * method of the equipment (<code>return ref.method(...);</code> where ref is
+ * the <code>equipmentRef</code> of the body) the required method is mapped to
+ * the offered one, otherwise the body itself replaces the method.
+ * 
+ * The <code>consumption</code> element may declare the consumption of each
+ * mode with <code>&lt;mode index="..." watts="..."/&gt;</code> children.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ControlAdapterParser {
+
+	/**
+	 * factory shared by all the parsings, thread safe once configured
+	 */
+	protected static final XMLInputFactory FACTORY;
+
+	static {
+		FACTORY = XMLInputFactory.newInstance();
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+	}
+
+	private ControlAdapterParser() {
+	}
+
+	/**
+	 * Parse the adapter
+	 * 
+	 * @param xml the control-adapter document
+	 * @return the descriptor of the adapter
+	 * @throws XMLStreamException if the document is malformed or isn't a
+	 *                            control-adapter
+	 */
+	public static AdapterDescriptor parse(String xml) throws XMLStreamException {
+		String type = null;
+		String uid = null;
+		String offered = null;
+		double nominal = Double.NaN;
+		double min = Double.NaN;
+		double max = Double.NaN;
+		int numberOfModes = 0;
+		HashMap<Integer, Double> modeConsumptions = new HashMap<>();
+		HashMap<String, String> implementedMethodNames = new HashMap<>();
+		HashMap<String, String> notImplementedMethodBodies = new HashMap<>();
+
+		XMLStreamReader reader = FACTORY.createXMLStreamReader(new StringReader(xml));
+		try {
+			// name of the required method being read, null outside of a method
+			String method = null;
+			boolean inConsumption = false;
+			String equipmentRef = null;
+			StringBuilder body = null;
+			int depth = 0;
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					depth++;
+					String name = reader.getLocalName();
+					if (depth == 1) {
+						if (!name.equals("control-adapter"))
+							throw new XMLStreamException("not a control-adapter : " + name, reader.getLocation());
+						type = reader.getAttributeValue(null, "type");
+						uid = reader.getAttributeValue(null, "uid");
+						offered = reader.getAttributeValue(null, "offered");
+					} else if (name.equals("consumption")) {
+						nominal = parseDouble(reader.getAttributeValue(null, "nominal"));
+						min = parseDouble(reader.getAttributeValue(null, "min"));
+						max = parseDouble(reader.getAttributeValue(null, "max"));
+						inConsumption = true;
+					} else if (inConsumption && name.equals("mode")) {
+						modeConsumptions.put(Integer.parseInt(reader.getAttributeValue(null, "index").trim()),
+								parseDouble(reader.getAttributeValue(null, "watts")));
+					} else if (name.equals("mode-control")) {
+						String modes = reader.getAttributeValue(null, "numberOfModes");
+						numberOfModes = modes == null ? 0 : Integer.parseInt(modes.trim());
+					} else if (name.equals("body")) {
+						equipmentRef = reader.getAttributeValue(null, "equipmentRef");
+						body = new StringBuilder();
+					} else if (method == null && !name.equals("required") && !name.equals("parameter")) {
+						method = name;
+					}
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					if (body != null)
+						body.append(reader.getText());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					depth--;
+					if (reader.getLocalName().equals("consumption")) {
+						inConsumption = false;
+					} else if (reader.getLocalName().equals("body")) {
+						if (method == null)
+							throw new XMLStreamException("body outside of a method", reader.getLocation());
+						String code = body.toString().trim();
+						String offeredMethodName = calledMethod(code, equipmentRef);
+						if (offeredMethodName != null)
+							implementedMethodNames.put(method, offeredMethodName);
+						else
+							notImplementedMethodBodies.put(method, code);
+						body = null;
+					} else if (reader.getLocalName().equals(method)) {
+						method = null;
+					}
+					break;
+				default:
+					break;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		if (offered == null)
+			throw new XMLStreamException("the control-adapter has no offered interface");
+		double[] modes = new double[numberOfModes];
+		Arrays.fill(modes, Double.NaN);
+		for (Map.Entry<Integer, Double> mode : modeConsumptions.entrySet()) {
+			if (mode.getKey() < 0 || mode.getKey() >= numberOfModes)
+				throw new XMLStreamException("consumption of an unknown mode : " + mode.getKey());
+			modes[mode.getKey()] = mode.getValue();
+		}
+		return new AdapterDescriptor(type, uid, offered, nominal, min, max, numberOfModes, modes,
+				implementedMethodNames, notImplementedMethodBodies);
+	}
+
+	/**
+	 * Return the name of the equipment method called by the body or null if the
+	 * body calls no method of the equipment
+	 * 
+	 * @param body         code of the body
+	 * @param equipmentRef name of the equipment in the body, may be null
+	 * @return the name of the called method or null
+	 */
+	protected static String calledMethod(String body, String equipmentRef) {
+		int index = equipmentRef == null ? body.indexOf('.') : body.indexOf(equipmentRef + ".");
+		if (index == -1)
+			return null;
+		int start = equipmentRef == null ? index + 1 : index + equipmentRef.length() + 1;
+		int end = body.indexOf('(', start);
+		if (end == -1)
+			return null;
+		return body.substring(start, end).trim();
+	}
+
+	/**
+	 * Parse an optional double attribute
+	 * 
+	 * @param value value of the attribute, may be null
+	 * @return the value or NaN if absent
+	 */
+	protected static double parseDouble(String value) {
+		return value == null ? Double.NaN : Double.parseDouble(value.trim());
+	}
+}
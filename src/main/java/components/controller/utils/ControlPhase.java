@@ -0,0 +1,17 @@
+package main.java.components.controller.utils;
+
+import main.java.components.controller.Controller;
+
+/**
+ * 
+ * Represents the phases of a control pass of the {@link Controller} whose
+ * latency is measured, TICK being the whole pass, DECIDE the building of a
+ * stage of commands by the control strategy and STATE_READ the reads of the
+ * states of the equipments it asked for
+ * 
+ * @author Bello Memmi
+ *
+ */
+public enum ControlPhase {
+	TICK, METER_READ, DOWN_MODE, BATTERY, POSTPONE, SUSPEND, RESUME, UP_MODE, DECIDE, STATE_READ
+}
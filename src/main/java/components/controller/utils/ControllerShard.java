@@ -0,0 +1,109 @@
+package main.java.components.controller.utils;
+
+/**
+ * The class <code>ControllerShard</code> is a partition of the equipments
+ * registered to the controller : its own registry of equipments and the URI of
+ * its own pool of threads sending them the commands.
+ * 
+ * An equipment belongs to the shard given by the hash of its serial number, so
+ * finding the shard of an equipment needs no lookup. The shard also sums the
+ * nominal consumption of its equipments, the balance of the house being split
+ * between the shards in proportion.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ControllerShard {
+
+	/**
+	 * index of the shard
+	 */
+	protected final int index;
+
+	/**
+	 * URI of the pool of threads sending the commands to the equipments of the
+	 * shard
+	 */
+	protected final String executorURI;
+
+	/**
+	 * equipments of the shard
+	 */
+	protected final EquipmentRegistry equipments;
+
+	/**
+	 * sum of the nominal consumptions of the equipments of the shard, in watts
+	 */
+	protected double nominalConsumption;
+
+	/**
+	 * Constructor of an empty shard
+	 * 
+	 * @param index       index of the shard
+	 * @param executorURI URI of the pool of threads of the shard
+	 */
+	public ControllerShard(int index, String executorURI) {
+		assert index >= 0 && executorURI != null;
+		this.index = index;
+		this.executorURI = executorURI;
+		this.equipments = new EquipmentRegistry();
+		this.nominalConsumption = 0;
+	}
+
+	/**
+	 * Return the index of the shard an equipment belongs to
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @param nbShards     number of shards
+	 * @return the index of the shard of the equipment
+	 */
+	public static int shardIndex(String serialNumber, int nbShards) {
+		return Math.floorMod(serialNumber.hashCode(), nbShards);
+	}
+
+	/**
+	 * Return the index of the shard
+	 * 
+	 * @return the index of the shard
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Return the URI of the pool of threads of the shard
+	 * 
+	 * @return the URI of the pool of threads of the shard
+	 */
+	public String getExecutorURI() {
+		return executorURI;
+	}
+
+	/**
+	 * Return the equipments of the shard
+	 * 
+	 * @return the registry of the equipments of the shard
+	 */
+	public EquipmentRegistry getEquipments() {
+		return equipments;
+	}
+
+	/**
+	 * Add the nominal consumption of a new equipment of the shard
+	 * 
+	 * @param watts nominal consumption of the equipment, NaN if unknown
+	 */
+	public synchronized void addNominalConsumption(double watts) {
+		if (!Double.isNaN(watts))
+			nominalConsumption += watts;
+	}
+
+	/**
+	 * Return the sum of the nominal consumptions of the equipments of the shard
+	 * 
+	 * @return the nominal consumption of the shard in watts
+	 */
+	public synchronized double getNominalConsumption() {
+		return nominalConsumption;
+	}
+}
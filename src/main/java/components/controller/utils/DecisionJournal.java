@@ -0,0 +1,352 @@
+package main.java.components.controller.utils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The class <code>DecisionJournal</code> is an append-only binary journal of
+ * the control passes, one {@link JournalRecord} of fixed size per pass, for the
+ * offline analysis of the decisions of the controller.
+ *
+ * The file starts with a header (magic number, version, maximal number of
+ * commands and size of a record) followed by the records :
+ * <ul>
+ * <li>tick (long), simulated time, production and consumption (doubles),
+ * number of commands decided and kept (ints)</li>
+ * <li>{@link #MAX_COMMANDS} entries : equipment identifier (int), command and
+ * outcome ordinals (bytes), mode (short)</li>
+ * </ul>
+ * The records are buffered and written by blocks through a
+ * <code>FileChannel</code>, forced to the disk at most every
+ * {@link #FORCE_INTERVAL_MILLIS}. A record torn by a crash is dropped when the
+ * journal is reopened.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class DecisionJournal implements Closeable {
+
+	/**
+	 * magic number of a journal file, "CJRN"
+	 */
+	public static final int MAGIC = 0x434A524E;
+
+	/**
+	 * version of the layout of the records
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * maximal number of commands kept in a record
+	 */
+	public static final int MAX_COMMANDS = 16;
+
+	/**
+	 * size in bytes of the header of the file
+	 */
+	public static final int FILE_HEADER_BYTES = 16;
+
+	/**
+	 * size in bytes of a command entry of a record
+	 */
+	public static final int ENTRY_BYTES = 8;
+
+	/**
+	 * size in bytes of a record
+	 */
+	public static final int RECORD_BYTES = 8 + 3 * 8 + 2 * 4 + MAX_COMMANDS * ENTRY_BYTES;
+
+	/**
+	 * number of records buffered before being written
+	 */
+	public static final int BUFFERED_RECORDS = 256;
+
+	/**
+	 * maximal time in milliseconds between two forces of the journal to the disk
+	 */
+	public static final long FORCE_INTERVAL_MILLIS = 1000;
+
+	protected final FileChannel channel;
+
+	protected final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_BYTES);
+
+	/**
+	 * time of the last force to the disk, from System.nanoTime
+	 */
+	protected long lastForce;
+
+	/**
+	 * number of records appended since the opening
+	 */
+	protected long appended;
+
+	/**
+	 * Open the journal, creating the file if it doesn't exist, the records being
+	 * appended after the existing ones
+	 *
+	 * @param file path of the journal
+	 * @throws IOException if the file can't be opened or isn't a journal
+	 */
+	public DecisionJournal(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			long size = channel.size();
+			if (size == 0) {
+				ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+				header.putInt(MAGIC).putInt(VERSION).putInt(MAX_COMMANDS).putInt(RECORD_BYTES).flip();
+				writeFully(channel, header, 0);
+				size = FILE_HEADER_BYTES;
+			} else {
+				checkHeader(channel);
+				// drop the record torn by a crash, if any
+				long records = (size - FILE_HEADER_BYTES) / RECORD_BYTES;
+				size = FILE_HEADER_BYTES + records * RECORD_BYTES;
+				channel.truncate(size);
+			}
+			channel.position(size);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.lastForce = System.nanoTime();
+		this.appended = 0;
+	}
+
+	/**
+	 * Append the record of a control pass. The record is written once the
+	 * buffer is full or the force interval elapsed.
+	 *
+	 * @param record record of the pass
+	 * @throws IOException if the journal can't be written
+	 */
+	public synchronized void append(JournalRecord record) throws IOException {
+		buffer.putLong(record.getTick()).putDouble(record.getSimulatedTime()).putDouble(record.getProduction())
+				.putDouble(record.getConsumption()).putInt(record.getCommandCount())
+				.putInt(record.getKeptCommands());
+		for (int i = 0; i < MAX_COMMANDS; i++) {
+			if (i < record.getKeptCommands()) {
+				buffer.putInt(record.getEquipment(i)).put((byte) record.getCommand(i).ordinal())
+						.put((byte) record.getOutcome(i).ordinal()).putShort((short) record.getMode(i));
+			} else {
+				buffer.putLong(0);
+			}
+		}
+		appended++;
+		if (!buffer.hasRemaining())
+			flush();
+		if (System.nanoTime() - lastForce >= FORCE_INTERVAL_MILLIS * 1_000_000) {
+			flush();
+			force();
+		}
+	}
+
+	/**
+	 * Write the buffered records, without forcing them to the disk
+	 *
+	 * @throws IOException if the journal can't be written
+	 */
+	public synchronized void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Force the written records to the disk
+	 *
+	 * @throws IOException if the journal can't be forced
+	 */
+	protected void force() throws IOException {
+		channel.force(false);
+		lastForce = System.nanoTime();
+	}
+
+	/**
+	 * Return the number of records appended since the opening
+	 *
+	 * @return the number of records
+	 */
+	public synchronized long getAppended() {
+		return appended;
+	}
+
+	/**
+	 * Write the buffered records, force them to the disk and close the journal
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			flush();
+			force();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Check the header of a journal file
+	 *
+	 * @param channel channel of the file
+	 * @throws IOException if the file isn't a journal of this layout
+	 */
+	protected static void checkHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+		readFully(channel, header, 0);
+		header.flip();
+		if (header.getInt() != MAGIC)
+			throw new IOException("not a decision journal");
+		int version = header.getInt();
+		int maxCommands = header.getInt();
+		int recordBytes = header.getInt();
+		if (version != VERSION || maxCommands != MAX_COMMANDS || recordBytes != RECORD_BYTES)
+			throw new IOException("unsupported decision journal version " + version + " (" + maxCommands
+					+ " commands, " + recordBytes + " bytes per record)");
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0)
+				throw new EOFException("decision journal truncated");
+			position += read;
+		}
+	}
+
+	/**
+	 * The class <code>Reader</code> reads a decision journal, sequentially or by
+	 * index of the records. The records appended after the opening of the reader
+	 * are readable as soon as they are written.
+	 */
+	public static class Reader implements Closeable {
+
+		protected final FileChannel channel;
+
+		protected final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_BYTES);
+
+		/**
+		 * index of the next record returned by next
+		 */
+		protected long next;
+
+		/**
+		 * index of the first record in the buffer
+		 */
+		protected long buffered;
+
+		/**
+		 * Open a journal for reading
+		 *
+		 * @param file path of the journal
+		 * @throws IOException if the file can't be opened or isn't a journal
+		 */
+		public Reader(Path file) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.READ);
+			try {
+				checkHeader(channel);
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			this.next = 0;
+			this.buffered = 0;
+			buffer.limit(0);
+		}
+
+		/**
+		 * Return the number of whole records in the journal
+		 *
+		 * @return the number of records
+		 * @throws IOException if the size of the file can't be read
+		 */
+		public long size() throws IOException {
+			return (channel.size() - FILE_HEADER_BYTES) / RECORD_BYTES;
+		}
+
+		/**
+		 * Return the next record of the journal
+		 *
+		 * @return the next record, null at the end of the journal
+		 * @throws IOException if the journal can't be read
+		 */
+		public JournalRecord next() throws IOException {
+			long offset = (next - buffered) * RECORD_BYTES;
+			if (next < buffered || offset + RECORD_BYTES > buffer.limit()) {
+				// refill the buffer from the next record, whole records only
+				buffer.clear();
+				long remaining = Math.min(size() - next, BUFFERED_RECORDS);
+				if (remaining <= 0) {
+					buffer.limit(0);
+					return null;
+				}
+				buffer.limit((int) remaining * RECORD_BYTES);
+				readFully(channel, buffer, FILE_HEADER_BYTES + next * RECORD_BYTES);
+				buffered = next;
+				offset = 0;
+			}
+			buffer.position((int) offset);
+			next++;
+			return decode(buffer);
+		}
+
+		/**
+		 * Return the record at the given index, the next call to next returning the
+		 * record following it
+		 *
+		 * @param index index of the record, from 0
+		 * @return the record
+		 * @throws IOException if the index is out of the journal or the journal
+		 *                     can't be read
+		 */
+		public JournalRecord read(long index) throws IOException {
+			if (index < 0 || index >= size())
+				throw new EOFException("no record " + index + " in the decision journal");
+			next = index;
+			return next();
+		}
+
+		/**
+		 * Decode the record at the position of the buffer
+		 *
+		 * @param buffer buffer holding the record
+		 * @return the record
+		 */
+		protected static JournalRecord decode(ByteBuffer buffer) {
+			EquipmentCommand[] commands = EquipmentCommand.values();
+			CommandOutcome[] outcomes = CommandOutcome.values();
+			JournalRecord record = new JournalRecord(buffer.getLong(), buffer.getDouble(), buffer.getDouble(),
+					buffer.getDouble());
+			int count = buffer.getInt();
+			int kept = buffer.getInt();
+			for (int i = 0; i < kept; i++) {
+				int equipment = buffer.getInt();
+				EquipmentCommand command = commands[buffer.get()];
+				CommandOutcome outcome = outcomes[buffer.get()];
+				record.addCommand(equipment, command, buffer.getShort(), outcome);
+			}
+			// the commands decided but not kept are only counted
+			record.commandCount = count;
+			return record;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
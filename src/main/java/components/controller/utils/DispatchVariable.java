@@ -0,0 +1,135 @@
+package main.java.components.controller.utils;
+
+import main.java.components.controller.strategies.EquipmentInfo;
+
+/**
+ * The class <code>DispatchVariable</code> is a decision variable of the linear
+ * dispatch : a command that can be sent to an equipment, the power it frees
+ * (positive) or uses (negative) and its cost in the objective. The variable
+ * takes its value between 0 and 1.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class DispatchVariable {
+
+	/**
+	 * equipment receiving the command
+	 */
+	protected final EquipmentInfo equipment;
+
+	/**
+	 * the command
+	 */
+	protected final EquipmentCommand command;
+
+	/**
+	 * new mode of the equipment for a SET_MODE command
+	 */
+	protected final int mode;
+
+	/**
+	 * power freed by the command in watts, negative if it uses power
+	 */
+	protected final double power;
+
+	/**
+	 * cost of the command in the objective, negative for a gain in comfort
+	 */
+	protected final double cost;
+
+	/**
+	 * Constructor of the variable
+	 * 
+	 * @param equipment equipment receiving the command
+	 * @param command   the command
+	 * @param mode      new mode for a SET_MODE command, ignored otherwise
+	 * @param power     power freed by the command in watts, negative if it uses
+	 *                  power
+	 * @param cost      cost of the command, negative for a gain in comfort
+	 */
+	public DispatchVariable(EquipmentInfo equipment, EquipmentCommand command, int mode, double power,
+			double cost) {
+		assert equipment != null && command != null;
+		this.equipment = equipment;
+		this.command = command;
+		this.mode = mode;
+		this.power = power;
+		this.cost = cost;
+	}
+
+	/**
+	 * Return the equipment receiving the command
+	 * 
+	 * @return the equipment receiving the command
+	 */
+	public EquipmentInfo getEquipment() {
+		return equipment;
+	}
+
+	/**
+	 * Return the command
+	 * 
+	 * @return the command
+	 */
+	public EquipmentCommand getCommand() {
+		return command;
+	}
+
+	/**
+	 * Return the new mode of the equipment for a SET_MODE command
+	 * 
+	 * @return the new mode
+	 */
+	public int getMode() {
+		return mode;
+	}
+
+	/**
+	 * Return the power freed by the command
+	 * 
+	 * @return the power freed in watts, negative if the command uses power
+	 */
+	public double getPower() {
+		return power;
+	}
+
+	/**
+	 * Return the cost of the command in the objective
+	 * 
+	 * @return the cost, negative for a gain in comfort
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof DispatchVariable))
+			return false;
+		DispatchVariable other = (DispatchVariable) obj;
+		return equipment == other.equipment && command == other.command && mode == other.mode
+				&& power == other.power && cost == other.cost;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return (equipment.getSerialNumber().hashCode() * 31 + command.hashCode()) * 31 + mode;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DispatchVariable[" + equipment.getSerialNumber() + ", " + command
+				+ (command == EquipmentCommand.SET_MODE ? "(" + mode + ")" : "") + ", power=" + power + ", cost="
+				+ cost + "]";
+	}
+}
@@ -0,0 +1,13 @@
+package main.java.components.controller.utils;
+
+/**
+ * 
+ * Represents the commands the controller sends to the equipments and whose
+ * result is kept in the {@link EquipmentState} of the equipment
+ * 
+ * @author Bello Memmi
+ *
+ */
+public enum EquipmentCommand {
+	UP_MODE, DOWN_MODE, SET_MODE, SUSPEND, RESUME, POSTPONE
+}
@@ -0,0 +1,248 @@
+package main.java.components.controller.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import fr.sorbonne_u.components.ports.AbstractOutboundPort;
+import main.java.components.controller.ports.PlanningEquipmentControlOutboundPort;
+import main.java.components.controller.ports.StandardEquipmentControlOutboundPort;
+import main.java.components.controller.ports.SuspensionEquipmentControlOutboundPort;
+
+/**
+ * The class <code>EquipmentRegistry</code> holds the equipments registered to
+ * the controller, indexed by role and by serial number.
+ * 
+ * The role of an equipment is decided once at registration, so the control
+ * passes never have to ask a port for its server port URI to find the battery.
+ * Registrations are rare and control passes frequent : the lists by role are
+ * copy-on-write, iterating them takes no lock and sees a consistent snapshot
+ * even while an equipment registers.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class EquipmentRegistry {
+
+	/**
+	 * registered equipments by serial number
+	 */
+	protected final ConcurrentHashMap<String, RegisteredEquipment<?>> bySerialNumber;
+
+	/**
+	 * registered equipments by role
+	 */
+	protected final EnumMap<EquipmentRole, CopyOnWriteArrayList<RegisteredEquipment<?>>> byRole;
+
+	/**
+	 * standard equipments
+	 */
+	protected final CopyOnWriteArrayList<RegisteredEquipment<StandardEquipmentControlOutboundPort>> standards;
+
+	/**
+	 * suspendable equipments
+	 */
+	protected final CopyOnWriteArrayList<RegisteredEquipment<SuspensionEquipmentControlOutboundPort>> suspendables;
+
+	/**
+	 * deferrable equipments
+	 */
+	protected final CopyOnWriteArrayList<RegisteredEquipment<PlanningEquipmentControlOutboundPort>> deferrables;
+
+	/**
+	 * storage equipments
+	 */
+	protected final CopyOnWriteArrayList<RegisteredEquipment<PlanningEquipmentControlOutboundPort>> storages;
+
+	/**
+	 * Constructor of an empty registry
+	 */
+	public EquipmentRegistry() {
+		this.bySerialNumber = new ConcurrentHashMap<>();
+		this.byRole = new EnumMap<>(EquipmentRole.class);
+		for (EquipmentRole role : EquipmentRole.values())
+			this.byRole.put(role, new CopyOnWriteArrayList<>());
+		this.standards = new CopyOnWriteArrayList<>();
+		this.suspendables = new CopyOnWriteArrayList<>();
+		this.deferrables = new CopyOnWriteArrayList<>();
+		this.storages = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Register a standard equipment
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @param port         outbound port connected to the equipment
+	 * @param adapter      descriptor of the adapter of the equipment
+	 * @return false if an equipment with the same serial number is already
+	 *         registered
+	 */
+	public boolean addStandard(String serialNumber, StandardEquipmentControlOutboundPort port,
+			AdapterDescriptor adapter) {
+		RegisteredEquipment<StandardEquipmentControlOutboundPort> equipment = new RegisteredEquipment<>(
+				serialNumber, EquipmentRole.STANDARD, port, adapter);
+		if (!put(equipment))
+			return false;
+		standards.add(equipment);
+		return true;
+	}
+
+	/**
+	 * Register a suspendable equipment
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @param port         outbound port connected to the equipment
+	 * @param adapter      descriptor of the adapter of the equipment
+	 * @return false if an equipment with the same serial number is already
+	 *         registered
+	 */
+	public boolean addSuspendable(String serialNumber, SuspensionEquipmentControlOutboundPort port,
+			AdapterDescriptor adapter) {
+		RegisteredEquipment<SuspensionEquipmentControlOutboundPort> equipment = new RegisteredEquipment<>(
+				serialNumber, EquipmentRole.SUSPENDABLE, port, adapter);
+		if (!put(equipment))
+			return false;
+		suspendables.add(equipment);
+		return true;
+	}
+
+	/**
+	 * Register a planning equipment, as a storage equipment or as a deferrable
+	 * one
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @param port         outbound port connected to the equipment
+	 * @param adapter      descriptor of the adapter of the equipment
+	 * @param storage      true if the equipment stores energy
+	 * @return false if an equipment with the same serial number is already
+	 *         registered
+	 */
+	public boolean addPlanning(String serialNumber, PlanningEquipmentControlOutboundPort port,
+			AdapterDescriptor adapter, boolean storage) {
+		EquipmentRole role = storage ? EquipmentRole.STORAGE : EquipmentRole.DEFERRABLE;
+		RegisteredEquipment<PlanningEquipmentControlOutboundPort> equipment = new RegisteredEquipment<>(
+				serialNumber, role, port, adapter);
+		if (!put(equipment))
+			return false;
+		if (storage)
+			storages.add(equipment);
+		else
+			deferrables.add(equipment);
+		return true;
+	}
+
+	/**
+	 * Add the equipment to the indexes by serial number and by role
+	 * 
+	 * @param equipment the equipment to add
+	 * @return false if an equipment with the same serial number is already
+	 *         registered
+	 */
+	protected boolean put(RegisteredEquipment<?> equipment) {
+		if (bySerialNumber.putIfAbsent(equipment.getSerialNumber(), equipment) != null)
+			return false;
+		byRole.get(equipment.getRole()).add(equipment);
+		return true;
+	}
+
+	/**
+	 * Return true if an equipment with the given serial number is registered
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @return true if the equipment is registered
+	 */
+	public boolean contains(String serialNumber) {
+		return bySerialNumber.containsKey(serialNumber);
+	}
+
+	/**
+	 * Return the equipment with the given serial number or null if it isn't
+	 * registered
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @return the registered equipment or null
+	 */
+	public RegisteredEquipment<?> get(String serialNumber) {
+		return bySerialNumber.get(serialNumber);
+	}
+
+	/**
+	 * Return the equipments having the given role
+	 * 
+	 * @param role role of the equipments
+	 * @return unmodifiable view of the equipments having this role
+	 */
+	public List<RegisteredEquipment<?>> getByRole(EquipmentRole role) {
+		return Collections.unmodifiableList(byRole.get(role));
+	}
+
+	/**
+	 * Return all the registered equipments
+	 * 
+	 * @return unmodifiable view of the registered equipments
+	 */
+	public Collection<RegisteredEquipment<?>> getAll() {
+		return Collections.unmodifiableCollection(bySerialNumber.values());
+	}
+
+	/**
+	 * Return the ports of all the registered equipments
+	 * 
+	 * @return the ports of all the registered equipments
+	 */
+	public List<AbstractOutboundPort> getAllPorts() {
+		ArrayList<AbstractOutboundPort> ports = new ArrayList<>();
+		for (RegisteredEquipment<?> equipment : bySerialNumber.values())
+			ports.add((AbstractOutboundPort) equipment.getPort());
+		return ports;
+	}
+
+	/**
+	 * Return the standard equipments
+	 * 
+	 * @return unmodifiable view of the standard equipments
+	 */
+	public List<RegisteredEquipment<StandardEquipmentControlOutboundPort>> getStandards() {
+		return Collections.unmodifiableList(standards);
+	}
+
+	/**
+	 * Return the suspendable equipments
+	 * 
+	 * @return unmodifiable view of the suspendable equipments
+	 */
+	public List<RegisteredEquipment<SuspensionEquipmentControlOutboundPort>> getSuspendables() {
+		return Collections.unmodifiableList(suspendables);
+	}
+
+	/**
+	 * Return the deferrable equipments, storage equipments excluded
+	 * 
+	 * @return unmodifiable view of the deferrable equipments
+	 */
+	public List<RegisteredEquipment<PlanningEquipmentControlOutboundPort>> getDeferrables() {
+		return Collections.unmodifiableList(deferrables);
+	}
+
+	/**
+	 * Return the storage equipments
+	 * 
+	 * @return unmodifiable view of the storage equipments
+	 */
+	public List<RegisteredEquipment<PlanningEquipmentControlOutboundPort>> getStorages() {
+		return Collections.unmodifiableList(storages);
+	}
+
+	/**
+	 * Return the number of registered equipments
+	 * 
+	 * @return the number of registered equipments
+	 */
+	public int size() {
+		return bySerialNumber.size();
+	}
+}
@@ -0,0 +1,21 @@
+package main.java.components.controller.utils;
+
+import main.java.components.controller.Controller;
+
+/**
+ * 
+ * Represents the role of an equipment registered to the {@link Controller}
+ * 
+ * <ul>
+ * <li>STORAGE : equipment storing energy, i.e. the battery</li>
+ * <li>DEFERRABLE : planning equipment whose program can be postponed</li>
+ * <li>SUSPENDABLE : equipment which can be suspended and resumed</li>
+ * <li>STANDARD : equipment which can only change of mode</li>
+ * </ul>
+ * 
+ * @author Bello Memmi
+ *
+ */
+public enum EquipmentRole {
+	STORAGE, DEFERRABLE, SUSPENDABLE, STANDARD
+}
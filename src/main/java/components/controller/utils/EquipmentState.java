@@ -0,0 +1,329 @@
+package main.java.components.controller.utils;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+/**
+ * The class <code>EquipmentState</code> is the controller side view of the
+ * state of an equipment, deduced from the results of the commands sent to it.
+ * 
+ * An equipment may change by itself (a fridge resumes after a while, a battery
+ * stops charging when full), so each information is only trusted during a
+ * validity window counted in control passes (ticks). Within the window, a
+ * command known to be a no-op (upMode at the last mode, resume of an equipment
+ * which isn't suspended, a command which just failed...) can be skipped
+ * without calling the equipment. Each update increments the version of the
+ * state.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class EquipmentState {
+
+	/**
+	 * value of an unknown mode
+	 */
+	public static final int UNKNOWN_MODE = -1;
+
+	/**
+	 * default number of ticks during which a known state is trusted
+	 */
+	public static final long DEFAULT_VALIDITY = 10;
+
+	/**
+	 * number of modes of the equipment, 0 if unknown
+	 */
+	protected final int numberOfModes;
+
+	/**
+	 * number of ticks during which a known state is trusted
+	 */
+	protected final long validity;
+
+	/**
+	 * last known mode, UNKNOWN_MODE if unknown
+	 */
+	protected int mode;
+
+	/**
+	 * tick at which the mode was known
+	 */
+	protected long modeTick;
+
+	/**
+	 * last known suspension state, null if unknown
+	 */
+	protected Boolean suspended;
+
+	/**
+	 * tick at which the suspension state was known
+	 */
+	protected long suspendedTick;
+
+	/**
+	 * last known presence of a planned program, null if unknown
+	 */
+	protected Boolean hasPlan;
+
+	/**
+	 * start time of the last known planned program
+	 */
+	protected LocalTime planStart;
+
+	/**
+	 * duration of the last known planned program
+	 */
+	protected Duration planDuration;
+
+	/**
+	 * deadline of the last known planned program
+	 */
+	protected LocalTime planDeadline;
+
+	/**
+	 * tick at which the planned program was known
+	 */
+	protected long planTick;
+
+	/**
+	 * last emergency read on the equipment
+	 */
+	protected double emergency;
+
+	/**
+	 * tick at which the emergency was read
+	 */
+	protected long emergencyTick;
+
+	/**
+	 * tick until which each command is known to be a no-op, by command ordinal
+	 */
+	protected final long[] noOpUntil;
+
+	/**
+	 * number of updates of the state
+	 */
+	protected long version;
+
+	/**
+	 * Constructor of the state of an equipment
+	 * 
+	 * @param numberOfModes number of modes of the equipment, 0 if unknown
+	 * @param validity      number of ticks during which a known state is trusted
+	 */
+	public EquipmentState(int numberOfModes, long validity) {
+		assert numberOfModes >= 0 && validity >= 0;
+		this.numberOfModes = numberOfModes;
+		this.validity = validity;
+		this.mode = UNKNOWN_MODE;
+		this.suspended = null;
+		this.emergency = Double.NaN;
+		this.noOpUntil = new long[EquipmentCommand.values().length];
+		for (int i = 0; i < noOpUntil.length; i++)
+			noOpUntil[i] = Long.MIN_VALUE;
+		this.version = 0;
+	}
+
+	/**
+	 * Return the mode known at the given tick
+	 * 
+	 * @param tick actual tick
+	 * @return the mode, UNKNOWN_MODE if unknown or outdated
+	 */
+	public synchronized int getMode(long tick) {
+		return mode != UNKNOWN_MODE && tick - modeTick <= validity ? mode : UNKNOWN_MODE;
+	}
+
+	/**
+	 * Return the suspension state known at the given tick
+	 * 
+	 * @param tick actual tick
+	 * @return the suspension state, null if unknown or outdated
+	 */
+	public synchronized Boolean isSuspended(long tick) {
+		return suspended != null && tick - suspendedTick <= validity ? suspended : null;
+	}
+
+	/**
+	 * Return the presence of a planned program known at the given tick
+	 * 
+	 * @param tick actual tick
+	 * @return true if the equipment has a planned program, null if unknown or
+	 *         outdated
+	 */
+	public synchronized Boolean hasPlan(long tick) {
+		return hasPlan != null && tick - planTick <= validity ? hasPlan : null;
+	}
+
+	/**
+	 * Return the slack of the planned program known at the given tick, i.e. the
+	 * time by which it can be postponed and still meet its deadline
+	 * 
+	 * @param tick actual tick
+	 * @return the slack, null if there is no known planned program
+	 */
+	public synchronized Duration getSlack(long tick) {
+		if (!Boolean.TRUE.equals(hasPlan(tick)) || planStart == null || planDuration == null
+				|| planDeadline == null)
+			return null;
+		return Duration.between(planStart, planDeadline).minus(planDuration);
+	}
+
+	/**
+	 * Record the planned program read on the equipment
+	 * 
+	 * @param hasPlan  true if the equipment has a planned program
+	 * @param start    start time of the program, null if none
+	 * @param duration duration of the program, null if none
+	 * @param deadline deadline of the program, null if none
+	 * @param tick     actual tick
+	 */
+	public synchronized void planRead(boolean hasPlan, LocalTime start, Duration duration, LocalTime deadline,
+			long tick) {
+		this.hasPlan = hasPlan;
+		this.planStart = start;
+		this.planDuration = duration;
+		this.planDeadline = deadline;
+		this.planTick = tick;
+		version++;
+	}
+
+	/**
+	 * Return the emergency read during the given tick, the emergency changing
+	 * continuously it is only trusted during the tick it was read
+	 * 
+	 * @param tick actual tick
+	 * @return the emergency, NaN if not read during this tick
+	 */
+	public synchronized double getEmergency(long tick) {
+		return tick == emergencyTick ? emergency : Double.NaN;
+	}
+
+	/**
+	 * Record the emergency read on the equipment
+	 * 
+	 * @param emergency emergency of the equipment
+	 * @param tick      actual tick
+	 */
+	public synchronized void emergencyRead(double emergency, long tick) {
+		this.emergency = emergency;
+		this.emergencyTick = tick;
+		version++;
+	}
+
+	/**
+	 * Return the version of the state, incremented on each update
+	 * 
+	 * @return the version of the state
+	 */
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Return true if the command is known to be a no-op at the given tick
+	 * 
+	 * @param command the command
+	 * @param tick    actual tick
+	 * @return true if sending the command is useless
+	 */
+	public synchronized boolean isNoOp(EquipmentCommand command, long tick) {
+		if (tick <= noOpUntil[command.ordinal()])
+			return true;
+		int mode = getMode(tick);
+		Boolean suspended = isSuspended(tick);
+		switch (command) {
+		case UP_MODE:
+			return mode != UNKNOWN_MODE && numberOfModes > 0 && mode >= numberOfModes - 1;
+		case DOWN_MODE:
+			return mode == 0;
+		case SUSPEND:
+			return Boolean.TRUE.equals(suspended);
+		case RESUME:
+			return Boolean.FALSE.equals(suspended);
+		case POSTPONE:
+			return Boolean.FALSE.equals(hasPlan(tick));
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Record the mode read on the equipment
+	 * 
+	 * @param mode the mode of the equipment
+	 * @param tick actual tick
+	 */
+	public synchronized void modeRead(int mode, long tick) {
+		this.mode = mode;
+		this.modeTick = tick;
+		version++;
+	}
+
+	/**
+	 * Record the result of a command sent to the equipment
+	 * 
+	 * @param command the command
+	 * @param result  result of the command
+	 * @param newMode mode requested by SET_MODE, ignored otherwise
+	 * @param tick    actual tick
+	 */
+	public synchronized void commandDone(EquipmentCommand command, boolean result, int newMode, long tick) {
+		version++;
+		if (!result) {
+			// the command has no effect in the actual state, don't send it again until
+			// the state changes or the window expires
+			if (command != EquipmentCommand.SET_MODE)
+				noOpUntil[command.ordinal()] = tick + validity;
+			return;
+		}
+		// the state changed, what was known to be a no-op may not be anymore
+		for (int i = 0; i < noOpUntil.length; i++)
+			noOpUntil[i] = Long.MIN_VALUE;
+		int mode = getMode(tick);
+		switch (command) {
+		case UP_MODE:
+			setMode(mode == UNKNOWN_MODE ? UNKNOWN_MODE : mode + 1, tick);
+			break;
+		case DOWN_MODE:
+			setMode(mode == UNKNOWN_MODE ? UNKNOWN_MODE : mode - 1, tick);
+			break;
+		case SET_MODE:
+			setMode(newMode, tick);
+			break;
+		case SUSPEND:
+			this.suspended = true;
+			this.suspendedTick = tick;
+			break;
+		case RESUME:
+			this.suspended = false;
+			this.suspendedTick = tick;
+			break;
+		case POSTPONE:
+			// the program moved, read it again before the next decision
+			this.hasPlan = null;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Set the known mode
+	 * 
+	 * @param mode the mode, UNKNOWN_MODE if unknown
+	 * @param tick actual tick
+	 */
+	protected void setMode(int mode, long tick) {
+		this.mode = mode;
+		this.modeTick = tick;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "EquipmentState[mode=" + mode + ", suspended=" + suspended + ", version=" + version + "]";
+	}
+}
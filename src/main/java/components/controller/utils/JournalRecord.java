@@ -0,0 +1,190 @@
+package main.java.components.controller.utils;
+
+/**
+ * The class <code>JournalRecord</code> is the record of a control pass in the
+ * {@link DecisionJournal} : the balance seen by the pass and the commands
+ * decided with their outcome.
+ *
+ * A record keeps at most {@link DecisionJournal#MAX_COMMANDS} commands so that
+ * all the records have the same size, the number of commands decided being
+ * kept anyway. The equipments are identified by the hash of their serial
+ * number, see {@link #equipmentId(String)}.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class JournalRecord {
+
+	/**
+	 * number of the control pass
+	 */
+	protected final long tick;
+
+	/**
+	 * simulated time of the balance
+	 */
+	protected final double simulatedTime;
+
+	/**
+	 * production of the house in amperes
+	 */
+	protected final double production;
+
+	/**
+	 * consumption of the house in amperes
+	 */
+	protected final double consumption;
+
+	/**
+	 * number of commands decided, possibly more than the commands kept
+	 */
+	protected int commandCount;
+
+	protected final int[] equipments = new int[DecisionJournal.MAX_COMMANDS];
+
+	protected final EquipmentCommand[] commands = new EquipmentCommand[DecisionJournal.MAX_COMMANDS];
+
+	protected final int[] modes = new int[DecisionJournal.MAX_COMMANDS];
+
+	protected final CommandOutcome[] outcomes = new CommandOutcome[DecisionJournal.MAX_COMMANDS];
+
+	/**
+	 * Constructor of a record without commands
+	 *
+	 * @param tick          number of the control pass
+	 * @param simulatedTime simulated time of the balance, NaN if unknown
+	 * @param production    production of the house in amperes
+	 * @param consumption   consumption of the house in amperes
+	 */
+	public JournalRecord(long tick, double simulatedTime, double production, double consumption) {
+		this.tick = tick;
+		this.simulatedTime = simulatedTime;
+		this.production = production;
+		this.consumption = consumption;
+		this.commandCount = 0;
+	}
+
+	/**
+	 * Return the identifier of an equipment in the journal
+	 *
+	 * @param serialNumber serial number of the equipment
+	 * @return the hash of the serial number
+	 */
+	public static int equipmentId(String serialNumber) {
+		return serialNumber.hashCode();
+	}
+
+	/**
+	 * Add a command decided by the pass, counted but not kept beyond
+	 * {@link DecisionJournal#MAX_COMMANDS}
+	 *
+	 * @param equipment identifier of the equipment
+	 * @param command   the command
+	 * @param mode      mode of a SET_MODE command,
+	 *                  {@link EquipmentState#UNKNOWN_MODE} otherwise
+	 * @param outcome   what became of the command
+	 */
+	public void addCommand(int equipment, EquipmentCommand command, int mode, CommandOutcome outcome) {
+		if (commandCount < DecisionJournal.MAX_COMMANDS) {
+			equipments[commandCount] = equipment;
+			commands[commandCount] = command;
+			modes[commandCount] = mode;
+			outcomes[commandCount] = outcome;
+		}
+		commandCount++;
+	}
+
+	public long getTick() {
+		return tick;
+	}
+
+	public double getSimulatedTime() {
+		return simulatedTime;
+	}
+
+	public double getProduction() {
+		return production;
+	}
+
+	public double getConsumption() {
+		return consumption;
+	}
+
+	/**
+	 * Return the energy balance of the house
+	 *
+	 * @return production minus consumption in amperes
+	 */
+	public double getBalance() {
+		return production - consumption;
+	}
+
+	/**
+	 * Return the number of commands decided by the pass
+	 *
+	 * @return the number of commands, kept or not
+	 */
+	public int getCommandCount() {
+		return commandCount;
+	}
+
+	/**
+	 * Return the number of commands kept in the record
+	 *
+	 * @return the number of commands readable by index
+	 */
+	public int getKeptCommands() {
+		return Math.min(commandCount, DecisionJournal.MAX_COMMANDS);
+	}
+
+	public int getEquipment(int index) {
+		assert index < getKeptCommands();
+		return equipments[index];
+	}
+
+	public EquipmentCommand getCommand(int index) {
+		assert index < getKeptCommands();
+		return commands[index];
+	}
+
+	public int getMode(int index) {
+		assert index < getKeptCommands();
+		return modes[index];
+	}
+
+	public CommandOutcome getOutcome(int index) {
+		assert index < getKeptCommands();
+		return outcomes[index];
+	}
+
+	/**
+	 * Return the number of kept commands having the given outcome
+	 *
+	 * @param outcome the outcome
+	 * @return the number of commands
+	 */
+	public int countOutcome(CommandOutcome outcome) {
+		int count = 0;
+		for (int i = 0; i < getKeptCommands(); i++) {
+			if (outcomes[i] == outcome)
+				count++;
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("pass ").append(tick).append(" at ").append(simulatedTime).append(" : production ")
+				.append(production).append(" A, consumption ").append(consumption).append(" A");
+		for (int i = 0; i < getKeptCommands(); i++) {
+			sb.append(", ").append(commands[i]);
+			if (commands[i] == EquipmentCommand.SET_MODE)
+				sb.append('(').append(modes[i]).append(')');
+			sb.append(" on ").append(Integer.toHexString(equipments[i])).append(' ').append(outcomes[i]);
+		}
+		if (commandCount > getKeptCommands())
+			sb.append(", ").append(commandCount - getKeptCommands()).append(" more");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,168 @@
+package main.java.components.controller.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class <code>LatencyHistogram</code> records latencies in nanoseconds in
+ * log-linear buckets, in the manner of HDR histograms : each power of two is
+ * split in SUB_BUCKETS linear buckets, which bounds the relative error of the
+ * percentiles to 1/SUB_BUCKETS whatever the magnitude of the values.
+ * 
+ * Recording is lock free and allocation free, so it can be done from the
+ * threads calling the equipments.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * log2 of the number of linear buckets per power of two
+	 */
+	protected static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * number of linear buckets per power of two
+	 */
+	protected static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * number of buckets, enough for any positive long
+	 */
+	protected static final int NB_BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/**
+	 * number of values by bucket
+	 */
+	protected final AtomicLongArray counts;
+
+	/**
+	 * number of recorded values
+	 */
+	protected final AtomicLong count;
+
+	/**
+	 * sum of the recorded values
+	 */
+	protected final AtomicLong sum;
+
+	/**
+	 * greatest recorded value
+	 */
+	protected final AtomicLong max;
+
+	/**
+	 * Constructor of an empty histogram
+	 */
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(NB_BUCKETS);
+		this.count = new AtomicLong(0);
+		this.sum = new AtomicLong(0);
+		this.max = new AtomicLong(0);
+	}
+
+	/**
+	 * Record a latency
+	 * 
+	 * @param nanos the latency in nanoseconds, negative values count as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long m = max.get();
+		while (value > m && !max.compareAndSet(m, value))
+			m = max.get();
+	}
+
+	/**
+	 * Return the index of the bucket of a value
+	 * 
+	 * @param value positive value
+	 * @return index of its bucket
+	 */
+	protected static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+		return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Return the greatest value of a bucket
+	 * 
+	 * @param index index of the bucket
+	 * @return its greatest value
+	 */
+	protected static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long sub = SUB_BUCKETS + index % SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * Return the number of recorded values
+	 * 
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Return the mean of the recorded values
+	 * 
+	 * @return the mean in nanoseconds, 0 if empty
+	 */
+	public double getMean() {
+		long c = count.get();
+		return c == 0 ? 0 : (double) sum.get() / c;
+	}
+
+	/**
+	 * Return the greatest recorded value
+	 * 
+	 * @return the greatest value in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Return the value under which the given percentage of the recorded values
+	 * are, within the precision of the buckets
+	 * 
+	 * @param percentile percentage between 0 and 100
+	 * @return the percentile in nanoseconds, 0 if empty
+	 */
+	public long getPercentile(double percentile) {
+		assert percentile >= 0 && percentile <= 100;
+		long c = count.get();
+		if (c == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * c));
+		long seen = 0;
+		for (int i = 0; i < NB_BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(bucketUpperBound(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Return the summary of the histogram
+	 * 
+	 * @param name name of the measured operation
+	 * @return the summary
+	 */
+	public LatencySummary summarize(String name) {
+		return new LatencySummary(name, getCount(), getMean(), getPercentile(50), getPercentile(90),
+				getPercentile(99), getMax());
+	}
+}
@@ -0,0 +1,86 @@
+package main.java.components.controller.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class <code>LatencyReport</code> is an immutable report of the latencies
+ * of the controller : the latency of each phase of the control passes and of
+ * the calls to each registered equipment.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class LatencyReport implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * latencies by phase of the control passes
+	 */
+	protected final Map<ControlPhase, LatencySummary> phases;
+
+	/**
+	 * latencies of the calls by serial number of the equipments
+	 */
+	protected final Map<String, LatencySummary> equipments;
+
+	/**
+	 * Constructor of the report
+	 * 
+	 * @param phases     latencies by phase of the control passes
+	 * @param equipments latencies of the calls by serial number
+	 */
+	public LatencyReport(Map<ControlPhase, LatencySummary> phases, Map<String, LatencySummary> equipments) {
+		this.phases = Collections.unmodifiableMap(phases);
+		this.equipments = Collections.unmodifiableMap(equipments);
+	}
+
+	/**
+	 * Return the latencies by phase of the control passes
+	 * 
+	 * @return unmodifiable map of the latencies by phase
+	 */
+	public Map<ControlPhase, LatencySummary> getPhases() {
+		return phases;
+	}
+
+	/**
+	 * Return the latencies of the calls by serial number of the equipments
+	 * 
+	 * @return unmodifiable map of the latencies by equipment
+	 */
+	public Map<String, LatencySummary> getEquipments() {
+		return equipments;
+	}
+
+	/**
+	 * Return the equipments with the greatest 99th percentile
+	 * 
+	 * @param n maximal number of equipments
+	 * @return the slowest equipments, slowest first
+	 */
+	public List<LatencySummary> getSlowestEquipments(int n) {
+		ArrayList<LatencySummary> sorted = new ArrayList<>(equipments.values());
+		sorted.sort(Comparator.comparingLong(LatencySummary::getP99).reversed());
+		return sorted.subList(0, Math.min(n, sorted.size()));
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("control passes latencies :\n");
+		for (LatencySummary summary : phases.values())
+			sb.append("  ").append(summary).append('\n');
+		sb.append("slowest equipments :\n");
+		for (LatencySummary summary : getSlowestEquipments(5))
+			sb.append("  ").append(summary).append('\n');
+		return sb.toString();
+	}
+}
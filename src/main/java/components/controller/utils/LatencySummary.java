@@ -0,0 +1,81 @@
+package main.java.components.controller.utils;
+
+import java.io.Serializable;
+
+/**
+ * The class <code>LatencySummary</code> is an immutable summary of a
+ * {@link LatencyHistogram}, latencies being in nanoseconds.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class LatencySummary implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected final String name;
+	protected final long count;
+	protected final double mean;
+	protected final long p50;
+	protected final long p90;
+	protected final long p99;
+	protected final long max;
+
+	/**
+	 * Constructor of the summary
+	 * 
+	 * @param name  name of the measured operation
+	 * @param count number of measures
+	 * @param mean  mean latency
+	 * @param p50   median latency
+	 * @param p90   90th percentile
+	 * @param p99   99th percentile
+	 * @param max   greatest latency
+	 */
+	public LatencySummary(String name, long count, double mean, long p50, long p90, long p99, long max) {
+		this.name = name;
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.max = max;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP90() {
+		return p90;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%-12s count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms", name, count,
+				mean / 1e6, p50 / 1e6, p90 / 1e6, p99 / 1e6, max / 1e6);
+	}
+}
@@ -0,0 +1,193 @@
+package main.java.components.controller.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+
+/**
+ * The class <code>LinearDispatcher</code> chooses the commands to send to the
+ * equipments by solving a linear program :
+ * 
+ * <pre>
+ * minimize   sum(cost_i * x_i) + UNSERVED_COST * u
+ * subject to sum(power_i * x_i) + u &gt;= -balance
+ *            0 &lt;= x_i &lt;= 1, u &gt;= 0
+ * </pre>
+ * 
+ * where x_i is the decision on the command i and u the power the equipments
+ * can't free. With a deficit (negative balance) the commands free at least the
+ * missing power at the lowest cost, with a surplus the commands using power
+ * stay within it.
+ * 
+ * The program is solved every <code>period</code> ticks. SimplexSolver can't
+ * start from a previous basis, so when the program didn't change since the last
+ * solve its solution is returned without solving again.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class LinearDispatcher {
+
+	/**
+	 * cost of a watt the commands can't free, high enough to be the last resort
+	 */
+	public static final double UNSERVED_COST = 1e6;
+
+	/**
+	 * value above which a decision is taken for a command freeing power, a
+	 * fractional decision being rounded up so the deficit stays covered
+	 */
+	public static final double FREE_THRESHOLD = 1e-6;
+
+	/**
+	 * value above which a decision is taken for a command using power, a
+	 * fractional decision being rounded down so the surplus isn't exceeded
+	 */
+	public static final double USE_THRESHOLD = 1 - 1e-6;
+
+	/**
+	 * maximal number of iterations of the simplex
+	 */
+	public static final int MAX_ITERATIONS = 100_000;
+
+	/**
+	 * number of ticks between two solves
+	 */
+	protected final int period;
+
+	/**
+	 * tick of the last solve, Long.MIN_VALUE before the first one
+	 */
+	protected long lastTick;
+
+	/**
+	 * balance of the last solve
+	 */
+	protected double lastBalance;
+
+	/**
+	 * variables of the last solve
+	 */
+	protected List<DispatchVariable> lastVariables;
+
+	/**
+	 * commands chosen by the last solve
+	 */
+	protected List<DispatchVariable> lastDecision;
+
+	/**
+	 * number of programs actually solved
+	 */
+	protected long solves;
+
+	/**
+	 * Constructor of the dispatcher
+	 * 
+	 * @param period number of ticks between two solves, 1 to solve on each tick
+	 */
+	public LinearDispatcher(int period) {
+		assert period > 0;
+		this.period = period;
+		this.lastTick = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Return the commands to send for this tick
+	 * 
+	 * @param balance   production minus consumption of the house in watts
+	 * @param variables commands that can be sent
+	 * @param tick      actual tick
+	 * @return the commands to send, null if no solve is due on this tick
+	 */
+	public synchronized List<DispatchVariable> dispatch(double balance, List<DispatchVariable> variables,
+			long tick) {
+		if (lastTick != Long.MIN_VALUE && tick - lastTick < period)
+			return null;
+		lastTick = tick;
+		if (lastDecision == null || balance != lastBalance || !variables.equals(lastVariables)) {
+			lastBalance = balance;
+			lastVariables = new ArrayList<>(variables);
+			double[] powers = new double[variables.size()];
+			double[] costs = new double[variables.size()];
+			for (int i = 0; i < powers.length; i++) {
+				powers[i] = variables.get(i).getPower();
+				costs[i] = variables.get(i).getCost();
+			}
+			lastDecision = decide(variables, solve(balance, powers, costs));
+			solves++;
+		}
+		return lastDecision;
+	}
+
+	/**
+	 * Return the number of programs actually solved
+	 * 
+	 * @return the number of solves
+	 */
+	public synchronized long getSolves() {
+		return solves;
+	}
+
+	/**
+	 * Solve the program
+	 * 
+	 * @param balance production minus consumption of the house in watts
+	 * @param powers  power freed by each command in watts, negative if it uses
+	 *                power
+	 * @param costs   cost of each command
+	 * @return the value of each variable, in the same order
+	 */
+	public static double[] solve(double balance, double[] powers, double[] costs) {
+		assert powers.length == costs.length;
+		int n = powers.length;
+		if (n == 0)
+			return new double[0];
+		// the last column is the unserved power
+		double[] objective = new double[n + 1];
+		double[] balanceRow = new double[n + 1];
+		ArrayList<LinearConstraint> constraints = new ArrayList<>(n + 1);
+		for (int i = 0; i < n; i++) {
+			objective[i] = costs[i];
+			balanceRow[i] = powers[i];
+			double[] bound = new double[n + 1];
+			bound[i] = 1;
+			constraints.add(new LinearConstraint(bound, Relationship.LEQ, 1));
+		}
+		objective[n] = UNSERVED_COST;
+		balanceRow[n] = 1;
+		constraints.add(new LinearConstraint(balanceRow, Relationship.GEQ, -balance));
+
+		PointValuePair solution = new SimplexSolver().optimize(new MaxIter(MAX_ITERATIONS),
+				new LinearObjectiveFunction(objective, 0), new LinearConstraintSet(constraints), GoalType.MINIMIZE,
+				new NonNegativeConstraint(true));
+		double[] values = new double[n];
+		System.arraycopy(solution.getPoint(), 0, values, 0, n);
+		return values;
+	}
+
+	/**
+	 * Turn the values of the variables into commands
+	 * 
+	 * @param variables commands that can be sent
+	 * @param values    value of each variable
+	 * @return the commands to send
+	 */
+	public static List<DispatchVariable> decide(List<DispatchVariable> variables, double[] values) {
+		ArrayList<DispatchVariable> decision = new ArrayList<>();
+		for (int i = 0; i < values.length; i++) {
+			DispatchVariable v = variables.get(i);
+			if (values[i] > (v.getPower() > 0 ? FREE_THRESHOLD : USE_THRESHOLD))
+				decision.add(v);
+		}
+		return decision;
+	}
+}
@@ -0,0 +1,84 @@
+package main.java.components.controller.utils;
+
+import java.time.Duration;
+import java.util.Comparator;
+
+import main.java.components.controller.strategies.EquipmentInfo;
+
+/**
+ * The class <code>PlannedJob</code> is a planned program of a deferrable
+ * equipment considered for postponement, with its slack : the time by which it
+ * can be postponed and still finish before its deadline (deadline - start
+ * time - duration).
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class PlannedJob {
+
+	/**
+	 * order of the jobs to postpone : the most slack first, the biggest
+	 * consumption first on equal slack
+	 */
+	public static final Comparator<PlannedJob> MOST_SLACK_FIRST = Comparator
+			.comparing(PlannedJob::getSlack, Comparator.reverseOrder())
+			.thenComparing(Comparator.comparingDouble(PlannedJob::getNominalConsumption).reversed());
+
+	/**
+	 * equipment running the program
+	 */
+	protected final EquipmentInfo equipment;
+
+	/**
+	 * slack of the program
+	 */
+	protected final Duration slack;
+
+	/**
+	 * Constructor of the job
+	 * 
+	 * @param equipment equipment running the program
+	 * @param slack     slack of the program
+	 */
+	public PlannedJob(EquipmentInfo equipment, Duration slack) {
+		assert equipment != null && slack != null;
+		this.equipment = equipment;
+		this.slack = slack;
+	}
+
+	/**
+	 * Return the equipment running the program
+	 * 
+	 * @return the equipment running the program
+	 */
+	public EquipmentInfo getEquipment() {
+		return equipment;
+	}
+
+	/**
+	 * Return the slack of the program
+	 * 
+	 * @return the slack of the program
+	 */
+	public Duration getSlack() {
+		return slack;
+	}
+
+	/**
+	 * Return the nominal consumption of the equipment, the power freed by
+	 * postponing its program
+	 * 
+	 * @return the nominal consumption in watts
+	 */
+	public double getNominalConsumption() {
+		return equipment.getNominalConsumption();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "PlannedJob[" + equipment.getSerialNumber() + ", slack=" + slack + "]";
+	}
+}
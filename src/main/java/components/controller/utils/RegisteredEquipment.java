@@ -0,0 +1,199 @@
+package main.java.components.controller.utils;
+
+import main.java.components.controller.interfaces.StandardEquipmentControlCI;
+import main.java.components.controller.strategies.EquipmentInfo;
+
+/**
+ * The class <code>RegisteredEquipment</code> describes an equipment registered
+ * to the controller : its serial number, its role and the outbound port used to
+ * control it.
+ * 
+ * @author Bello Memmi
+ *
+ * @param <T> type of the outbound port controlling the equipment
+ */
+public class RegisteredEquipment<T extends StandardEquipmentControlCI> implements EquipmentInfo {
+
+	/**
+	 * serial number of the equipment
+	 */
+	protected final String serialNumber;
+
+	/**
+	 * role of the equipment, decided once at registration
+	 */
+	protected final EquipmentRole role;
+
+	/**
+	 * outbound port connected to the equipment
+	 */
+	protected final T port;
+
+	/**
+	 * descriptor of the adapter of the equipment
+	 */
+	protected final AdapterDescriptor adapter;
+
+	/**
+	 * state of the equipment known by the controller
+	 */
+	protected final EquipmentState state;
+
+	/**
+	 * breaker stopping the commands to the equipment when it keeps failing
+	 */
+	protected final CircuitBreaker breaker;
+
+	/**
+	 * latencies of the calls to the equipment
+	 */
+	protected final LatencyHistogram latencies;
+
+	/**
+	 * Constructor of the registered equipment
+	 * 
+	 * @param serialNumber serial number of the equipment
+	 * @param role         role of the equipment
+	 * @param port         outbound port connected to the equipment
+	 * @param adapter      descriptor of the adapter of the equipment
+	 */
+	public RegisteredEquipment(String serialNumber, EquipmentRole role, T port, AdapterDescriptor adapter) {
+		assert serialNumber != null && role != null && port != null && adapter != null;
+		this.serialNumber = serialNumber;
+		this.role = role;
+		this.port = port;
+		this.adapter = adapter;
+		this.state = new EquipmentState(adapter.getNumberOfModes(), EquipmentState.DEFAULT_VALIDITY);
+		this.breaker = new CircuitBreaker();
+		this.latencies = new LatencyHistogram();
+	}
+
+	/**
+	 * Return the serial number of the equipment
+	 * 
+	 * @return the serial number of the equipment
+	 */
+	@Override
+	public String getSerialNumber() {
+		return serialNumber;
+	}
+
+	/**
+	 * Return the role of the equipment
+	 * 
+	 * @return the role of the equipment
+	 */
+	@Override
+	public EquipmentRole getRole() {
+		return role;
+	}
+
+	/**
+	 * Return the outbound port connected to the equipment
+	 * 
+	 * @return the outbound port connected to the equipment
+	 */
+	public T getPort() {
+		return port;
+	}
+
+	/**
+	 * Return the descriptor of the adapter of the equipment
+	 * 
+	 * @return the descriptor of the adapter of the equipment
+	 */
+	@Override
+	public AdapterDescriptor getAdapter() {
+		return adapter;
+	}
+
+	/**
+	 * Return the nominal consumption of the equipment declared by its adapter
+	 * 
+	 * @return the nominal consumption in watts, 0 if not declared
+	 */
+	@Override
+	public double getNominalConsumption() {
+		double nominal = adapter.getNominalConsumption();
+		return Double.isNaN(nominal) ? 0 : nominal;
+	}
+
+	/**
+	 * Return an estimation of the power freed by lowering the mode of the
+	 * equipment : the difference between the consumptions of the mode and of the
+	 * mode below when the adapter declares them, else the nominal consumption
+	 * spread over the modes
+	 * 
+	 * @param mode actual mode of the equipment, EquipmentState.UNKNOWN_MODE if
+	 *             unknown
+	 * @return the power freed in watts, 0 if it can't be estimated or if the
+	 *         equipment is already in its lowest mode
+	 */
+	@Override
+	public double getDownModeGain(int mode) {
+		if (mode == 0)
+			return 0;
+		double gain = adapter.getModeConsumption(mode) - adapter.getModeConsumption(mode - 1);
+		if (!Double.isNaN(gain))
+			return Math.max(gain, 0);
+		int modes = adapter.getNumberOfModes();
+		return getNominalConsumption() / (modes > 1 ? modes - 1 : 1);
+	}
+
+	/**
+	 * Return an estimation of the power used by raising the mode of the
+	 * equipment, estimated like {@link #getDownModeGain(int)}
+	 * 
+	 * @param mode actual mode of the equipment, EquipmentState.UNKNOWN_MODE if
+	 *             unknown
+	 * @return the power used in watts, 0 if it can't be estimated or if the
+	 *         equipment is already in its highest mode
+	 */
+	@Override
+	public double getUpModeCost(int mode) {
+		int modes = adapter.getNumberOfModes();
+		if (mode != EquipmentState.UNKNOWN_MODE && mode >= modes - 1)
+			return 0;
+		double cost = adapter.getModeConsumption(mode + 1) - adapter.getModeConsumption(mode);
+		if (!Double.isNaN(cost))
+			return Math.max(cost, 0);
+		return getNominalConsumption() / (modes > 1 ? modes - 1 : 1);
+	}
+
+	/**
+	 * Return the state of the equipment known by the controller
+	 * 
+	 * @return the state of the equipment
+	 */
+	@Override
+	public EquipmentState getState() {
+		return state;
+	}
+
+	/**
+	 * Return the circuit breaker of the equipment
+	 * 
+	 * @return the circuit breaker of the equipment
+	 */
+	@Override
+	public CircuitBreaker getBreaker() {
+		return breaker;
+	}
+
+	/**
+	 * Return the latencies of the calls to the equipment
+	 * 
+	 * @return the latencies of the calls to the equipment
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "RegisteredEquipment[" + serialNumber + ", " + role + "]";
+	}
+}
@@ -0,0 +1,57 @@
+package main.java.components.controller.utils;
+
+import java.io.Serializable;
+
+/**
+ * The class <code>RegistrationRequest</code> holds what an equipment gives to
+ * register to the controller, so that many equipments can be registered in a
+ * single call.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class RegistrationRequest implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * serial number of the equipment
+	 */
+	protected final String serialNumber;
+
+	/**
+	 * inbound port uri of the equipment
+	 */
+	protected final String inboundPortURI;
+
+	/**
+	 * adapter describing the control of the equipment
+	 */
+	protected final String xmlFile;
+
+	/**
+	 * Constructor of the registration request
+	 * 
+	 * @param serialNumber   serial number of the equipment
+	 * @param inboundPortURI inbound port uri of the equipment
+	 * @param xmlFile        adapter describing the control of the equipment
+	 */
+	public RegistrationRequest(String serialNumber, String inboundPortURI, String xmlFile) {
+		assert serialNumber != null && inboundPortURI != null && xmlFile != null;
+		this.serialNumber = serialNumber;
+		this.inboundPortURI = inboundPortURI;
+		this.xmlFile = xmlFile;
+	}
+
+	public String getSerialNumber() {
+		return serialNumber;
+	}
+
+	public String getInboundPortURI() {
+		return inboundPortURI;
+	}
+
+	public String getXmlFile() {
+		return xmlFile;
+	}
+}
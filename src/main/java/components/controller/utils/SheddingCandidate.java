@@ -0,0 +1,70 @@
+package main.java.components.controller.utils;
+
+import java.util.Comparator;
+
+import main.java.components.controller.strategies.EquipmentInfo;
+
+/**
+ * The class <code>SheddingCandidate</code> is an equipment considered for a
+ * lower mode when the house lacks energy, with the power it would free.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class SheddingCandidate {
+
+	/**
+	 * order of the equipments to shed : the biggest gain first, so the fewest
+	 * equipments are degraded to cover a deficit
+	 */
+	public static final Comparator<SheddingCandidate> BIGGEST_GAIN_FIRST = Comparator
+			.comparingDouble(SheddingCandidate::getGain).reversed();
+
+	/**
+	 * equipment to shed
+	 */
+	protected final EquipmentInfo equipment;
+
+	/**
+	 * power freed by lowering the mode of the equipment in watts
+	 */
+	protected final double gain;
+
+	/**
+	 * Constructor of the candidate
+	 * 
+	 * @param equipment equipment to shed
+	 * @param gain      power freed by lowering its mode in watts
+	 */
+	public SheddingCandidate(EquipmentInfo equipment, double gain) {
+		assert equipment != null;
+		this.equipment = equipment;
+		this.gain = gain;
+	}
+
+	/**
+	 * Return the equipment to shed
+	 * 
+	 * @return the equipment to shed
+	 */
+	public EquipmentInfo getEquipment() {
+		return equipment;
+	}
+
+	/**
+	 * Return the power freed by lowering the mode of the equipment
+	 * 
+	 * @return the power freed in watts
+	 */
+	public double getGain() {
+		return gain;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "SheddingCandidate[" + equipment.getSerialNumber() + ", gain=" + gain + "]";
+	}
+}
@@ -1,15 +1,31 @@
 package main.java.components.electricMeter;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import fr.sorbonne_u.components.annotations.OfferedInterfaces;
+import fr.sorbonne_u.components.annotations.RequiredInterfaces;
 import fr.sorbonne_u.components.cyphy.AbstractCyPhyComponent;
 import fr.sorbonne_u.components.exceptions.ComponentShutdownException;
 import fr.sorbonne_u.components.exceptions.ComponentStartException;
+import main.java.components.electricMeter.connectors.ElectricMeterNotificationConnector;
 import main.java.components.electricMeter.interfaces.ElectricMeterCI;
 import main.java.components.electricMeter.interfaces.ElectricMeterImplementationI;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationCI;
 import main.java.components.electricMeter.ports.ElectricMeterInboundPort;
+import main.java.components.electricMeter.ports.ElectricMeterNotificationOutboundPort;
 import main.java.components.electricMeter.sil.ElectricMeterRTAtomicSimulatorPlugin;
 import main.java.components.electricMeter.sil.ElectricMeterSILCoupledModel;
 import main.java.components.electricMeter.sil.ElectricMeterSILModel;
+import main.java.components.electricMeter.sil.MeterRegistry;
+import main.java.components.electricMeter.utils.BalanceSubscription;
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+import main.java.components.electricMeter.utils.MeterHistory;
+import main.java.components.electricMeter.utils.MeterStore;
+import main.java.components.electricMeter.utils.MeteredDevice;
 
 /**
  * The class <code>ElectricMeter</code> implements the electric meter component.
@@ -20,6 +36,7 @@ import main.java.components.electricMeter.sil.ElectricMeterSILModel;
  *
  */
 @OfferedInterfaces(offered = { ElectricMeterCI.class })
+@RequiredInterfaces(required = { ElectricMeterNotificationCI.class })
 public class ElectricMeter extends AbstractCyPhyComponent implements ElectricMeterImplementationI {
 
 	// -------------------------------------------------------------------------
@@ -43,11 +60,39 @@ public class ElectricMeter extends AbstractCyPhyComponent implements ElectricMet
 	 */
 	protected static final String SCHEDULED_EXECUTOR_SERVICE_URI = "ses";
 
+	/**
+	 * system property giving the directory of the meter store, an empty path
+	 * disabling it
+	 */
+	public static final String STORE_PROPERTY = "electricMeter.store";
+
+	/**
+	 * default directory of the meter store
+	 */
+	public static final String DEFAULT_STORE = "simulationLogs/electricMeter.store";
+
 	/**
 	 * uri of the inbound port for use electric meter services
 	 */
 	protected ElectricMeterInboundPort eip;
 
+	/**
+	 * subscriptions to the energy balance notifications, iterated by the
+	 * simulation thread while subscribe adds to them
+	 */
+	protected CopyOnWriteArrayList<BalanceSubscription> subscriptions;
+
+	/**
+	 * recent production and consumption of the house, fed by the simulation
+	 * model on each computation
+	 */
+	protected final MeterHistory history;
+
+	/**
+	 * persistent time series of the readings, null if disabled
+	 */
+	protected MeterStore store;
+
 	// -------------------------------------------------------------------------
 	// Constructors
 	// -------------------------------------------------------------------------
@@ -65,6 +110,21 @@ public class ElectricMeter extends AbstractCyPhyComponent implements ElectricMet
 
 		this.eip = new ElectricMeterInboundPort(eipURI, this);
 		this.eip.publishPort();
+		this.subscriptions = new CopyOnWriteArrayList<>();
+		this.history = new MeterHistory();
+		String storeDirectory = System.getProperty(STORE_PROPERTY, DEFAULT_STORE);
+		if (!storeDirectory.isEmpty()) {
+			List<MeteredDevice> devices = MeterRegistry.getDevices();
+			String[] names = new String[devices.size()];
+			for (int i = 0; i < names.length; i++)
+				names[i] = devices.get(i).getSinkVariable();
+			try {
+				this.store = new MeterStore(Paths.get(storeDirectory), names);
+			} catch (IOException e) {
+				// the electric meter works without its store
+				this.logMessage("meter store " + storeDirectory + " not opened : " + e);
+			}
+		}
 
 		this.tracer.get().setTitle("Electric meter component");
 		this.tracer.get().setRelativePosition(2, 0);
@@ -98,6 +158,20 @@ public class ElectricMeter extends AbstractCyPhyComponent implements ElectricMet
 		}
 	}
 
+	/**
+	 * @see fr.sorbonne_u.components.AbstractComponent#finalise()
+	 */
+	@Override
+	public synchronized void finalise() throws Exception {
+		for (BalanceSubscription subscription : this.subscriptions)
+			subscription.getPort().doDisconnection();
+		if (this.store != null) {
+			this.store.close();
+			this.logMessage(this.store.getAppended() + " readings written to the meter store");
+		}
+		super.finalise();
+	}
+
 	/**
 	 * @see fr.sorbonne_u.components.AbstractComponent#shutdown()
 	 */
@@ -105,6 +179,8 @@ public class ElectricMeter extends AbstractCyPhyComponent implements ElectricMet
 	public synchronized void shutdown() throws ComponentShutdownException {
 		try {
 			this.eip.unpublishPort();
+			for (BalanceSubscription subscription : this.subscriptions)
+				subscription.getPort().unpublishPort();
 		} catch (Exception e) {
 			throw new ComponentShutdownException(e);
 		}
@@ -131,5 +207,92 @@ public class ElectricMeter extends AbstractCyPhyComponent implements ElectricMet
 		return currentIntensity;
 	}
 
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getSnapshot()
+	 */
+	@Override
+	public ElectricMeterSnapshot getSnapshot() throws Exception {
+		return (ElectricMeterSnapshot) this.simulatorPlugin.getModelStateValue(ElectricMeterSILModel.URI,
+				ElectricMeterRTAtomicSimulatorPlugin.SNAPSHOT_VARIABLE_NAME);
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getEnergy()
+	 */
+	@Override
+	public ElectricMeterEnergy getEnergy() throws Exception {
+		return (ElectricMeterEnergy) this.simulatorPlugin.getModelStateValue(ElectricMeterSILModel.URI,
+				ElectricMeterRTAtomicSimulatorPlugin.ENERGY_VARIABLE_NAME);
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#subscribe(String,
+	 *      double)
+	 */
+	@Override
+	public void subscribe(String notificationInboundPortURI, double threshold) throws Exception {
+		ElectricMeterNotificationOutboundPort enop = new ElectricMeterNotificationOutboundPort(this);
+		enop.localPublishPort();
+		this.doPortConnection(enop.getPortURI(), notificationInboundPortURI,
+				ElectricMeterNotificationConnector.class.getCanonicalName());
+		this.subscriptions.add(new BalanceSubscription(enop, threshold));
+		this.logMessage("new balance subscriber : " + notificationInboundPortURI);
+	}
+
+	/**
+	 * Return the recent production and consumption of the house
+	 *
+	 * @return the history of the electric meter
+	 */
+	public MeterHistory getHistory() {
+		return this.history;
+	}
+
+	/**
+	 * Called by the simulation model on each computation, changed or not, record
+	 * the reading in the history and the store
+	 *
+	 * @param simulatedTime simulated time of the computation in seconds
+	 * @param production    the actual energy production of the house
+	 * @param consumption   the actual energy consumption of the house
+	 * @param devices       the value of each device, by id in the
+	 *                      {@link MeterRegistry}
+	 */
+	public void readingComputed(double simulatedTime, double production, double consumption, double[] devices) {
+		this.history.record(simulatedTime, production, consumption);
+		if (this.store != null) {
+			try {
+				this.store.append(simulatedTime, production, consumption, devices);
+			} catch (IOException e) {
+				this.logMessage("meter store disabled : " + e);
+				this.store = null;
+			}
+		}
+	}
+
+	/**
+	 * Called by the simulation model each time the production and consumption of
+	 * the house change, push the balance to the subscribers for which it
+	 * changed enough since their last notification
+	 * 
+	 * @param snapshot the production and consumption of the house at the
+	 *                 simulated time of the computation
+	 */
+	public void balanceComputed(ElectricMeterSnapshot snapshot) {
+		double balance = snapshot.getBalance();
+		for (BalanceSubscription subscription : this.subscriptions) {
+			if (subscription.shouldNotify(balance)) {
+				// send the notification outside of the simulation thread
+				this.runTask(o -> {
+					try {
+						subscription.getPort().balanceChanged(snapshot);
+					} catch (Exception e) {
+						this.logMessage("balance notification failed : " + e);
+					}
+				});
+			}
+		}
+	}
+
 }
 // -----------------------------------------------------------------------------
@@ -2,6 +2,8 @@ package main.java.components.electricMeter.connectors;
 
 import fr.sorbonne_u.components.connectors.AbstractConnector;
 import main.java.components.electricMeter.interfaces.ElectricMeterCI;
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
 
 /**
  * The class <code>ElectricMeterConnector</code> implements a connector for the
@@ -28,4 +30,29 @@ public class ElectricMeterConnector extends AbstractConnector implements Electri
 		return ((ElectricMeterCI) this.offering).getIntensity();
 	}
 
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getSnapshot()
+	 */
+	@Override
+	public ElectricMeterSnapshot getSnapshot() throws Exception {
+		return ((ElectricMeterCI) this.offering).getSnapshot();
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getEnergy()
+	 */
+	@Override
+	public ElectricMeterEnergy getEnergy() throws Exception {
+		return ((ElectricMeterCI) this.offering).getEnergy();
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#subscribe(String,
+	 *      double)
+	 */
+	@Override
+	public void subscribe(String notificationInboundPortURI, double threshold) throws Exception {
+		((ElectricMeterCI) this.offering).subscribe(notificationInboundPortURI, threshold);
+	}
+
 }
@@ -0,0 +1,25 @@
+package main.java.components.electricMeter.connectors;
+
+import fr.sorbonne_u.components.connectors.AbstractConnector;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationCI;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * The class <code>ElectricMeterNotificationConnector</code> implements a
+ * connector for the component interface
+ * <code>ElectricMeterNotificationCI</code>.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ElectricMeterNotificationConnector extends AbstractConnector implements ElectricMeterNotificationCI {
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI#balanceChanged(ElectricMeterSnapshot)
+	 */
+	@Override
+	public void balanceChanged(ElectricMeterSnapshot snapshot) throws Exception {
+		((ElectricMeterNotificationCI) this.offering).balanceChanged(snapshot);
+	}
+
+}
@@ -3,6 +3,8 @@ package main.java.components.electricMeter.interfaces;
 import fr.sorbonne_u.components.interfaces.OfferedCI;
 import fr.sorbonne_u.components.interfaces.RequiredCI;
 import main.java.components.electricMeter.ElectricMeter;
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
 
 /**
  * 
@@ -25,4 +27,23 @@ public interface ElectricMeterCI extends ElectricMeterImplementationI, OfferedCI
 	 */
 	@Override
 	public double getIntensity() throws Exception;
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getSnapshot()
+	 */
+	@Override
+	public ElectricMeterSnapshot getSnapshot() throws Exception;
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getEnergy()
+	 */
+	@Override
+	public ElectricMeterEnergy getEnergy() throws Exception;
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#subscribe(String,
+	 *      double)
+	 */
+	@Override
+	public void subscribe(String notificationInboundPortURI, double threshold) throws Exception;
 }
@@ -1,5 +1,8 @@
 package main.java.components.electricMeter.interfaces;
 
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
 /**
  * 
  * The interface <code>ElectricMeterImplementationI</code> defines the service
@@ -30,4 +33,29 @@ public interface ElectricMeterImplementationI {
 	 */
 	public double getIntensity() throws Exception;
 
+	/**
+	 * Return the actual production and consumption of the house, with their
+	 * breakdown per source, all computed at the same simulated time
+	 * 
+	 * @return a snapshot of the electric meter
+	 * @throws Exception
+	 */
+	public ElectricMeterSnapshot getSnapshot() throws Exception;
+
+	public ElectricMeterEnergy getEnergy() throws Exception;
+
+	/**
+	 * Subscribe to the energy balance notifications, the subscriber is notified
+	 * through its inbound port each time the balance (production - consumption)
+	 * changes of sign or moves more than <code>threshold</code> since the last
+	 * notification it received
+	 * 
+	 * @param notificationInboundPortURI uri of the inbound port of the subscriber
+	 *                                   offering <code>ElectricMeterNotificationCI</code>
+	 * @param threshold                  minimal balance variation (in amperes)
+	 *                                   triggering a notification
+	 * @throws Exception
+	 */
+	public void subscribe(String notificationInboundPortURI, double threshold) throws Exception;
+
 }
@@ -0,0 +1,24 @@
+package main.java.components.electricMeter.interfaces;
+
+import fr.sorbonne_u.components.interfaces.OfferedCI;
+import fr.sorbonne_u.components.interfaces.RequiredCI;
+import main.java.components.electricMeter.ElectricMeter;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * 
+ * The component interface <code>ElectricMeterNotificationCI</code> defines the
+ * service called by the {@link ElectricMeter} component to push the energy
+ * balance of the house to its subscribers.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public interface ElectricMeterNotificationCI extends ElectricMeterNotificationImplementationI, OfferedCI, RequiredCI {
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI#balanceChanged(ElectricMeterSnapshot)
+	 */
+	@Override
+	public void balanceChanged(ElectricMeterSnapshot snapshot) throws Exception;
+}
@@ -0,0 +1,32 @@
+package main.java.components.electricMeter.interfaces;
+
+import main.java.components.electricMeter.ElectricMeter;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * 
+ * The interface <code>ElectricMeterNotificationImplementationI</code> defines
+ * the service that must be implemented by a component subscribing to the
+ * energy balance notifications of the {@link ElectricMeter} component.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public interface ElectricMeterNotificationImplementationI {
+
+	// -------------------------------------------------------------------------
+	// Component services signatures
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Called by the electric meter when the energy balance of the house
+	 * (production - consumption) has changed of sign or has moved more than the
+	 * threshold given at subscription since the last notification
+	 * 
+	 * @param snapshot the production and consumption of the house at the
+	 *                 simulated time of the change
+	 * @throws Exception
+	 */
+	public void balanceChanged(ElectricMeterSnapshot snapshot) throws Exception;
+
+}
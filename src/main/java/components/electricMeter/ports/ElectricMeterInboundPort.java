@@ -4,6 +4,8 @@ import fr.sorbonne_u.components.ComponentI;
 import fr.sorbonne_u.components.ports.AbstractInboundPort;
 import main.java.components.electricMeter.ElectricMeter;
 import main.java.components.electricMeter.interfaces.ElectricMeterCI;
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
 
 /**
  * 
@@ -44,4 +46,32 @@ public class ElectricMeterInboundPort extends AbstractInboundPort implements Ele
 		return this.getOwner().handleRequestSync(owner -> ((ElectricMeter) owner).getIntensity());
 	}
 
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getSnapshot()
+	 */
+	@Override
+	public ElectricMeterSnapshot getSnapshot() throws Exception {
+		return this.getOwner().handleRequestSync(owner -> ((ElectricMeter) owner).getSnapshot());
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getEnergy()
+	 */
+	@Override
+	public ElectricMeterEnergy getEnergy() throws Exception {
+		return this.getOwner().handleRequestSync(owner -> ((ElectricMeter) owner).getEnergy());
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#subscribe(String,
+	 *      double)
+	 */
+	@Override
+	public void subscribe(String notificationInboundPortURI, double threshold) throws Exception {
+		this.getOwner().handleRequestSync(owner -> {
+			((ElectricMeter) owner).subscribe(notificationInboundPortURI, threshold);
+			return null;
+		});
+	}
+
 }
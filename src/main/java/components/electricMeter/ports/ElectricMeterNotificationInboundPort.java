@@ -0,0 +1,55 @@
+package main.java.components.electricMeter.ports;
+
+import fr.sorbonne_u.components.ComponentI;
+import fr.sorbonne_u.components.ports.AbstractInboundPort;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationCI;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * 
+ * The class <code>ElectricMeterNotificationInboundPort</code> implements an
+ * inbound port for the component interface
+ * <code>ElectricMeterNotificationCI</code>, used by the subscribers of the
+ * electric meter.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ElectricMeterNotificationInboundPort extends AbstractInboundPort implements ElectricMeterNotificationCI {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Index of the thread pool for running services
+	 */
+	protected final int executorIndex;
+
+	/**
+	 * Constructor of the ElectricMeterNotificationInboundPort
+	 * 
+	 * @param executorIndex index of the thread pool for running services
+	 * @param owner         owner component
+	 * @throws Exception
+	 */
+	public ElectricMeterNotificationInboundPort(int executorIndex, ComponentI owner) throws Exception {
+		super(ElectricMeterNotificationCI.class, owner);
+		assert owner instanceof ElectricMeterNotificationImplementationI;
+		this.executorIndex = executorIndex;
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI#balanceChanged(ElectricMeterSnapshot)
+	 */
+	@Override
+	public void balanceChanged(ElectricMeterSnapshot snapshot) throws Exception {
+		this.getOwner().runTask(executorIndex, owner -> {
+			try {
+				((ElectricMeterNotificationImplementationI) owner).balanceChanged(snapshot);
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+	}
+
+}
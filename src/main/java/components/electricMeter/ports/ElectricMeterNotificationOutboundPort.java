@@ -0,0 +1,39 @@
+package main.java.components.electricMeter.ports;
+
+import fr.sorbonne_u.components.ComponentI;
+import fr.sorbonne_u.components.ports.AbstractOutboundPort;
+import main.java.components.electricMeter.interfaces.ElectricMeterNotificationCI;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+
+/**
+ * The class <code>ElectricMeterNotificationOutboundPort</code> implements an
+ * outbound port for the component interface
+ * <code>ElectricMeterNotificationCI</code>, used by the electric meter to
+ * notify its subscribers.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ElectricMeterNotificationOutboundPort extends AbstractOutboundPort implements ElectricMeterNotificationCI {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor of the electric meter notification outbound port
+	 *
+	 * @param owner owner component
+	 * @throws Exception
+	 */
+	public ElectricMeterNotificationOutboundPort(ComponentI owner) throws Exception {
+		super(ElectricMeterNotificationCI.class, owner);
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterNotificationImplementationI#balanceChanged(ElectricMeterSnapshot)
+	 */
+	@Override
+	public void balanceChanged(ElectricMeterSnapshot snapshot) throws Exception {
+		((ElectricMeterNotificationCI) this.getConnector()).balanceChanged(snapshot);
+	}
+
+}
@@ -3,6 +3,8 @@ package main.java.components.electricMeter.ports;
 import fr.sorbonne_u.components.ComponentI;
 import fr.sorbonne_u.components.ports.AbstractOutboundPort;
 import main.java.components.electricMeter.interfaces.ElectricMeterCI;
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
 
 /**
  * The class <code>ElectricMeterOutboundPort</code> implements an outbound port
@@ -41,4 +43,29 @@ public class ElectricMeterOutboundPort extends AbstractOutboundPort implements E
 		return ((ElectricMeterCI) this.getConnector()).getIntensity();
 	}
 
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getSnapshot()
+	 */
+	@Override
+	public ElectricMeterSnapshot getSnapshot() throws Exception {
+		return ((ElectricMeterCI) this.getConnector()).getSnapshot();
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#getEnergy()
+	 */
+	@Override
+	public ElectricMeterEnergy getEnergy() throws Exception {
+		return ((ElectricMeterCI) this.getConnector()).getEnergy();
+	}
+
+	/**
+	 * @see main.java.components.electricMeter.interfaces.ElectricMeterImplementationI#subscribe(String,
+	 *      double)
+	 */
+	@Override
+	public void subscribe(String notificationInboundPortURI, double threshold) throws Exception {
+		((ElectricMeterCI) this.getConnector()).subscribe(notificationInboundPortURI, threshold);
+	}
+
 }
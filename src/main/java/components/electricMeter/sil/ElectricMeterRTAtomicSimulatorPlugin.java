@@ -1,7 +1,9 @@
 package main.java.components.electricMeter.sil;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -14,31 +16,15 @@ import fr.sorbonne_u.devs_simulation.hioa.architectures.RTCoupledHIOA_Descriptor
 import fr.sorbonne_u.devs_simulation.hioa.models.vars.VariableSink;
 import fr.sorbonne_u.devs_simulation.hioa.models.vars.VariableSource;
 import fr.sorbonne_u.devs_simulation.interfaces.ModelDescriptionI;
+import fr.sorbonne_u.devs_simulation.models.AtomicModel;
 import fr.sorbonne_u.devs_simulation.models.architectures.AbstractAtomicModelDescriptor;
 import fr.sorbonne_u.devs_simulation.models.architectures.CoupledModelDescriptor;
 import fr.sorbonne_u.devs_simulation.models.events.EventI;
 import fr.sorbonne_u.devs_simulation.models.events.EventSink;
-import main.java.components.battery.sil.BatteryElectricalSILModel;
-import main.java.components.battery.sil.events.SetDraining;
-import main.java.components.battery.sil.events.SetRecharging;
-import main.java.components.battery.sil.events.SetSleeping;
-import main.java.components.fan.sil.FanElectricalSILModel;
+import main.java.components.electricMeter.utils.MeteredDevice;
 import main.java.components.fan.sil.FanUserSILModel;
-import main.java.components.fan.sil.events.SetHigh;
-import main.java.components.fan.sil.events.SetLow;
-import main.java.components.fan.sil.events.SetMid;
-import main.java.components.fan.sil.events.TurnOff;
-import main.java.components.fan.sil.events.TurnOn;
-import main.java.components.fridge.sil.FridgeElectricalSILModel;
 import main.java.components.fridge.sil.FridgeTemperatureSILModel;
-import main.java.components.fridge.sil.events.Activate;
-import main.java.components.fridge.sil.events.Passivate;
-import main.java.components.fridge.sil.events.SetEco;
-import main.java.components.fridge.sil.events.SetNormal;
-import main.java.components.petrolGenerator.sil.PetrolGeneratorElectricalSILModel;
 import main.java.components.petrolGenerator.sil.PetrolGeneratorUserSILModel;
-import main.java.components.solarPanels.sil.SolarPanelsElectricalSILModel;
-import main.java.components.washer.sil.WasherElectricalSILModel;
 import main.java.components.washer.sil.WasherUserSILModel;
 import main.java.deployment.RunSILSimulation;
 
@@ -63,6 +49,16 @@ public class ElectricMeterRTAtomicSimulatorPlugin extends RTAtomicSimulatorPlugi
 	 */
 	public static final String INTENSITY_VARIABLE_NAME = "intensity";
 	public static final String PRODUCTION_VARIABLE_NAME = "production";
+	/**
+	 * name of the snapshot variable, giving production, consumption and their
+	 * breakdown computed at the same time.
+	 */
+	public static final String SNAPSHOT_VARIABLE_NAME = "snapshot";
+	/**
+	 * name of the energy variable, giving the energy produced and consumed by
+	 * each device since the beginning of the simulation.
+	 */
+	public static final String ENERGY_VARIABLE_NAME = "energy";
 
 	// -------------------------------------------------------------------------
 	// Constructors
@@ -114,10 +110,15 @@ public class ElectricMeterRTAtomicSimulatorPlugin extends RTAtomicSimulatorPlugi
 		// The only model in this example that provides access to some value
 		// is the ElectricMeterSILModel.
 		assert m instanceof ElectricMeterSILModel;
-		assert name.equals(INTENSITY_VARIABLE_NAME) || name.equals(PRODUCTION_VARIABLE_NAME);
+		assert name.equals(INTENSITY_VARIABLE_NAME) || name.equals(PRODUCTION_VARIABLE_NAME)
+				|| name.equals(SNAPSHOT_VARIABLE_NAME) || name.equals(ENERGY_VARIABLE_NAME);
 
 		if (name.equals(INTENSITY_VARIABLE_NAME)) {
 			return ((ElectricMeterSILModel) m).getIntensity();
+		} else if (name.equals(SNAPSHOT_VARIABLE_NAME)) {
+			return ((ElectricMeterSILModel) m).getSnapshot();
+		} else if (name.equals(ENERGY_VARIABLE_NAME)) {
+			return ((ElectricMeterSILModel) m).getEnergy();
 		} else {
 			return ((ElectricMeterSILModel) m).getProduction();
 		}
@@ -133,117 +134,44 @@ public class ElectricMeterRTAtomicSimulatorPlugin extends RTAtomicSimulatorPlugi
 
 		Set<String> submodels = new HashSet<String>();
 		submodels.add(ElectricMeterSILModel.URI);
-		submodels.add(FanElectricalSILModel.URI);
-		submodels.add(SolarPanelsElectricalSILModel.URI);
-		submodels.add(PetrolGeneratorElectricalSILModel.URI);
-		submodels.add(BatteryElectricalSILModel.URI);
-		submodels.add(WasherElectricalSILModel.URI);
-		submodels.add(FridgeElectricalSILModel.URI);
-
 		atomicModelDescriptors.put(ElectricMeterSILModel.URI,
 				RTAtomicHIOA_Descriptor.create(ElectricMeterSILModel.class, ElectricMeterSILModel.URI, TimeUnit.SECONDS,
 						null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE, RunSILSimulation.ACC_FACTOR));
-		atomicModelDescriptors.put(FanElectricalSILModel.URI,
-				RTAtomicHIOA_Descriptor.create(FanElectricalSILModel.class, FanElectricalSILModel.URI, TimeUnit.SECONDS,
-						null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE, RunSILSimulation.ACC_FACTOR));
-		atomicModelDescriptors.put(SolarPanelsElectricalSILModel.URI,
-				RTAtomicHIOA_Descriptor.create(SolarPanelsElectricalSILModel.class, SolarPanelsElectricalSILModel.URI,
-						TimeUnit.SECONDS, null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE,
-						RunSILSimulation.ACC_FACTOR));
-		atomicModelDescriptors.put(PetrolGeneratorElectricalSILModel.URI,
-				RTAtomicHIOA_Descriptor.create(PetrolGeneratorElectricalSILModel.class,
-						PetrolGeneratorElectricalSILModel.URI, TimeUnit.SECONDS, null,
-						SimulationEngineCreationMode.ATOMIC_RT_ENGINE, RunSILSimulation.ACC_FACTOR));
-		atomicModelDescriptors.put(BatteryElectricalSILModel.URI,
-				RTAtomicHIOA_Descriptor.create(BatteryElectricalSILModel.class, BatteryElectricalSILModel.URI,
-						TimeUnit.SECONDS, null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE,
-						RunSILSimulation.ACC_FACTOR));
-		atomicModelDescriptors.put(WasherElectricalSILModel.URI,
-				RTAtomicHIOA_Descriptor.create(WasherElectricalSILModel.class, WasherElectricalSILModel.URI,
-						TimeUnit.SECONDS, null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE,
-						RunSILSimulation.ACC_FACTOR));
-		atomicModelDescriptors.put(FridgeElectricalSILModel.URI,
-				RTAtomicHIOA_Descriptor.create(FridgeElectricalSILModel.class, FridgeElectricalSILModel.URI,
-						TimeUnit.SECONDS, null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE,
-						RunSILSimulation.ACC_FACTOR));
+		// the electrical models of the metered devices, a model metered twice
+		// being described once
+		List<MeteredDevice> devices = MeterRegistry.getDevices();
+		for (MeteredDevice device : devices) {
+			if (submodels.add(device.getModelURI()))
+				atomicModelDescriptors.put(device.getModelURI(),
+						RTAtomicHIOA_Descriptor.create(device.getModelClass(), device.getModelURI(), TimeUnit.SECONDS,
+								null, SimulationEngineCreationMode.ATOMIC_RT_ENGINE, RunSILSimulation.ACC_FACTOR));
+		}
 
+		// the events imported by the electrical model of each metered device are
+		// routed to it, and also tell the electric meter when to compute
+		Map<Class<? extends EventI>, List<EventSink>> sinks = new HashMap<>();
+		Set<String> routed = new HashSet<String>();
+		for (MeteredDevice device : devices) {
+			if (routed.add(device.getModelURI())) {
+				for (Class<? extends EventI> event : AtomicModel.getImportedEventTypes(device.getModelClass()))
+					sinks.computeIfAbsent(event, e -> new ArrayList<>())
+							.add(new EventSink(device.getModelURI(), event));
+			}
+		}
+		for (Class<? extends EventI> event : ElectricMeterSILModel.getDeviceEventTypes())
+			sinks.computeIfAbsent(event, e -> new ArrayList<>()).add(new EventSink(ElectricMeterSILModel.URI, event));
 		Map<Class<? extends EventI>, EventSink[]> imported = new HashMap<Class<? extends EventI>, EventSink[]>();
-		// fan
-		imported.put(TurnOn.class, new EventSink[] { new EventSink(FanElectricalSILModel.URI, TurnOn.class) });
-		imported.put(TurnOff.class, new EventSink[] { new EventSink(FanElectricalSILModel.URI, TurnOff.class) });
-		imported.put(SetLow.class, new EventSink[] { new EventSink(FanElectricalSILModel.URI, SetLow.class) });
-		imported.put(SetMid.class, new EventSink[] { new EventSink(FanElectricalSILModel.URI, SetMid.class) });
-		imported.put(SetHigh.class, new EventSink[] { new EventSink(FanElectricalSILModel.URI, SetHigh.class) });
-		// sp
-		imported.put(main.java.components.solarPanels.sil.events.TurnOn.class,
-				new EventSink[] { new EventSink(SolarPanelsElectricalSILModel.URI,
-						main.java.components.solarPanels.sil.events.TurnOn.class) });
-		imported.put(main.java.components.solarPanels.sil.events.TurnOff.class,
-				new EventSink[] { new EventSink(SolarPanelsElectricalSILModel.URI,
-						main.java.components.solarPanels.sil.events.TurnOff.class) });
-		// pg
-		imported.put(main.java.components.petrolGenerator.sil.events.TurnOn.class,
-				new EventSink[] { new EventSink(PetrolGeneratorElectricalSILModel.URI,
-						main.java.components.petrolGenerator.sil.events.TurnOn.class) });
-		imported.put(main.java.components.petrolGenerator.sil.events.TurnOff.class,
-				new EventSink[] { new EventSink(PetrolGeneratorElectricalSILModel.URI,
-						main.java.components.petrolGenerator.sil.events.TurnOff.class) });
-		// battery
-		imported.put(SetRecharging.class,
-				new EventSink[] { new EventSink(BatteryElectricalSILModel.URI, SetRecharging.class) });
-		imported.put(SetDraining.class,
-				new EventSink[] { new EventSink(BatteryElectricalSILModel.URI, SetDraining.class) });
-		imported.put(SetSleeping.class,
-				new EventSink[] { new EventSink(BatteryElectricalSILModel.URI, SetSleeping.class) });
-		// washer
-		imported.put(main.java.components.washer.sil.events.TurnOn.class, new EventSink[] {
-				new EventSink(WasherElectricalSILModel.URI, main.java.components.washer.sil.events.TurnOn.class) });
-		imported.put(main.java.components.washer.sil.events.TurnOff.class, new EventSink[] {
-				new EventSink(WasherElectricalSILModel.URI, main.java.components.washer.sil.events.TurnOff.class) });
-		imported.put(main.java.components.washer.sil.events.SetEco.class, new EventSink[] {
-				new EventSink(WasherElectricalSILModel.URI, main.java.components.washer.sil.events.SetEco.class) });
-		imported.put(main.java.components.washer.sil.events.SetStd.class, new EventSink[] {
-				new EventSink(WasherElectricalSILModel.URI, main.java.components.washer.sil.events.SetStd.class) });
-		imported.put(main.java.components.washer.sil.events.SetPerformance.class,
-				new EventSink[] { new EventSink(WasherElectricalSILModel.URI,
-						main.java.components.washer.sil.events.SetPerformance.class) });
-		// fridge
-		imported.put(SetEco.class, new EventSink[] { new EventSink(FridgeElectricalSILModel.URI, SetEco.class) });
-		imported.put(SetNormal.class, new EventSink[] { new EventSink(FridgeElectricalSILModel.URI, SetNormal.class) });
-		imported.put(Activate.class, new EventSink[] { new EventSink(FridgeElectricalSILModel.URI, Activate.class) });
-		imported.put(Passivate.class, new EventSink[] { new EventSink(FridgeElectricalSILModel.URI, Passivate.class) });
+		for (Map.Entry<Class<? extends EventI>, List<EventSink>> entry : sinks.entrySet())
+			imported.put(entry.getKey(), entry.getValue().toArray(new EventSink[0]));
 
+		// the value of each metered device is bound to the electric meter
 		Map<VariableSource, VariableSink[]> bindings = new HashMap<VariableSource, VariableSink[]>();
-		// fan
-		VariableSource source = new VariableSource("currentIntensity", Double.class, FanElectricalSILModel.URI);
-		VariableSink[] sinks = new VariableSink[] {
-				new VariableSink("FanIntensity", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
-		// sp
-		source = new VariableSource("currentProduction", Double.class, SolarPanelsElectricalSILModel.URI);
-		sinks = new VariableSink[] {
-				new VariableSink("SolarPanelsProduction", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
-		// pg
-		source = new VariableSource("currentProduction", Double.class, PetrolGeneratorElectricalSILModel.URI);
-		sinks = new VariableSink[] {
-				new VariableSink("PetrolGeneratorProduction", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
-		// battery
-		source = new VariableSource("currentIntensity", Double.class, BatteryElectricalSILModel.URI);
-		sinks = new VariableSink[] { new VariableSink("BatteryIntensity", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
-		source = new VariableSource("currentProduction", Double.class, BatteryElectricalSILModel.URI);
-		sinks = new VariableSink[] { new VariableSink("BatteryProduction", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
-		// washer
-		source = new VariableSource("currentIntensity", Double.class, WasherElectricalSILModel.URI);
-		sinks = new VariableSink[] { new VariableSink("WasherIntensity", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
-		// fridge
-		source = new VariableSource("currentIntensity", Double.class, FridgeElectricalSILModel.URI);
-		sinks = new VariableSink[] { new VariableSink("FridgeIntensity", Double.class, ElectricMeterSILModel.URI) };
-		bindings.put(source, sinks);
+		for (MeteredDevice device : devices) {
+			VariableSource source = new VariableSource(device.getSourceVariable(), Double.class,
+					device.getModelURI());
+			bindings.put(source, new VariableSink[] {
+					new VariableSink(device.getSinkVariable(), Double.class, ElectricMeterSILModel.URI) });
+		}
 
 		coupledModelDescriptors.put(ElectricMeterSILCoupledModel.URI,
 				new RTCoupledHIOA_Descriptor(ElectricMeterSILCoupledModel.class, ElectricMeterSILCoupledModel.URI,
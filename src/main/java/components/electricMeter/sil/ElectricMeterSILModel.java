@@ -1,24 +1,52 @@
 package main.java.components.electricMeter.sil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import fr.sorbonne_u.components.ComponentI;
 import fr.sorbonne_u.devs_simulation.hioa.annotations.ExportedVariable;
-import fr.sorbonne_u.devs_simulation.hioa.annotations.ImportedVariable;
 import fr.sorbonne_u.devs_simulation.hioa.models.AtomicHIOA;
+import fr.sorbonne_u.devs_simulation.hioa.models.vars.StaticVariableDescriptor;
 import fr.sorbonne_u.devs_simulation.hioa.models.vars.Value;
+import fr.sorbonne_u.devs_simulation.hioa.models.vars.VariableVisibility;
+import fr.sorbonne_u.devs_simulation.models.AtomicModel;
 import fr.sorbonne_u.devs_simulation.models.events.EventI;
 import fr.sorbonne_u.devs_simulation.models.time.Duration;
 import fr.sorbonne_u.devs_simulation.models.time.Time;
 import fr.sorbonne_u.devs_simulation.simulators.interfaces.SimulatorI;
 import main.java.components.electricMeter.ElectricMeter;
+import main.java.components.electricMeter.utils.ElectricMeterEnergy;
+import main.java.components.electricMeter.utils.ElectricMeterSnapshot;
+import main.java.components.electricMeter.utils.MeterFlow;
+import main.java.components.electricMeter.utils.MeteredDevice;
 import main.java.utils.FileLogger;
 
 /**
  * SIL model for the {@link ElectricMeter} component
  * 
+ * The metered devices come from the {@link MeterRegistry} : the value of each
+ * device is bound into an array indexed by its id, and the totals are updated
+ * from the change of the devices since their last value, in constant time per
+ * change.
+ * 
+ * The events of the devices are routed to the model as well as to their
+ * electrical models : the model computes only after such an event, on the
+ * devices concerned, and on a slow heartbeat. A long simulation then costs in
+ * proportion to its events rather than to its duration.
+ * 
+ * The energy of each device is integrated on each transition by the
+ * trapezoidal rule, between the value accounted at the previous transition and
+ * the value accounted at this one. An external transition samples the devices
+ * before their change is accounted, so a change signalled by an event is
+ * integrated as a step rather than spread over the previous interval.
+ * 
  * @author Bello Memmi
  *
  */
@@ -44,16 +72,34 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	protected ComponentI owner;
 
 	/**
-	 * time interval between electricity consumption levels are computed from the
-	 * consumption of all connected and switched on appliances, expressed in the
-	 * simulation time unit of the model.
+	 * tension of the house in volts, converting the intensities to power.
+	 */
+	public static final double TENSION = 220;
+
+	/**
+	 * time between the reception of an event of a device and the computation,
+	 * letting the electrical model of the device update its variable first,
+	 * expressed in the simulation time unit of the model.
+	 */
+	public static final double SETTLE_DELAY = 0.01;
+	/**
+	 * system property giving the time between two computations without event,
+	 * expressed in the simulation time unit of the model; 0 disables them.
 	 */
-	protected static final double STEP_LENGTH = 1.;
+	public static final String HEARTBEAT_PROPERTY = "electricMeter.heartbeat";
 	/**
-	 * standard interval between electricity consumption level computations as
-	 * simulation duration, including the time unit.
+	 * default time between two computations without event.
 	 */
-	protected final Duration standardStep;
+	public static final double DEFAULT_HEARTBEAT = 60.;
+	/**
+	 * delay between an event and the computation as simulation duration.
+	 */
+	protected final Duration settleDelay;
+	/**
+	 * time between two computations without event as simulation duration,
+	 * infinite if disabled.
+	 */
+	protected final Duration heartbeat;
 
 	/**
 	 * current intensity in amperes; intensity is power/tension.
@@ -61,56 +107,99 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	@ExportedVariable(type = Double.class)
 	protected final Value<Double> currentIntensity = new Value<Double>(this, 0.0, 0);
 	/**
-	 * current intensity of the fan in amperes; intensity is power/tension.
+	 * current production in amperes; production is power/tension.
+	 */
+	@ExportedVariable(type = Double.class)
+	protected final Value<Double> currentProduction = new Value<Double>(this, 0.0, 0);
+	/**
+	 * devices metered by the model, by id
+	 */
+	protected final MeteredDevice[] devices;
+	/**
+	 * values of the variables imported from the electrical models of the devices,
+	 * by id, bound from the {@link MeterRegistry} instead of annotated fields
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> FanIntensity;
+	protected final Value<Double>[] inputs;
 	/**
-	 * current intensity of the battery in amperes; intensity is power/tension.
+	 * last value of each device accounted in the totals, by id
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> BatteryIntensity;
+	protected final double[] values;
 	/**
-	 * current intensity of the washer in amperes; intensity is power/tension.
+	 * number of changes applied to the totals since they were last summed in
+	 * full
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> WasherIntensity;
+	protected int changes;
 	/**
-	 * current intensity of the washer in amperes; intensity is power/tension.
+	 * number of changes after which the totals are summed in full, bounding the
+	 * rounding errors accumulated by the changes
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> FridgeIntensity;
+	protected static final int FULL_SUM_PERIOD = 1024;
 
 	/**
-	 * current production in amperes; production is power/tension.
+	 * production and consumption computed during the last step, published as a
+	 * whole to be read consistently from the owner component.
 	 */
-	@ExportedVariable(type = Double.class)
-	protected final Value<Double> currentProduction = new Value<Double>(this, 0.0, 0);
+	protected volatile ElectricMeterSnapshot snapshot;
+
+	/**
+	 * hours in a simulated time unit, converting the integrals to watt hours.
+	 */
+	protected final double hoursPerTimeUnit;
+	/**
+	 * energy of each device since the beginning of the simulation in watt
+	 * hours, by id.
+	 */
+	protected final double[] energies;
+	/**
+	 * value of each device at the last integration, by id.
+	 */
+	protected final double[] integrated;
+	/**
+	 * simulated time of the last integration.
+	 */
+	protected double lastIntegration;
 	/**
-	 * current production of the solar panels in amperes
+	 * energy produced since the beginning of the simulation in watt hours.
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> SolarPanelsProduction;
+	protected double producedEnergy;
 	/**
-	 * current production of the petrol generator in amperes
+	 * energy consumed since the beginning of the simulation in watt hours.
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> PetrolGeneratorProduction;
+	protected double consumedEnergy;
 	/**
-	 * current production of the battery in amperes
+	 * energy integrated up to the last computation, published as a whole to be
+	 * read consistently from the owner component.
 	 */
-	@ImportedVariable(type = Double.class)
-	protected Value<Double> BatteryProduction;
+	protected volatile ElectricMeterEnergy energy;
 
 	/**
 	 * time interval until the next global electricity consumption computation.
 	 */
 	protected Duration nextStep;
 	/**
-	 * true if a request for the current value of the global electricity consumption
-	 * (through a <code>ConsumptionLevelRequest</code> event, false otherwise.
+	 * ids of the devices whose electrical model imports each event type.
+	 */
+	protected final Map<Class<? extends EventI>, int[]> eventDevices;
+	/**
+	 * ids of the devices which received an event since the last computation.
+	 */
+	protected final int[] dirtyIds;
+	/**
+	 * number of ids in dirtyIds.
+	 */
+	protected int dirtyCount;
+	/**
+	 * true for the devices in dirtyIds, by id.
+	 */
+	protected final boolean[] dirty;
+	/**
+	 * number of device events received.
+	 */
+	protected long eventsReceived;
+	/**
+	 * number of computations, triggered by events or by the heartbeat.
 	 */
-	protected boolean requestReceived = false;
+	protected long computations;
 
 	// -------------------------------------------------------------------------
 	// Constructors
@@ -126,7 +215,37 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	 */
 	public ElectricMeterSILModel(String uri, TimeUnit simulatedTimeUnit, SimulatorI simulationEngine) throws Exception {
 		super(uri, simulatedTimeUnit, simulationEngine);
-		this.standardStep = new Duration(STEP_LENGTH, simulatedTimeUnit);
+		this.devices = MeterRegistry.getDevices().toArray(new MeteredDevice[0]);
+		@SuppressWarnings("unchecked")
+		Value<Double>[] inputs = new Value[this.devices.length];
+		this.inputs = inputs;
+		this.values = new double[this.devices.length];
+		this.dirtyIds = new int[this.devices.length];
+		this.dirty = new boolean[this.devices.length];
+		this.energies = new double[this.devices.length];
+		this.integrated = new double[this.devices.length];
+		this.hoursPerTimeUnit = simulatedTimeUnit.toNanos(1) / (double) TimeUnit.HOURS.toNanos(1);
+		this.settleDelay = new Duration(SETTLE_DELAY, simulatedTimeUnit);
+		double heartbeat = Double.parseDouble(System.getProperty(HEARTBEAT_PROPERTY, "" + DEFAULT_HEARTBEAT));
+		this.heartbeat = heartbeat > 0 ? new Duration(heartbeat, simulatedTimeUnit) : Duration.INFINITY;
+
+		// the meter imports the events of the electrical models of the devices,
+		// routed to it as well, to know when and which device changed
+		HashMap<Class<? extends EventI>, ArrayList<Integer>> routes = new HashMap<>();
+		for (int id = 0; id < this.devices.length; id++) {
+			for (Class<? extends EventI> event : AtomicModel.getImportedEventTypes(this.devices[id].getModelClass()))
+				routes.computeIfAbsent(event, e -> new ArrayList<>()).add(id);
+		}
+		this.eventDevices = new HashMap<>();
+		for (Map.Entry<Class<? extends EventI>, ArrayList<Integer>> route : routes.entrySet())
+			this.eventDevices.put(route.getKey(), route.getValue().stream().mapToInt(Integer::intValue).toArray());
+		LinkedHashSet<Class<? extends EventI>> imported = new LinkedHashSet<>();
+		if (this.importedEventTypes != null)
+			imported.addAll(Arrays.asList(this.importedEventTypes));
+		imported.addAll(this.eventDevices.keySet());
+		@SuppressWarnings("unchecked")
+		Class<? extends EventI>[] importedEventTypes = imported.toArray(new Class[0]);
+		this.importedEventTypes = importedEventTypes;
 		this.setLogger(new FileLogger("electricMeter.log"));
 	}
 
@@ -152,10 +271,214 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 		return this.currentProduction.v;
 	}
 
+	/**
+	 * return the production and consumption computed during the last step.
+	 *
+	 * @return the production and consumption computed during the last step.
+	 */
+	public ElectricMeterSnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	/**
+	 * return the energy integrated up to the last computation.
+	 *
+	 * @return the energy produced and consumed since the beginning of the
+	 *         simulation.
+	 */
+	public ElectricMeterEnergy getEnergy() {
+		return this.energy;
+	}
+
+	/**
+	 * return the device events routed to the model.
+	 *
+	 * @return the event types imported by the electrical models of the metered
+	 *         devices.
+	 */
+	public static Set<Class<? extends EventI>> getDeviceEventTypes() {
+		LinkedHashSet<Class<? extends EventI>> events = new LinkedHashSet<>();
+		for (MeteredDevice device : MeterRegistry.getDevices())
+			events.addAll(Arrays.asList(AtomicModel.getImportedEventTypes(device.getModelClass())));
+		return events;
+	}
+
+	/**
+	 * account the change of the value of a device in the totals, in constant
+	 * time.
+	 *
+	 * @param id id of the device.
+	 * @return true if the value of the device changed.
+	 */
+	protected boolean deviceChanged(int id) {
+		Value<Double> input = this.inputs[id];
+		double value = input == null || input.v == null ? 0.0 : input.v;
+		double change = value - this.values[id];
+		if (change == 0.0)
+			return false;
+		this.values[id] = value;
+		if (this.devices[id].getFlow() == MeterFlow.CONSUMPTION)
+			this.currentIntensity.v += change;
+		else
+			this.currentProduction.v += change;
+		if (++this.changes >= FULL_SUM_PERIOD)
+			this.sumTotals();
+		return true;
+	}
+
+	/**
+	 * integrate the energy of the devices since the last integration, by the
+	 * trapezoidal rule on their values accounted then and now.
+	 *
+	 * @param time simulated time of the integration.
+	 */
+	protected void integrate(Time time) {
+		double hours = (time.getSimulatedTime() - this.lastIntegration) * this.hoursPerTimeUnit;
+		for (int id = 0; id < this.devices.length; id++) {
+			double wattHours = (this.integrated[id] + this.values[id]) * 0.5 * TENSION * hours;
+			this.energies[id] += wattHours;
+			if (this.devices[id].getFlow() == MeterFlow.CONSUMPTION)
+				this.consumedEnergy += wattHours;
+			else
+				this.producedEnergy += wattHours;
+			this.integrated[id] = this.values[id];
+		}
+		this.lastIntegration = time.getSimulatedTime();
+	}
+
+	/**
+	 * build the view of the energy integrated up to the last integration.
+	 *
+	 * @return the energy of the devices and the totals.
+	 */
+	protected ElectricMeterEnergy makeEnergy() {
+		LinkedHashMap<String, Double> production = new LinkedHashMap<>();
+		LinkedHashMap<String, Double> consumption = new LinkedHashMap<>();
+		for (int id = 0; id < this.devices.length; id++) {
+			(this.devices[id].getFlow() == MeterFlow.CONSUMPTION ? consumption : production)
+					.put(this.devices[id].getName(), this.energies[id]);
+		}
+		return new ElectricMeterEnergy(this.lastIntegration, this.producedEnergy, this.consumedEnergy, production,
+				consumption);
+	}
+
+	/**
+	 * sum the totals in full from the last values of the devices.
+	 */
+	protected void sumTotals() {
+		double consumption = 0.0;
+		double production = 0.0;
+		for (int id = 0; id < this.devices.length; id++) {
+			if (this.devices[id].getFlow() == MeterFlow.CONSUMPTION)
+				consumption += this.values[id];
+			else
+				production += this.values[id];
+		}
+		this.currentIntensity.v = consumption;
+		this.currentProduction.v = production;
+		this.changes = 0;
+	}
+
+	/**
+	 * build the breakdown of the consumption or the production by device.
+	 *
+	 * @param flow consumption or production.
+	 * @return the last value of each device of the flow, by name.
+	 */
+	protected LinkedHashMap<String, Double> breakdown(MeterFlow flow) {
+		LinkedHashMap<String, Double> breakdown = new LinkedHashMap<>();
+		for (int id = 0; id < this.devices.length; id++) {
+			if (this.devices[id].getFlow() == flow)
+				breakdown.put(this.devices[id].getName(), this.values[id]);
+		}
+		return breakdown;
+	}
+
+	/**
+	 * build the log message of the consumption or the production.
+	 *
+	 * @param flow consumption or production.
+	 * @return the total and the value of each device of the flow.
+	 */
+	protected String flowMessage(MeterFlow flow) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(flow == MeterFlow.CONSUMPTION ? " Consumption : " : " Production : ");
+		sb.append(String.format("%.2f",
+				flow == MeterFlow.CONSUMPTION ? this.currentIntensity.v : this.currentProduction.v));
+		String separator = "(";
+		for (int id = 0; id < this.devices.length; id++) {
+			if (this.devices[id].getFlow() == flow) {
+				sb.append(separator).append(this.devices[id].getName()).append(" : ")
+						.append(String.format("%.2f", this.values[id]));
+				separator = ", ";
+			}
+		}
+		return sb.append(")\n").toString();
+	}
+
+	/**
+	 * build the snapshot of the values computed during the current step.
+	 *
+	 * @return the snapshot of the values computed during the current step.
+	 */
+	protected ElectricMeterSnapshot makeSnapshot() {
+		return new ElectricMeterSnapshot(this.getCurrentStateTime().getSimulatedTime(), this.currentProduction.v,
+				this.currentIntensity.v, this.breakdown(MeterFlow.PRODUCTION), this.breakdown(MeterFlow.CONSUMPTION));
+	}
+
 	// -------------------------------------------------------------------------
 	// DEVS simulation protocol
 	// -------------------------------------------------------------------------
 
+	/**
+	 * the variables of the metered devices are imported as well as the annotated
+	 * ones.
+	 *
+	 * @see fr.sorbonne_u.devs_simulation.hioa.models.AtomicHIOA#isImportedVariable(java.lang.String,
+	 *      java.lang.Class)
+	 */
+	@Override
+	public boolean isImportedVariable(String name, Class<?> type) {
+		if (MeterRegistry.idOf(name) >= 0)
+			return type.isAssignableFrom(Double.class);
+		return super.isImportedVariable(name, type);
+	}
+
+	/**
+	 * @see fr.sorbonne_u.devs_simulation.hioa.models.AtomicHIOA#getImportedVariables()
+	 */
+	@Override
+	public StaticVariableDescriptor[] getImportedVariables() throws Exception {
+		StaticVariableDescriptor[] annotated = super.getImportedVariables();
+		List<MeteredDevice> metered = MeterRegistry.getDevices();
+		StaticVariableDescriptor[] ret = Arrays.copyOf(annotated, annotated.length + metered.size());
+		for (int id = 0; id < metered.size(); id++)
+			ret[annotated.length + id] = new StaticVariableDescriptor(metered.get(id).getSinkVariable(),
+					Double.class, VariableVisibility.IMPORTED);
+		return ret;
+	}
+
+	/**
+	 * the value of a metered device is bound into the inputs by its id instead of
+	 * an annotated field.
+	 *
+	 * @see fr.sorbonne_u.devs_simulation.hioa.models.AtomicHIOA#setImportedVariableValueReference(java.lang.String,
+	 *      java.lang.String, java.lang.Class,
+	 *      fr.sorbonne_u.devs_simulation.hioa.models.vars.Value)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setImportedVariableValueReference(String modelURI, String name, Class<?> type, Value<?> value)
+			throws Exception {
+		int id = MeterRegistry.idOf(name);
+		if (id >= 0 && id < this.devices.length) {
+			assert modelURI.equals(this.getURI()) && type.isAssignableFrom(Double.class);
+			this.inputs[id] = (Value<Double>) value;
+		} else {
+			super.setImportedVariableValueReference(modelURI, name, type, value);
+		}
+	}
+
 	/**
 	 * @see fr.sorbonne_u.devs_simulation.hioa.models.AtomicHIOA#initialiseVariables(fr.sorbonne_u.devs_simulation.models.time.Time)
 	 */
@@ -164,6 +487,17 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 		// initial intensity, before the first computation
 		this.currentIntensity.v = 0.0;
 		this.currentProduction.v = 0.0;
+		Arrays.fill(this.values, 0.0);
+		this.changes = 0;
+		this.snapshot = new ElectricMeterSnapshot(startTime.getSimulatedTime(), 0.0, 0.0, new LinkedHashMap<>(),
+				new LinkedHashMap<>());
+		// nothing metered yet
+		Arrays.fill(this.energies, 0.0);
+		Arrays.fill(this.integrated, 0.0);
+		this.lastIntegration = startTime.getSimulatedTime();
+		this.producedEnergy = 0.0;
+		this.consumedEnergy = 0.0;
+		this.energy = this.makeEnergy();
 		super.initialiseVariables(startTime);
 	}
 
@@ -172,10 +506,13 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	 */
 	@Override
 	public void initialiseState(Time initialTime) {
-		// initially, no request has been received yet.
-		this.requestReceived = false;
-		// the first time interval until the first computation.
-		this.nextStep = this.standardStep;
+		// the first computation accounts all the devices, once their electrical
+		// models are initialised
+		this.dirtyCount = 0;
+		Arrays.fill(this.dirty, false);
+		this.eventsReceived = 0;
+		this.computations = 0;
+		this.nextStep = this.settleDelay;
 
 		this.toggleDebugMode();
 		this.logMessage("simulation begins.\n");
@@ -197,12 +534,7 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	 */
 	@Override
 	public ArrayList<EventI> output() {
-		if (this.requestReceived) {
-			ArrayList<EventI> ret = new ArrayList<EventI>();
-			return ret;
-		} else {
-			return null;
-		}
+		return null;
 	}
 
 	/**
@@ -210,13 +542,8 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	 */
 	@Override
 	public Duration timeAdvance() {
-		if (this.requestReceived) {
-			// trigger an immediate internal transition.
-			return Duration.zero(this.getSimulatedTimeUnit());
-		} else {
-			// wait until the next planned computation.
-			return this.nextStep;
-		}
+		// wait until the computation following an event or the heartbeat
+		return this.nextStep;
 	}
 
 	/**
@@ -226,40 +553,44 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	public void userDefinedInternalTransition(Duration elapsedTime) {
 		super.userDefinedInternalTransition(elapsedTime);
 
-		if (!this.requestReceived) {
-			// no request received, hence this is a computation step
-			// compute the new global electricity consumption
-			this.currentIntensity.v = this.FanIntensity.v + this.BatteryIntensity.v + this.WasherIntensity.v
-					+ this.FridgeIntensity.v;
-			this.currentIntensity.time = this.getCurrentStateTime();
-			String message = this.getCurrentStateTime() + " Consumption : "
-					+ String.format("%.2f", this.currentIntensity.v) + "(fan : "
-					+ String.format("%.2f", this.FanIntensity.v) + ", battery : "
-					+ String.format("%.2f", this.BatteryIntensity.v) + ", washer : "
-					+ String.format("%.2f", this.WasherIntensity.v) + ", fridge : "
-					+ String.format("%.2f", this.FridgeIntensity.v) + ")\n";
+		boolean changed = false;
+		if (this.dirtyCount > 0) {
+			// computation following events : only the devices concerned
+			for (int i = 0; i < this.dirtyCount; i++) {
+				changed |= this.deviceChanged(this.dirtyIds[i]);
+				this.dirty[this.dirtyIds[i]] = false;
+			}
+			this.dirtyCount = 0;
+		} else {
+			// heartbeat or first computation : all the devices, catching a change
+			// not signalled by an event
+			for (int id = 0; id < this.devices.length; id++)
+				changed |= this.deviceChanged(id);
+		}
+		this.computations++;
+		this.integrate(this.getCurrentStateTime());
+		this.energy = this.makeEnergy();
+		this.currentIntensity.time = this.getCurrentStateTime();
+		this.currentProduction.time = this.getCurrentStateTime();
+		this.snapshot = this.makeSnapshot();
+		// the history holds the reading until the next computation
+		((ElectricMeter) this.owner).readingComputed(this.snapshot.getSimulatedTime(), this.currentProduction.v,
+				this.currentIntensity.v, this.values);
+
+		if (changed || this.computations == 1) {
+			String message = this.getCurrentStateTime() + this.flowMessage(MeterFlow.CONSUMPTION);
 			this.owner.logMessage(message);
 			this.logMessage(message);
-
-			this.currentProduction.v = this.SolarPanelsProduction.v + this.PetrolGeneratorProduction.v
-					+ this.BatteryProduction.v;
-			this.currentProduction.time = this.getCurrentStateTime();
-			message = this.getCurrentStateTime() + "Production : " + String.format("%.2f", this.currentProduction.v)
-					+ "(solarPanels : " + String.format("%.2f", this.SolarPanelsProduction.v) + ", petrol generator : "
-					+ String.format("%.2f", this.PetrolGeneratorProduction.v) + ", battery : "
-					+ String.format("%.2f", this.BatteryProduction.v) + ")\n";
+			message = this.getCurrentStateTime() + this.flowMessage(MeterFlow.PRODUCTION);
 			this.owner.logMessage(message);
 			this.logMessage(message);
 
-			// the next planned computation
-			this.nextStep = this.standardStep;
-		} else {
-			// a request has been received before the next computation
-			assert elapsedTime.lessThanOrEqual(this.standardStep);
-			// the event has already been output, simply replan the next
-			// computation at its previously planned time.
-			this.requestReceived = false;
+			// push the new balance to the subscribers of the electric meter
+			((ElectricMeter) this.owner).balanceComputed(this.snapshot);
 		}
+
+		// nothing to compute until the next event or heartbeat
+		this.nextStep = this.heartbeat;
 	}
 
 	/**
@@ -267,10 +598,27 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	 */
 	@Override
 	public void userDefinedExternalTransition(Duration elapsedTime) {
+		// the devices held their accounted value until the event
+		this.integrate(this.getCurrentStateTime());
 		ArrayList<EventI> currentEvents = this.getStoredEventAndReset();
-		assert currentEvents != null && currentEvents.size() == 1;
-		this.requestReceived = true;
-		this.nextStep = this.standardStep.subtract(elapsedTime);
+		assert currentEvents != null && !currentEvents.isEmpty();
+		for (EventI event : currentEvents) {
+			this.eventsReceived++;
+			int[] ids = this.eventDevices.get(event.getClass());
+			if (ids == null)
+				continue;
+			for (int id : ids) {
+				if (!this.dirty[id]) {
+					this.dirty[id] = true;
+					this.dirtyIds[this.dirtyCount++] = id;
+				}
+			}
+		}
+		// compute once the electrical models have handled the events, even if a
+		// computation was planned sooner : it would read the devices of these
+		// events before they settle and clear their dirty flags. The heartbeat
+		// is postponed as well, the computation accounting the dirty devices.
+		this.nextStep = this.settleDelay;
 		super.userDefinedExternalTransition(elapsedTime);
 	}
 
@@ -279,6 +627,11 @@ public class ElectricMeterSILModel extends AtomicHIOA {
 	 */
 	@Override
 	public void endSimulation(Time endTime) throws Exception {
+		this.integrate(endTime);
+		this.energy = this.makeEnergy();
+		this.logMessage(this.eventsReceived + " device events, " + this.computations + " computations.\n");
+		this.logMessage(String.format("energy produced : %.2f Wh %s, consumed : %.2f Wh %s\n", this.producedEnergy,
+				this.energy.getProductionBreakdown(), this.consumedEnergy, this.energy.getConsumptionBreakdown()));
 		this.logMessage("simulation ends.\n");
 		super.endSimulation(endTime);
 	}
@@ -0,0 +1,95 @@
+package main.java.components.electricMeter.sil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import main.java.components.battery.sil.BatteryElectricalSILModel;
+import main.java.components.electricMeter.utils.MeterFlow;
+import main.java.components.electricMeter.utils.MeteredDevice;
+import main.java.components.fan.sil.FanElectricalSILModel;
+import main.java.components.fridge.sil.FridgeElectricalSILModel;
+import main.java.components.petrolGenerator.sil.PetrolGeneratorElectricalSILModel;
+import main.java.components.solarPanels.sil.SolarPanelsElectricalSILModel;
+import main.java.components.washer.sil.WasherElectricalSILModel;
+
+/**
+ * The class <code>MeterRegistry</code> is the table of the devices metered by
+ * the {@link ElectricMeterSILModel}, the index of a device in the table being
+ * its id in the model. The simulation architecture of the electric meter is
+ * built from the table : metering a new device only means registering it
+ * before the architecture is created.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class MeterRegistry {
+
+	/**
+	 * the devices, by id
+	 */
+	protected static final ArrayList<MeteredDevice> DEVICES = new ArrayList<>();
+
+	/**
+	 * id of the devices by name of the variable imported by the electric meter
+	 */
+	protected static final HashMap<String, Integer> IDS = new HashMap<>();
+
+	static {
+		register(new MeteredDevice("fan", MeterFlow.CONSUMPTION, FanElectricalSILModel.URI,
+				FanElectricalSILModel.class, "currentIntensity"));
+		register(new MeteredDevice("battery", MeterFlow.CONSUMPTION, BatteryElectricalSILModel.URI,
+				BatteryElectricalSILModel.class, "currentIntensity"));
+		register(new MeteredDevice("washer", MeterFlow.CONSUMPTION, WasherElectricalSILModel.URI,
+				WasherElectricalSILModel.class, "currentIntensity"));
+		register(new MeteredDevice("fridge", MeterFlow.CONSUMPTION, FridgeElectricalSILModel.URI,
+				FridgeElectricalSILModel.class, "currentIntensity"));
+		register(new MeteredDevice("solarPanels", MeterFlow.PRODUCTION, SolarPanelsElectricalSILModel.URI,
+				SolarPanelsElectricalSILModel.class, "currentProduction"));
+		register(new MeteredDevice("petrolGenerator", MeterFlow.PRODUCTION, PetrolGeneratorElectricalSILModel.URI,
+				PetrolGeneratorElectricalSILModel.class, "currentProduction"));
+		register(new MeteredDevice("battery", MeterFlow.PRODUCTION, BatteryElectricalSILModel.URI,
+				BatteryElectricalSILModel.class, "currentProduction"));
+	}
+
+	private MeterRegistry() {
+	}
+
+	/**
+	 * Register a device to meter
+	 *
+	 * @param device the device
+	 * @return the id of the device
+	 * @throws IllegalArgumentException if a device with the same imported
+	 *                                  variable is already registered
+	 */
+	public static synchronized int register(MeteredDevice device) {
+		if (IDS.containsKey(device.getSinkVariable()))
+			throw new IllegalArgumentException(device.getSinkVariable() + " is already metered");
+		int id = DEVICES.size();
+		DEVICES.add(device);
+		IDS.put(device.getSinkVariable(), id);
+		return id;
+	}
+
+	/**
+	 * Return the registered devices
+	 *
+	 * @return the devices, by id
+	 */
+	public static synchronized List<MeteredDevice> getDevices() {
+		return Collections.unmodifiableList(new ArrayList<>(DEVICES));
+	}
+
+	/**
+	 * Return the id of a device
+	 *
+	 * @param sinkVariable name of the variable imported by the electric meter
+	 * @return the id of the device, -1 if not registered
+	 */
+	public static synchronized int idOf(String sinkVariable) {
+		Integer id = IDS.get(sinkVariable);
+		return id == null ? -1 : id;
+	}
+}
@@ -0,0 +1,69 @@
+package main.java.components.electricMeter.utils;
+
+import main.java.components.electricMeter.ports.ElectricMeterNotificationOutboundPort;
+
+/**
+ * The class <code>BalanceSubscription</code> holds the state of a subscription
+ * to the energy balance notifications of the electric meter.
+ * 
+ * A subscriber is notified the first time a balance is computed, then each
+ * time the balance changes of sign or moves more than the subscription
+ * threshold since the last value it received.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class BalanceSubscription {
+
+	/**
+	 * outbound port used to notify the subscriber
+	 */
+	protected final ElectricMeterNotificationOutboundPort port;
+
+	/**
+	 * minimal balance variation triggering a notification
+	 */
+	protected final double threshold;
+
+	/**
+	 * last balance sent to the subscriber, NaN if none has been sent yet
+	 */
+	protected double lastNotifiedBalance;
+
+	/**
+	 * Constructor of the subscription
+	 * 
+	 * @param port      outbound port connected to the subscriber
+	 * @param threshold minimal balance variation triggering a notification
+	 */
+	public BalanceSubscription(ElectricMeterNotificationOutboundPort port, double threshold) {
+		assert port != null && threshold >= 0;
+		this.port = port;
+		this.threshold = threshold;
+		this.lastNotifiedBalance = Double.NaN;
+	}
+
+	/**
+	 * Return the outbound port connected to the subscriber
+	 * 
+	 * @return the outbound port connected to the subscriber
+	 */
+	public ElectricMeterNotificationOutboundPort getPort() {
+		return port;
+	}
+
+	/**
+	 * Return true if the subscriber must be notified of the given balance, in
+	 * which case the balance is recorded as the last notified one
+	 * 
+	 * @param balance actual balance (production - consumption)
+	 * @return true if the subscriber must be notified
+	 */
+	public synchronized boolean shouldNotify(double balance) {
+		boolean notify = Double.isNaN(lastNotifiedBalance) || (balance < 0) != (lastNotifiedBalance < 0)
+				|| Math.abs(balance - lastNotifiedBalance) > threshold;
+		if (notify)
+			lastNotifiedBalance = balance;
+		return notify;
+	}
+}
@@ -0,0 +1,128 @@
+package main.java.components.electricMeter.utils;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class <code>ElectricMeterEnergy</code> is an immutable view of the
+ * energy metered since the beginning of the simulation up to a given simulated
+ * time : total energy produced and consumed by the house and their breakdown
+ * per source, in watt hours.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class ElectricMeterEnergy implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * simulated time up to which the energy is integrated, in the time unit of
+	 * the model
+	 */
+	protected final double simulatedTime;
+
+	/**
+	 * energy produced by the house in watt hours
+	 */
+	protected final double production;
+
+	/**
+	 * energy consumed by the house in watt hours
+	 */
+	protected final double consumption;
+
+	/**
+	 * energy produced by each source in watt hours
+	 */
+	protected final Map<String, Double> productionBreakdown;
+
+	/**
+	 * energy consumed by each source in watt hours
+	 */
+	protected final Map<String, Double> consumptionBreakdown;
+
+	/**
+	 * Constructor of the energy view
+	 *
+	 * @param simulatedTime        simulated time of the integration
+	 * @param production           energy produced by the house
+	 * @param consumption          energy consumed by the house
+	 * @param productionBreakdown  energy produced by each source
+	 * @param consumptionBreakdown energy consumed by each source
+	 */
+	public ElectricMeterEnergy(double simulatedTime, double production, double consumption,
+			Map<String, Double> productionBreakdown, Map<String, Double> consumptionBreakdown) {
+		assert productionBreakdown != null && consumptionBreakdown != null;
+		this.simulatedTime = simulatedTime;
+		this.production = production;
+		this.consumption = consumption;
+		this.productionBreakdown = Collections.unmodifiableMap(new LinkedHashMap<>(productionBreakdown));
+		this.consumptionBreakdown = Collections.unmodifiableMap(new LinkedHashMap<>(consumptionBreakdown));
+	}
+
+	/**
+	 * Return the simulated time up to which the energy is integrated
+	 *
+	 * @return the simulated time of the integration
+	 */
+	public double getSimulatedTime() {
+		return simulatedTime;
+	}
+
+	/**
+	 * Return the energy produced by the house
+	 *
+	 * @return the energy produced in watt hours
+	 */
+	public double getProduction() {
+		return production;
+	}
+
+	/**
+	 * Return the energy consumed by the house
+	 *
+	 * @return the energy consumed in watt hours
+	 */
+	public double getConsumption() {
+		return consumption;
+	}
+
+	/**
+	 * Return the energy balance of the house (production - consumption)
+	 *
+	 * @return the energy balance in watt hours
+	 */
+	public double getBalance() {
+		return production - consumption;
+	}
+
+	/**
+	 * Return the energy produced by each source, the map is unmodifiable
+	 *
+	 * @return the energy produced by each source
+	 */
+	public Map<String, Double> getProductionBreakdown() {
+		return productionBreakdown;
+	}
+
+	/**
+	 * Return the energy consumed by each source, the map is unmodifiable
+	 *
+	 * @return the energy consumed by each source
+	 */
+	public Map<String, Double> getConsumptionBreakdown() {
+		return consumptionBreakdown;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ElectricMeterEnergy[time=" + simulatedTime + ", production=" + production + " Wh "
+				+ productionBreakdown + ", consumption=" + consumption + " Wh " + consumptionBreakdown + "]";
+	}
+}
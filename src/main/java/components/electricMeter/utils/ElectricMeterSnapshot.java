@@ -0,0 +1,129 @@
+package main.java.components.electricMeter.utils;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class <code>ElectricMeterSnapshot</code> is an immutable view of the
+ * electric meter computed at a given simulated time : total production and
+ * consumption of the house and their breakdown per source.
+ * 
+ * All the values come from the same computation step of the electric meter
+ * model, so they are consistent with each other.
+ * 
+ * @author Bello Memmi
+ *
+ */
+public class ElectricMeterSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * simulated time of the computation, in the time unit of the model
+	 */
+	protected final double simulatedTime;
+
+	/**
+	 * total production of the house in amperes
+	 */
+	protected final double production;
+
+	/**
+	 * total consumption of the house in amperes
+	 */
+	protected final double consumption;
+
+	/**
+	 * production of each source in amperes
+	 */
+	protected final Map<String, Double> productionBreakdown;
+
+	/**
+	 * consumption of each source in amperes
+	 */
+	protected final Map<String, Double> consumptionBreakdown;
+
+	/**
+	 * Constructor of the snapshot
+	 * 
+	 * @param simulatedTime        simulated time of the computation
+	 * @param production           total production of the house
+	 * @param consumption          total consumption of the house
+	 * @param productionBreakdown  production of each source
+	 * @param consumptionBreakdown consumption of each source
+	 */
+	public ElectricMeterSnapshot(double simulatedTime, double production, double consumption,
+			Map<String, Double> productionBreakdown, Map<String, Double> consumptionBreakdown) {
+		assert productionBreakdown != null && consumptionBreakdown != null;
+		this.simulatedTime = simulatedTime;
+		this.production = production;
+		this.consumption = consumption;
+		this.productionBreakdown = Collections.unmodifiableMap(new LinkedHashMap<>(productionBreakdown));
+		this.consumptionBreakdown = Collections.unmodifiableMap(new LinkedHashMap<>(consumptionBreakdown));
+	}
+
+	/**
+	 * Return the simulated time of the computation
+	 * 
+	 * @return the simulated time of the computation
+	 */
+	public double getSimulatedTime() {
+		return simulatedTime;
+	}
+
+	/**
+	 * Return the total production of the house
+	 * 
+	 * @return the total production of the house
+	 */
+	public double getProduction() {
+		return production;
+	}
+
+	/**
+	 * Return the total consumption of the house
+	 * 
+	 * @return the total consumption of the house
+	 */
+	public double getConsumption() {
+		return consumption;
+	}
+
+	/**
+	 * Return the energy balance of the house (production - consumption)
+	 * 
+	 * @return the energy balance of the house
+	 */
+	public double getBalance() {
+		return production - consumption;
+	}
+
+	/**
+	 * Return the production of each source, the map is unmodifiable
+	 * 
+	 * @return the production of each source
+	 */
+	public Map<String, Double> getProductionBreakdown() {
+		return productionBreakdown;
+	}
+
+	/**
+	 * Return the consumption of each source, the map is unmodifiable
+	 * 
+	 * @return the consumption of each source
+	 */
+	public Map<String, Double> getConsumptionBreakdown() {
+		return consumptionBreakdown;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ElectricMeterSnapshot[time=" + simulatedTime + ", production=" + production + " "
+				+ productionBreakdown + ", consumption=" + consumption + " " + consumptionBreakdown + "]";
+	}
+}
@@ -0,0 +1,51 @@
+package main.java.components.electricMeter.utils;
+
+/**
+ *
+ * Represents a resolution of the {@link MeterHistory} : the simulated seconds
+ * gathered in a bucket and the number of buckets kept
+ *
+ * @author Bello Memmi
+ *
+ */
+public enum HistoryResolution {
+	/**
+	 * the raw readings, one hour of seconds
+	 */
+	SECOND(1, 3600),
+	/**
+	 * one day of minutes
+	 */
+	MINUTE(60, 1440),
+	/**
+	 * one week of quarters of an hour
+	 */
+	QUARTER_HOUR(900, 672);
+
+	private final int bucketSeconds;
+
+	private final int capacity;
+
+	private HistoryResolution(int bucketSeconds, int capacity) {
+		this.bucketSeconds = bucketSeconds;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Return the simulated seconds gathered in a bucket
+	 *
+	 * @return the length of a bucket in seconds
+	 */
+	public int getBucketSeconds() {
+		return bucketSeconds;
+	}
+
+	/**
+	 * Return the number of buckets kept
+	 *
+	 * @return the capacity of the ring
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+}
@@ -0,0 +1,13 @@
+package main.java.components.electricMeter.utils;
+
+/**
+ *
+ * Represents the direction of the current of a device metered by the electric
+ * meter
+ *
+ * @author Bello Memmi
+ *
+ */
+public enum MeterFlow {
+	CONSUMPTION, PRODUCTION
+}
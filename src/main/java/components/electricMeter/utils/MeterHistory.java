@@ -0,0 +1,337 @@
+package main.java.components.electricMeter.utils;
+
+import java.util.Arrays;
+
+/**
+ * The class <code>MeterHistory</code> keeps the recent production and
+ * consumption of the house at each {@link HistoryResolution} : the raw value
+ * of each simulated second and the min / max / mean of each minute and quarter
+ * of an hour.
+ *
+ * The electric meter only computes the balance when a device changes, so a
+ * reading holds until the next one : when a reading arrives, the seconds
+ * elapsed since the previous one are closed with the previous values and
+ * folded into the buckets of every resolution. A second enters the history
+ * once it is over, that is at the latest on the next heartbeat of the meter.
+ *
+ * Each resolution is a ring of primitive arrays allocated once, the oldest
+ * bucket being overwritten by the newest : the memory of the history does not
+ * depend on the length of the run, and recording a reading costs a few
+ * operations per bucket reached, however long the gap since the previous one.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class MeterHistory {
+
+	/**
+	 * The buckets of a resolution, bucket number b covering the simulated
+	 * seconds [b * bucketSeconds, (b + 1) * bucketSeconds[ and being stored in
+	 * the slot b modulo the capacity. The statistics of a flow are stored at
+	 * flow.ordinal() * capacity + slot.
+	 */
+	protected static class Ring {
+
+		protected final int bucketSeconds;
+
+		protected final int capacity;
+
+		/**
+		 * number of seconds folded in each slot
+		 */
+		protected final int[] seconds;
+
+		protected final double[] min;
+
+		protected final double[] max;
+
+		/**
+		 * sum of the values of the seconds folded in each slot
+		 */
+		protected final double[] sum;
+
+		/**
+		 * number of the first bucket recorded
+		 */
+		protected long first;
+
+		/**
+		 * number of the newest bucket, first - 1 while nothing is recorded
+		 */
+		protected long newest;
+
+		protected Ring(HistoryResolution resolution) {
+			this.bucketSeconds = resolution.getBucketSeconds();
+			this.capacity = resolution.getCapacity();
+			this.seconds = new int[capacity];
+			this.min = new double[2 * capacity];
+			this.max = new double[2 * capacity];
+			this.sum = new double[2 * capacity];
+		}
+
+		/**
+		 * Start the ring at the given second
+		 *
+		 * @param second first second recorded
+		 */
+		protected void start(long second) {
+			this.first = Math.floorDiv(second, bucketSeconds);
+			this.newest = this.first - 1;
+		}
+
+		/**
+		 * Fold the seconds [from, from + n[ holding the given values
+		 *
+		 * @param from        first second
+		 * @param n           number of seconds
+		 * @param production  production during the seconds
+		 * @param consumption consumption during the seconds
+		 */
+		protected void hold(long from, long n, double production, double consumption) {
+			long end = from + n;
+			// the buckets older than the capacity before the last one would be
+			// overwritten anyway
+			long kept = (Math.floorDiv(end - 1, bucketSeconds) - capacity + 1) * bucketSeconds;
+			if (from < kept)
+				from = kept;
+			while (from < end) {
+				long bucket = Math.floorDiv(from, bucketSeconds);
+				long count = Math.min(end, (bucket + 1) * bucketSeconds) - from;
+				this.add(bucket, (int) count, production, consumption);
+				from += count;
+			}
+		}
+
+		/**
+		 * Fold seconds of the same bucket holding the given values
+		 *
+		 * @param bucket      number of the bucket
+		 * @param count       number of seconds
+		 * @param production  production during the seconds
+		 * @param consumption consumption during the seconds
+		 */
+		protected void add(long bucket, int count, double production, double consumption) {
+			int slot = slot(bucket);
+			int p = MeterFlow.PRODUCTION.ordinal() * capacity + slot;
+			int c = MeterFlow.CONSUMPTION.ordinal() * capacity + slot;
+			if (bucket != newest) {
+				// a new bucket replaces the oldest one
+				newest = bucket;
+				seconds[slot] = 0;
+				min[p] = min[c] = Double.POSITIVE_INFINITY;
+				max[p] = max[c] = Double.NEGATIVE_INFINITY;
+				sum[p] = sum[c] = 0;
+			}
+			seconds[slot] += count;
+			min[p] = Math.min(min[p], production);
+			max[p] = Math.max(max[p], production);
+			sum[p] += count * production;
+			min[c] = Math.min(min[c], consumption);
+			max[c] = Math.max(max[c], consumption);
+			sum[c] += count * consumption;
+		}
+
+		/**
+		 * Return the number of the oldest bucket kept
+		 *
+		 * @return the oldest bucket, newest + 1 if nothing is recorded
+		 */
+		protected long oldest() {
+			return Math.max(first, newest - capacity + 1);
+		}
+
+		/**
+		 * Return the slot of a bucket
+		 *
+		 * @param bucket number of the bucket
+		 * @return the slot in the ring
+		 */
+		protected int slot(long bucket) {
+			return (int) Math.floorMod(bucket, (long) capacity);
+		}
+
+		/**
+		 * Return the index of a bucket in the statistics arrays
+		 *
+		 * @param flow   production or consumption
+		 * @param bucket number of the bucket
+		 * @return the index, -1 if the bucket is not kept
+		 */
+		protected int index(MeterFlow flow, long bucket) {
+			if (bucket < oldest() || bucket > newest)
+				return -1;
+			return flow.ordinal() * capacity + slot(bucket);
+		}
+	}
+
+	/**
+	 * rings by resolution ordinal
+	 */
+	protected final Ring[] rings;
+
+	protected boolean started;
+
+	/**
+	 * the open second, receiving the readings until it is over
+	 */
+	protected long currentSecond;
+
+	/**
+	 * production of the last reading, held until the next one
+	 */
+	protected double heldProduction;
+
+	/**
+	 * consumption of the last reading, held until the next one
+	 */
+	protected double heldConsumption;
+
+	protected long readings;
+
+	/**
+	 * Constructor of an empty history
+	 */
+	public MeterHistory() {
+		HistoryResolution[] resolutions = HistoryResolution.values();
+		this.rings = new Ring[resolutions.length];
+		for (HistoryResolution resolution : resolutions)
+			this.rings[resolution.ordinal()] = new Ring(resolution);
+		this.started = false;
+		this.readings = 0;
+	}
+
+	/**
+	 * Record a reading of the electric meter, holding until the next one
+	 *
+	 * @param simulatedTime simulated time of the reading in seconds, not before
+	 *                      the previous reading
+	 * @param production    production of the house
+	 * @param consumption   consumption of the house
+	 */
+	public synchronized void record(double simulatedTime, double production, double consumption) {
+		long second = (long) Math.floor(simulatedTime);
+		if (!this.started) {
+			this.started = true;
+			this.currentSecond = second;
+			for (Ring ring : this.rings)
+				ring.start(second);
+		} else if (second > this.currentSecond) {
+			// the seconds elapsed held the previous reading
+			for (Ring ring : this.rings)
+				ring.hold(this.currentSecond, second - this.currentSecond, this.heldProduction, this.heldConsumption);
+			this.currentSecond = second;
+		}
+		// the last reading of a second is its value
+		this.heldProduction = production;
+		this.heldConsumption = consumption;
+		this.readings++;
+	}
+
+	/**
+	 * Return the number of readings recorded since the creation
+	 *
+	 * @return the number of readings
+	 */
+	public synchronized long getReadings() {
+		return readings;
+	}
+
+	/**
+	 * Return the number of the newest bucket of a resolution, the bucket b
+	 * starting at the simulated second b * bucketSeconds
+	 *
+	 * @param resolution the resolution
+	 * @return the newest bucket, possibly not over yet
+	 */
+	public synchronized long getNewest(HistoryResolution resolution) {
+		return this.rings[resolution.ordinal()].newest;
+	}
+
+	/**
+	 * Return the number of the oldest bucket kept of a resolution
+	 *
+	 * @param resolution the resolution
+	 * @return the oldest bucket, greater than the newest if the history is empty
+	 */
+	public synchronized long getOldest(HistoryResolution resolution) {
+		return this.rings[resolution.ordinal()].oldest();
+	}
+
+	/**
+	 * Return the number of seconds folded in a bucket, less than its length for
+	 * the first bucket and the newest one
+	 *
+	 * @param resolution the resolution
+	 * @param bucket     number of the bucket
+	 * @return the number of seconds, 0 if the bucket is not kept
+	 */
+	public synchronized int getSeconds(HistoryResolution resolution, long bucket) {
+		Ring ring = this.rings[resolution.ordinal()];
+		return ring.index(MeterFlow.PRODUCTION, bucket) < 0 ? 0 : ring.seconds[ring.slot(bucket)];
+	}
+
+	/**
+	 * Return the minimum of a flow during a bucket
+	 *
+	 * @param resolution the resolution
+	 * @param flow       production or consumption
+	 * @param bucket     number of the bucket
+	 * @return the minimum, NaN if the bucket is not kept
+	 */
+	public synchronized double getMin(HistoryResolution resolution, MeterFlow flow, long bucket) {
+		Ring ring = this.rings[resolution.ordinal()];
+		int index = ring.index(flow, bucket);
+		return index < 0 ? Double.NaN : ring.min[index];
+	}
+
+	/**
+	 * Return the maximum of a flow during a bucket
+	 *
+	 * @param resolution the resolution
+	 * @param flow       production or consumption
+	 * @param bucket     number of the bucket
+	 * @return the maximum, NaN if the bucket is not kept
+	 */
+	public synchronized double getMax(HistoryResolution resolution, MeterFlow flow, long bucket) {
+		Ring ring = this.rings[resolution.ordinal()];
+		int index = ring.index(flow, bucket);
+		return index < 0 ? Double.NaN : ring.max[index];
+	}
+
+	/**
+	 * Return the mean of a flow over the seconds of a bucket, the raw value for
+	 * {@link HistoryResolution#SECOND}
+	 *
+	 * @param resolution the resolution
+	 * @param flow       production or consumption
+	 * @param bucket     number of the bucket
+	 * @return the mean, NaN if the bucket is not kept
+	 */
+	public synchronized double getMean(HistoryResolution resolution, MeterFlow flow, long bucket) {
+		Ring ring = this.rings[resolution.ordinal()];
+		int index = ring.index(flow, bucket);
+		return index < 0 ? Double.NaN : ring.sum[index] / ring.seconds[ring.slot(bucket)];
+	}
+
+	/**
+	 * Copy the means of a flow over the buckets kept, from the oldest to the
+	 * newest, in a single lock
+	 *
+	 * @param resolution the resolution
+	 * @param flow       production or consumption
+	 * @param means      destination, the newest buckets being copied if it is
+	 *                   too short
+	 * @return the number of means copied
+	 */
+	public synchronized int copyMeans(HistoryResolution resolution, MeterFlow flow, double[] means) {
+		Ring ring = this.rings[resolution.ordinal()];
+		long from = Math.max(ring.oldest(), ring.newest - means.length + 1);
+		int n = 0;
+		for (long bucket = from; bucket <= ring.newest; bucket++) {
+			int slot = ring.slot(bucket);
+			means[n++] = ring.sum[flow.ordinal() * ring.capacity + slot] / ring.seconds[slot];
+		}
+		Arrays.fill(means, n, means.length, Double.NaN);
+		return n;
+	}
+}
@@ -0,0 +1,596 @@
+package main.java.components.electricMeter.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * The class <code>MeterStore</code> is a persistent time series of the
+ * readings of the electric meter, stored in memory-mapped segment files of a
+ * directory : segment-00000000.mts, segment-00000001.mts...
+ *
+ * A segment starts with a header of {@link #HEADER_BYTES} (magic number,
+ * version, run, number of devices, size of a record, number of records written
+ * and names of the devices) followed by room for {@link #SEGMENT_RECORDS}
+ * records of fixed size : simulated time, production, consumption and the
+ * value of each device (doubles). The number of records is updated in the
+ * mapping after each record, so a record is either entirely in the store or
+ * not at all, even if the CVM stops abruptly. The mappings are forced to the
+ * disk at most every {@link #FORCE_INTERVAL_MILLIS}.
+ *
+ * The records are appended by increasing simulated time within a run. A
+ * simulation restarting from an earlier time, typically after a restart of the
+ * CVM, starts a new run in a new segment, the existing segments being kept.
+ * The headers of the segments are the time index of the store : a seek by
+ * simulated time is a binary search over the segments of the run, then over
+ * the records of the segment. A {@link Cursor} reads the records in place in
+ * the mappings, without copying them.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class MeterStore implements Closeable {
+
+	/**
+	 * magic number of a segment file, "EMTS"
+	 */
+	public static final int MAGIC = 0x454D5453;
+
+	/**
+	 * version of the layout of the segments
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * size in bytes of the header of a segment
+	 */
+	public static final int HEADER_BYTES = 4096;
+
+	/**
+	 * number of records of a segment
+	 */
+	public static final int SEGMENT_RECORDS = 1 << 16;
+
+	/**
+	 * maximal time in milliseconds between two forces of the store to the disk
+	 */
+	public static final long FORCE_INTERVAL_MILLIS = 1000;
+
+	/**
+	 * offset of the number of records in the header of a segment
+	 */
+	protected static final int COUNT_OFFSET = 20;
+
+	/**
+	 * offset of the names of the devices in the header of a segment
+	 */
+	protected static final int NAMES_OFFSET = 24;
+
+	/**
+	 * size in bytes of the fields of a record preceding the devices
+	 */
+	protected static final int RECORD_FIELDS_BYTES = 3 * 8;
+
+	/**
+	 * A segment file, mapped entirely
+	 */
+	protected static class Segment {
+
+		protected final int number;
+
+		protected final int run;
+
+		protected final String[] devices;
+
+		protected final int recordBytes;
+
+		/**
+		 * number of records the file can hold
+		 */
+		protected final int capacity;
+
+		protected final MappedByteBuffer buffer;
+
+		/**
+		 * number of records written, guarded by the store
+		 */
+		protected int count;
+
+		protected Segment(int number, int run, String[] devices, int capacity, MappedByteBuffer buffer,
+				int count) {
+			this.number = number;
+			this.run = run;
+			this.devices = devices;
+			this.recordBytes = recordBytes(devices.length);
+			this.capacity = capacity;
+			this.buffer = buffer;
+			this.count = count;
+		}
+
+		/**
+		 * Return the simulated time of a record
+		 *
+		 * @param index index of the record in the segment
+		 * @return the simulated time
+		 */
+		protected double time(int index) {
+			return buffer.getDouble(HEADER_BYTES + index * recordBytes);
+		}
+
+		/**
+		 * Return the simulated time of the first record, infinite for an empty
+		 * segment, which can only be the last one
+		 *
+		 * @return the simulated time
+		 */
+		protected double firstTime() {
+			return count == 0 ? Double.POSITIVE_INFINITY : time(0);
+		}
+
+		/**
+		 * Return the index of the first record not before the given time
+		 *
+		 * @param simulatedTime the simulated time
+		 * @return the index, count if all the records are before
+		 */
+		protected int search(double simulatedTime) {
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (time(middle) < simulatedTime)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+	}
+
+	protected final Path directory;
+
+	/**
+	 * names of the devices of the records appended
+	 */
+	protected final String[] devices;
+
+	/**
+	 * segments by number
+	 */
+	protected final ArrayList<Segment> segments = new ArrayList<>();
+
+	/**
+	 * segment receiving the records, null until the first append after the
+	 * opening if the last segment can't receive them
+	 */
+	protected Segment current;
+
+	/**
+	 * run of the last segment
+	 */
+	protected int run;
+
+	/**
+	 * simulated time of the last record, NaN if the store is empty
+	 */
+	protected double lastTime;
+
+	/**
+	 * time of the last force to the disk, from System.nanoTime
+	 */
+	protected long lastForce;
+
+	/**
+	 * number of records appended since the opening
+	 */
+	protected long appended;
+
+	protected boolean closed;
+
+	/**
+	 * Open the store, creating the directory if it doesn't exist, the records
+	 * being appended after the existing ones
+	 *
+	 * @param directory directory of the segments
+	 * @param devices   names of the devices of the records
+	 * @throws IOException if the directory can't be read or holds a segment
+	 *                     that isn't valid
+	 */
+	public MeterStore(Path directory, String[] devices) throws IOException {
+		this.directory = directory;
+		this.devices = devices.clone();
+		if (HEADER_BYTES < NAMES_OFFSET + namesBytes(this.devices))
+			throw new IOException("too many devices for the header of a segment : " + devices.length);
+		Files.createDirectories(directory);
+
+		ArrayList<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.mts")) {
+			for (Path file : stream)
+				files.add(file);
+		}
+		// the numbers have the same width, so the names sort like them
+		Collections.sort(files);
+		for (Path file : files)
+			segments.add(openSegment(file, MapMode.READ_ONLY));
+
+		this.run = 0;
+		this.lastTime = Double.NaN;
+		if (!segments.isEmpty()) {
+			Segment last = segments.get(segments.size() - 1);
+			this.run = last.run;
+			for (int i = segments.size() - 1; i >= 0 && Double.isNaN(lastTime); i--) {
+				Segment segment = segments.get(i);
+				if (segment.run == run && segment.count > 0)
+					lastTime = segment.time(segment.count - 1);
+			}
+			// the last segment keeps receiving records while it has room for them
+			if (last.count < last.capacity && Arrays.equals(last.devices, this.devices)) {
+				this.current = openSegment(segmentFile(last.number), MapMode.READ_WRITE);
+				segments.set(segments.size() - 1, current);
+			}
+		}
+		this.lastForce = System.nanoTime();
+		this.appended = 0;
+		this.closed = false;
+	}
+
+	/**
+	 * Return the size of a record
+	 *
+	 * @param deviceCount number of devices
+	 * @return the size of a record in bytes
+	 */
+	protected static int recordBytes(int deviceCount) {
+		return RECORD_FIELDS_BYTES + 8 * deviceCount;
+	}
+
+	/**
+	 * Return the size of the names of the devices in a header
+	 *
+	 * @param devices names of the devices
+	 * @return the size in bytes
+	 */
+	protected static int namesBytes(String[] devices) {
+		int bytes = 0;
+		for (String device : devices)
+			bytes += 2 + device.getBytes(StandardCharsets.UTF_8).length;
+		return bytes;
+	}
+
+	/**
+	 * Return the file of a segment
+	 *
+	 * @param number number of the segment
+	 * @return the path of the file
+	 */
+	protected Path segmentFile(int number) {
+		return directory.resolve(String.format("segment-%08d.mts", number));
+	}
+
+	/**
+	 * Map an existing segment
+	 *
+	 * @param file file of the segment
+	 * @param mode READ_ONLY or READ_WRITE
+	 * @return the segment
+	 * @throws IOException if the file can't be mapped or isn't a segment
+	 */
+	protected static Segment openSegment(Path file, MapMode mode) throws IOException {
+		StandardOpenOption[] options = mode == MapMode.READ_ONLY ? new StandardOpenOption[] { StandardOpenOption.READ }
+				: new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, options)) {
+			if (channel.size() < HEADER_BYTES)
+				throw new IOException(file + " is not a meter store segment");
+			// the mapping stays valid once the channel is closed
+			buffer = channel.map(mode, 0, channel.size());
+		}
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException(file + " is not a meter store segment");
+		if (buffer.getInt(4) != VERSION)
+			throw new IOException("unsupported meter store version " + buffer.getInt(4) + " in " + file);
+		int run = buffer.getInt(8);
+		String[] devices = new String[buffer.getInt(12)];
+		int recordBytes = buffer.getInt(16);
+		if (recordBytes != recordBytes(devices.length))
+			throw new IOException("unsupported record size " + recordBytes + " in " + file);
+		ByteBuffer names = buffer.duplicate();
+		names.position(NAMES_OFFSET);
+		for (int i = 0; i < devices.length; i++) {
+			byte[] name = new byte[names.getShort()];
+			names.get(name);
+			devices[i] = new String(name, StandardCharsets.UTF_8);
+		}
+		int capacity = (buffer.capacity() - HEADER_BYTES) / recordBytes;
+		// a count beyond the file comes from a file cut by hand
+		int count = Math.min(buffer.getInt(COUNT_OFFSET), capacity);
+		String name = file.getFileName().toString();
+		int number = Integer.parseInt(name.substring("segment-".length(), name.length() - ".mts".length()));
+		return new Segment(number, run, devices, capacity, buffer, count);
+	}
+
+	/**
+	 * Create the next segment, receiving the records
+	 *
+	 * @param run run of the segment
+	 * @throws IOException if the file can't be created
+	 */
+	protected void createSegment(int run) throws IOException {
+		if (current != null)
+			current.buffer.force();
+		int number = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).number + 1;
+		long size = HEADER_BYTES + (long) SEGMENT_RECORDS * recordBytes(devices.length);
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(segmentFile(number), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			buffer = channel.map(MapMode.READ_WRITE, 0, size);
+		}
+		buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, run).putInt(12, devices.length)
+				.putInt(16, recordBytes(devices.length)).putInt(COUNT_OFFSET, 0);
+		ByteBuffer names = buffer.duplicate();
+		names.position(NAMES_OFFSET);
+		for (String device : devices) {
+			byte[] name = device.getBytes(StandardCharsets.UTF_8);
+			names.putShort((short) name.length).put(name);
+		}
+		this.current = new Segment(number, run, devices, SEGMENT_RECORDS, buffer, 0);
+		this.segments.add(current);
+		this.run = run;
+	}
+
+	/**
+	 * Append a reading of the electric meter
+	 *
+	 * @param simulatedTime simulated time of the reading, a time before the
+	 *                      previous reading starting a new run
+	 * @param production    production of the house
+	 * @param consumption   consumption of the house
+	 * @param values        value of each device, in the order of the names given
+	 *                      at the opening
+	 * @throws IOException if a new segment can't be created
+	 */
+	public synchronized void append(double simulatedTime, double production, double consumption, double[] values)
+			throws IOException {
+		assert values.length == devices.length;
+		if (closed)
+			throw new IOException("meter store closed");
+		boolean newRun = !Double.isNaN(lastTime) && simulatedTime < lastTime;
+		if (current == null || current.count == current.capacity || newRun)
+			createSegment(newRun ? run + 1 : run);
+
+		MappedByteBuffer buffer = current.buffer;
+		int offset = HEADER_BYTES + current.count * current.recordBytes;
+		buffer.putDouble(offset, simulatedTime).putDouble(offset + 8, production).putDouble(offset + 16,
+				consumption);
+		offset += RECORD_FIELDS_BYTES;
+		for (int i = 0; i < values.length; i++)
+			buffer.putDouble(offset + 8 * i, values[i]);
+		// the record is complete, it can be counted
+		current.count++;
+		buffer.putInt(COUNT_OFFSET, current.count);
+		lastTime = simulatedTime;
+		appended++;
+
+		if (System.nanoTime() - lastForce >= FORCE_INTERVAL_MILLIS * 1_000_000) {
+			buffer.force();
+			lastForce = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Return the number of records appended since the opening
+	 *
+	 * @return the number of records
+	 */
+	public synchronized long getAppended() {
+		return appended;
+	}
+
+	/**
+	 * Return the run receiving the records
+	 *
+	 * @return the last run
+	 */
+	public synchronized int getRun() {
+		return run;
+	}
+
+	/**
+	 * Return the number of records of a run
+	 *
+	 * @param run the run
+	 * @return the number of records
+	 */
+	public synchronized long size(int run) {
+		long size = 0;
+		for (Segment segment : segments)
+			if (segment.run == run)
+				size += segment.count;
+		return size;
+	}
+
+	/**
+	 * Return a cursor on the records of a run, from the first record not before
+	 * the given simulated time
+	 *
+	 * @param run           the run
+	 * @param simulatedTime the simulated time
+	 * @return the cursor, before the record found
+	 */
+	public synchronized Cursor seek(int run, double simulatedTime) {
+		// segments of the run : [low, high[
+		int low = 0;
+		int high = segments.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments.get(middle).run < run)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		int first = low;
+		high = segments.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments.get(middle).run <= run)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		int end = low;
+		if (first == end)
+			return new Cursor(run, -1, null, 0);
+
+		// last segment starting before the time, if any
+		low = first;
+		high = end;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments.get(middle).firstTime() <= simulatedTime)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		int index = Math.max(first, low - 1);
+		Segment segment = segments.get(index);
+		return new Cursor(run, index, segment, segment.search(simulatedTime));
+	}
+
+	/**
+	 * Return a cursor on all the records of a run
+	 *
+	 * @param run the run
+	 * @return the cursor, before the first record
+	 */
+	public Cursor scan(int run) {
+		return seek(run, Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Force the mapping receiving the records to the disk and close the store
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		if (current != null)
+			current.buffer.force();
+		current = null;
+	}
+
+	/**
+	 * The class <code>Cursor</code> reads the records of a run in place in the
+	 * mappings of the segments, by absolute reads that don't disturb the writer. The records appended to the run after the
+	 * creation of the cursor are read as well.
+	 */
+	public class Cursor {
+
+		protected final int run;
+
+		/**
+		 * index of the segment in the store, -1 for a run without records
+		 */
+		protected int segmentIndex;
+
+		protected Segment segment;
+
+		/**
+		 * index of the current record in the segment
+		 */
+		protected int index;
+
+		/**
+		 * number of records of the segment known by the cursor
+		 */
+		protected int limit;
+
+		/**
+		 * offset of the current record in the segment
+		 */
+		protected int offset;
+
+		protected Cursor(int run, int segmentIndex, Segment segment, int start) {
+			this.run = run;
+			this.segmentIndex = segmentIndex;
+			this.segment = segment;
+			this.index = start - 1;
+			this.limit = segment == null ? 0 : segment.count;
+		}
+
+		/**
+		 * Move to the next record of the run
+		 *
+		 * @return true if there is a next record, false at the end of the run
+		 */
+		public boolean next() {
+			if (segment == null)
+				return false;
+			while (index + 1 >= limit) {
+				synchronized (MeterStore.this) {
+					limit = segment.count;
+					if (index + 1 < limit)
+						break;
+					if (segmentIndex + 1 >= segments.size() || segments.get(segmentIndex + 1).run != run)
+						return false;
+					segmentIndex++;
+					segment = segments.get(segmentIndex);
+					index = -1;
+					limit = segment.count;
+				}
+			}
+			index++;
+			offset = HEADER_BYTES + index * segment.recordBytes;
+			return true;
+		}
+
+		public double getSimulatedTime() {
+			return segment.buffer.getDouble(offset);
+		}
+
+		public double getProduction() {
+			return segment.buffer.getDouble(offset + 8);
+		}
+
+		public double getConsumption() {
+			return segment.buffer.getDouble(offset + 16);
+		}
+
+		/**
+		 * Return the number of devices of the current record, which may change
+		 * from a segment to the next one
+		 *
+		 * @return the number of devices
+		 */
+		public int getDeviceCount() {
+			return segment.devices.length;
+		}
+
+		public String getDeviceName(int device) {
+			return segment.devices[device];
+		}
+
+		/**
+		 * Return the value of a device in the current record
+		 *
+		 * @param device index of the device
+		 * @return the value of the device
+		 */
+		public double getDevice(int device) {
+			return segment.buffer.getDouble(offset + RECORD_FIELDS_BYTES + 8 * device);
+		}
+	}
+}
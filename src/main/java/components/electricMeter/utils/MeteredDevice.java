@@ -0,0 +1,133 @@
+package main.java.components.electricMeter.utils;
+
+import fr.sorbonne_u.devs_simulation.hioa.models.AtomicHIOA;
+
+/**
+ * The class <code>MeteredDevice</code> describes a current metered by the
+ * electric meter : the electrical model exporting it, the name of the exported
+ * variable and whether it is consumed or produced.
+ *
+ * The variable imported by the electric meter model is named after the device,
+ * e.g. "FanIntensity" for the consumption of the fan or "SolarPanelsProduction"
+ * for the production of the solar panels. A device both consuming and
+ * producing, like the battery, is metered as two devices.
+ *
+ * @author Bello Memmi
+ *
+ */
+public class MeteredDevice {
+
+	/**
+	 * name of the device in the breakdown of the electric meter
+	 */
+	protected final String name;
+
+	/**
+	 * whether the current of the device is consumed or produced
+	 */
+	protected final MeterFlow flow;
+
+	/**
+	 * URI of the electrical model of the device
+	 */
+	protected final String modelURI;
+
+	/**
+	 * class of the electrical model of the device
+	 */
+	protected final Class<? extends AtomicHIOA> modelClass;
+
+	/**
+	 * name of the variable exported by the electrical model
+	 */
+	protected final String sourceVariable;
+
+	/**
+	 * name of the variable imported by the electric meter model
+	 */
+	protected final String sinkVariable;
+
+	/**
+	 * Constructor of the device
+	 *
+	 * @param name           name of the device in the breakdown, in camel case
+	 * @param flow           consumption or production
+	 * @param modelURI       URI of the electrical model of the device
+	 * @param modelClass     class of the electrical model of the device
+	 * @param sourceVariable name of the variable exported by the electrical model
+	 */
+	public MeteredDevice(String name, MeterFlow flow, String modelURI, Class<? extends AtomicHIOA> modelClass,
+			String sourceVariable) {
+		assert name != null && !name.isEmpty() && flow != null && modelURI != null && modelClass != null
+				&& sourceVariable != null;
+		this.name = name;
+		this.flow = flow;
+		this.modelURI = modelURI;
+		this.modelClass = modelClass;
+		this.sourceVariable = sourceVariable;
+		this.sinkVariable = Character.toUpperCase(name.charAt(0)) + name.substring(1)
+				+ (flow == MeterFlow.CONSUMPTION ? "Intensity" : "Production");
+	}
+
+	/**
+	 * Return the name of the device in the breakdown
+	 *
+	 * @return the name of the device
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Return whether the current of the device is consumed or produced
+	 *
+	 * @return consumption or production
+	 */
+	public MeterFlow getFlow() {
+		return flow;
+	}
+
+	/**
+	 * Return the URI of the electrical model of the device
+	 *
+	 * @return the URI of the electrical model
+	 */
+	public String getModelURI() {
+		return modelURI;
+	}
+
+	/**
+	 * Return the class of the electrical model of the device
+	 *
+	 * @return the class of the electrical model
+	 */
+	public Class<? extends AtomicHIOA> getModelClass() {
+		return modelClass;
+	}
+
+	/**
+	 * Return the name of the variable exported by the electrical model
+	 *
+	 * @return the name of the exported variable
+	 */
+	public String getSourceVariable() {
+		return sourceVariable;
+	}
+
+	/**
+	 * Return the name of the variable imported by the electric meter model
+	 *
+	 * @return the name of the imported variable
+	 */
+	public String getSinkVariable() {
+		return sinkVariable;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MeteredDevice[" + sinkVariable + " <- " + modelURI + "." + sourceVariable + "]";
+	}
+}